@@ -0,0 +1,83 @@
+package com.example.swinggradleapp.benchmark;
+
+import com.example.swinggradleapp.datatransfer.PackedBoard;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.datatransfer.StrokeRasterizer;
+import com.example.swinggradleapp.utils.Config;
+
+import java.util.Random;
+
+/**
+ * BenchmarkData builds deterministic inputs shaped like real whiteboard traffic: random-walk strokes
+ * rather than uniform noise, so codecs and snapshots see realistic runs and deltas.
+ */
+final class BenchmarkData {
+    static final int WIDTH = Config.BOARD_WIDTH;
+    static final int HEIGHT = Config.BOARD_HEIGHT;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns a random-walk stroke.
+     *
+     * @param seed    The random seed.
+     * @param centers The number of centers.
+     * @param radius  The pen radius.
+     */
+    static Stroke stroke(long seed, int centers, int radius) {
+        Random random = new Random(seed);
+        Stroke stroke = new Stroke(radius, 1, centers);
+        int x = random.nextInt(WIDTH);
+        int y = random.nextInt(HEIGHT);
+        while (stroke.size() < centers) {
+            x = Math.max(0, Math.min(x + random.nextInt(7) - 3, WIDTH - 1));
+            y = Math.max(0, Math.min(y + random.nextInt(7) - 3, HEIGHT - 1));
+            stroke.add(x, y);
+        }
+        return stroke;
+    }
+
+    /**
+     * Returns the pixels of a random-walk stroke, in capture order, as a DRAW batch would carry them.
+     *
+     * @param seed   The random seed.
+     * @param points The approximate number of points wanted; the result is cut to exactly this many.
+     */
+    static PointBuffer points(long seed, int points) {
+        PointBuffer out = new PointBuffer(points);
+        StrokeRasterizer rasterizer = new StrokeRasterizer(WIDTH, HEIGHT);
+        long strokeSeed = seed;
+        while (out.size() < points) {
+            rasterizer.rasterize(stroke(strokeSeed++, 64, 3), out);
+        }
+        return out.copyRange(0, points);
+    }
+
+    /**
+     * Returns a board covered by the given number of strokes, as [row][column] of 0/1.
+     *
+     * @param seed    The random seed.
+     * @param strokes The number of strokes; 0 gives an empty board.
+     */
+    static int[][] board(long seed, int strokes) {
+        PointBuffer pixels = new PointBuffer();
+        StrokeRasterizer rasterizer = new StrokeRasterizer(WIDTH, HEIGHT);
+        for (int i = 0; i < strokes; i++) {
+            rasterizer.rasterize(stroke(seed + i, 400, 3), pixels);
+        }
+        int[][] matrix = new int[HEIGHT][WIDTH];
+        for (int i = 0; i < pixels.size(); i++) {
+            matrix[pixels.getY(i)][pixels.getX(i)] = 1;
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns the board as a packed snapshot.
+     */
+    static PackedBoard packedBoard(long seed, int strokes) {
+        return PackedBoard.fromMatrix(board(seed, strokes));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.swinggradleapp.benchmark;
+
+import com.example.swinggradleapp.datatransfer.PixelSet;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.datatransfer.StrokeRasterizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expanding captured stroke centers into pen pixels: the segment addPoint adds per mouse event,
+ * and the rasterizer used for remote strokes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CaptureBenchmark {
+    @Param({"1", "3", "8"})
+    public int radius;
+
+    private Stroke stroke;
+    private final PixelSet capture = new PixelSet(BenchmarkData.WIDTH, BenchmarkData.HEIGHT);
+    private final StrokeRasterizer rasterizer = new StrokeRasterizer(BenchmarkData.WIDTH, BenchmarkData.HEIGHT);
+    private final PointBuffer out = new PointBuffer();
+
+    @Setup
+    public void setUp() {
+        stroke = BenchmarkData.stroke(3, 300, radius);
+    }
+
+    // One flush interval's worth of addPoint calls
+    @Benchmark
+    public int addPointSegments() {
+        capture.clear();
+        StrokeRasterizer.addSegment(stroke.getX(0), stroke.getY(0), stroke.getX(0), stroke.getY(0), radius, capture);
+        for (int i = 1; i < stroke.size(); i++) {
+            StrokeRasterizer.addSegment(stroke.getX(i - 1), stroke.getY(i - 1), stroke.getX(i), stroke.getY(i), radius, capture);
+        }
+        return capture.size();
+    }
+
+    @Benchmark
+    public int rasterizeStroke() {
+        out.clear();
+        rasterizer.rasterize(stroke, out);
+        return out.size();
+    }
+}
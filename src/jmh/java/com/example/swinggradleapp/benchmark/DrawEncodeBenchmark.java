@@ -0,0 +1,47 @@
+package com.example.swinggradleapp.benchmark;
+
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.PointCodec;
+import com.example.swinggradleapp.datatransfer.PointCodecs;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.datatransfer.StrokeCodec;
+import com.example.swinggradleapp.datatransfer.WireMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding outgoing DRAW batches and STROKE segments, as sendDrawMessage and the outbound queue do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DrawEncodeBenchmark {
+    @Param({"json", "binary", "text"})
+    public String codec;
+
+    // 300 is the per-message batch sendDrawMessage cuts to; 1500 is a merged outbound batch
+    @Param({"300", "1500"})
+    public int points;
+
+    private PointCodec pointCodec;
+    private PointBuffer batch;
+    private Stroke segment;
+
+    @Setup
+    public void setUp() {
+        pointCodec = PointCodecs.forName(codec);
+        batch = BenchmarkData.points(11, points);
+        segment = BenchmarkData.stroke(11, 300, 3);
+    }
+
+    @Benchmark
+    public WireMessage drawBatch() {
+        return pointCodec.encode("DRAW", batch, 0, batch.size());
+    }
+
+    @Benchmark
+    public WireMessage strokeSegment() {
+        return StrokeCodec.encode(segment, pointCodec);
+    }
+}
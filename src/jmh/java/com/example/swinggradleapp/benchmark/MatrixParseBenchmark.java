@@ -0,0 +1,60 @@
+package com.example.swinggradleapp.benchmark;
+
+import com.example.swinggradleapp.datatransfer.BoardMatrix;
+import com.example.swinggradleapp.datatransfer.BoardSnapshotCodec;
+import com.example.swinggradleapp.datatransfer.PackedBoard;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the full 800x600 board sent with the login response and CONFIRM, from the response text
+ * to the int[][] handed to updateBoard.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MatrixParseBenchmark {
+    // 0 is an empty board; 200 strokes cover roughly a third of it
+    @Param({"0", "200"})
+    public int strokes;
+
+    private String jsonResponse;
+    private String rleResponse;
+
+    @Setup
+    public void setUp() {
+        int[][] matrix = BenchmarkData.board(42, strokes);
+
+        JsonObject json = new JsonObject();
+        json.add("board_matrix_data", new Gson().toJsonTree(matrix));
+        jsonResponse = json.toString();
+
+        JsonObject rle = new JsonObject();
+        rle.addProperty("board_matrix_data", BoardSnapshotCodec.encodeBase64(BenchmarkData.packedBoard(42, strokes)));
+        rle.addProperty("board_matrix_encoding", BoardSnapshotCodec.NAME);
+        rleResponse = rle.toString();
+    }
+
+    @Benchmark
+    public int[][] jsonMatrix() {
+        JsonObject response = JsonParser.parseString(jsonResponse).getAsJsonObject();
+        return BoardMatrix.parse(response.get("board_matrix_data"), response.get("board_matrix_encoding"));
+    }
+
+    @Benchmark
+    public int[][] rleSnapshot() {
+        JsonObject response = JsonParser.parseString(rleResponse).getAsJsonObject();
+        return BoardMatrix.parse(response.get("board_matrix_data"), response.get("board_matrix_encoding"));
+    }
+
+    // The rle snapshot without the int[][] expansion, i.e. what a bit-packed board model would keep
+    @Benchmark
+    public PackedBoard rleSnapshotPacked() {
+        JsonObject response = JsonParser.parseString(rleResponse).getAsJsonObject();
+        return BoardSnapshotCodec.decodeBase64(response.get("board_matrix_data").getAsString());
+    }
+}
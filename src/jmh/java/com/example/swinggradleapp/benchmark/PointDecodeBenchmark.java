@@ -0,0 +1,54 @@
+package com.example.swinggradleapp.benchmark;
+
+import com.example.swinggradleapp.datatransfer.DecodedMessage;
+import com.example.swinggradleapp.datatransfer.JsonStreamDecoder;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.PointCodec;
+import com.example.swinggradleapp.datatransfer.PointCodecs;
+import com.example.swinggradleapp.datatransfer.WireMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding an incoming UPDATE into points, as the inbound decoder does for every server message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PointDecodeBenchmark {
+    @Param({"json", "binary", "text"})
+    public String codec;
+
+    @Param({"300", "5000"})
+    public int points;
+
+    private WireMessage message;
+    private PointCodec pointCodec;
+    private final PointBuffer out = new PointBuffer();
+    private final JsonStreamDecoder streamDecoder = new JsonStreamDecoder();
+
+    @Setup
+    public void setUp() {
+        pointCodec = PointCodecs.forName(codec);
+        PointBuffer batch = BenchmarkData.points(7, points);
+        message = pointCodec.encode("UPDATE", batch, 0, batch.size());
+    }
+
+    @Benchmark
+    public int codecDecode() {
+        out.clear();
+        PointCodecs.forMessage(message).decode(message, out);
+        return out.size();
+    }
+
+    // The streaming decoder the inbound thread uses for JSON text frames
+    @Benchmark
+    public int streamingJsonDecode() {
+        if (message.isBinary() || !message.getText().startsWith("{")) {
+            return codecDecode();
+        }
+        DecodedMessage decoded = streamDecoder.decode(message.getText());
+        return decoded.getPoints().size();
+    }
+}
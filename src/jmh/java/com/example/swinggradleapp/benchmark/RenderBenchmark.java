@@ -0,0 +1,118 @@
+package com.example.swinggradleapp.benchmark;
+
+import com.example.swinggradleapp.datatransfer.PackedBoard;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.model.BoardModel;
+import com.example.swinggradleapp.model.BoardSnapshot;
+import com.example.swinggradleapp.rendering.CanvasRaster;
+import com.example.swinggradleapp.rendering.PreparedBoard;
+import com.example.swinggradleapp.rendering.Viewport;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing points and whole boards into the canvas image, headless.
+ * <p>
+ * The Graphics2D variants replay what DrawingPanel.plotPoint and updateBoard do per pixel
+ * (setColor and a 1x1 fillRect); the raster variants go through {@link CanvasRaster}, and the model
+ * variants through {@link BoardModel} with the canvas rendered from it. The prepared variant is the full-board
+ * path MainFrame.updateBoard now takes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RenderBenchmark {
+    @Param({"200"})
+    public int strokes;
+
+    private CanvasRaster raster;
+    private Graphics2D g2d;
+    private int[][] board;
+    private final PointBuffer boardPoints = new PointBuffer();
+    private PointBuffer batch;
+    private BoardModel model;
+    private PackedBoard packedBoard;
+    private PackedBoard emptyBoard;
+    private BoardSnapshot snapshot;
+    private Viewport view;
+
+    @Setup
+    public void setUp() {
+        raster = new CanvasRaster(BenchmarkData.WIDTH, BenchmarkData.HEIGHT);
+        g2d = raster.createGraphics();
+        board = BenchmarkData.board(5, strokes);
+        batch = BenchmarkData.points(5, 300);
+        model = new BoardModel(BenchmarkData.WIDTH, BenchmarkData.HEIGHT);
+        model.addListener((changed, region) -> raster.render(changed, region));
+        packedBoard = PackedBoard.fromMatrix(board);
+        emptyBoard = new PackedBoard(BenchmarkData.WIDTH, BenchmarkData.HEIGHT);
+        snapshot = BoardSnapshot.fromPackedBoard(packedBoard);
+        view = new Viewport(BenchmarkData.WIDTH, BenchmarkData.HEIGHT, BenchmarkData.WIDTH, BenchmarkData.HEIGHT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2d.dispose();
+    }
+
+    @Benchmark
+    public void plotPointBatch() {
+        for (int i = 0; i < batch.size(); i++) {
+            g2d.setColor(batch.getPen(i) == 1 ? Color.BLACK : Color.WHITE);
+            g2d.fillRect(batch.getX(i), batch.getY(i), 1, 1);
+        }
+    }
+
+    @Benchmark
+    public Rectangle applyPointsBatch() {
+        return raster.applyPoints(batch);
+    }
+
+    @Benchmark
+    public void updateBoardPlotPoint() {
+        raster.clear();
+        for (int y = 0; y < board.length; y++) {
+            for (int x = 0; x < board[y].length; x++) {
+                if (board[y][x] == 1) {
+                    g2d.setColor(Color.BLACK);
+                    g2d.fillRect(x, y, 1, 1);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Rectangle updateBoardApplyPoints() {
+        raster.clear();
+        boardPoints.clear();
+        for (int y = 0; y < board.length; y++) {
+            for (int x = 0; x < board[y].length; x++) {
+                if (board[y][x] == 1) {
+                    boardPoints.add(x, y, 1);
+                }
+            }
+        }
+        return raster.applyPoints(boardPoints);
+    }
+
+    // A full snapshot through the board model, which redraws only the region that differs
+    @Benchmark
+    public int updateBoardModel() {
+        model.load(emptyBoard);
+        model.load(packedBoard);
+        return model.get(0, 0);
+    }
+
+    // The same snapshot prepared off the EDT: pyramid and canvas built in parallel row bands
+    @Benchmark
+    public PreparedBoard updateBoardPrepared() {
+        return PreparedBoard.prepare(snapshot, view);
+    }
+
+    @Benchmark
+    public int applyPointsModel() {
+        return model.apply(batch);
+    }
+}
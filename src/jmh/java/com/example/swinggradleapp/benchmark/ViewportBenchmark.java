@@ -0,0 +1,63 @@
+package com.example.swinggradleapp.benchmark;
+
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.model.BoardModel;
+import com.example.swinggradleapp.rendering.CanvasRaster;
+import com.example.swinggradleapp.rendering.MipmapPyramid;
+import com.example.swinggradleapp.rendering.Viewport;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redrawing a window-sized view of boards of growing size, fully zoomed out, and keeping the mipmap
+ * pyramid current under a batch of drawing. Both should stay flat as the board grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ViewportBenchmark {
+    @Param({"800", "20000", "100000"})
+    public int boardSize;
+
+    private BoardModel model;
+    private MipmapPyramid mipmap;
+    private Viewport viewport;
+    private CanvasRaster view;
+    private Rectangle whole;
+    private PointBuffer draw;
+    private PointBuffer erase;
+
+    @Setup
+    public void setUp() {
+        model = new BoardModel(boardSize, boardSize);
+        mipmap = new MipmapPyramid(boardSize, boardSize);
+        model.addListener((changed, region) -> mipmap.update(changed, region));
+        // Spread the usual benchmark board over the whole board
+        int step = Math.max(1, boardSize / BenchmarkData.WIDTH);
+        for (int i = 0; i < 20; i++) {
+            model.fillRect(i * step * 40 % boardSize, i * step * 30 % boardSize, step * 200, Math.max(1, step), 1);
+        }
+        viewport = new Viewport(boardSize, boardSize, BenchmarkData.WIDTH, BenchmarkData.HEIGHT);
+        viewport.zoomAt(viewport.getMinScale(), 0, 0);
+        view = new CanvasRaster(BenchmarkData.WIDTH, BenchmarkData.HEIGHT);
+        whole = new Rectangle(0, 0, BenchmarkData.WIDTH, BenchmarkData.HEIGHT);
+        draw = BenchmarkData.points(5, 300);
+        erase = new PointBuffer(draw.size());
+        for (int i = 0; i < draw.size(); i++) {
+            erase.add(draw.getX(i), draw.getY(i), 0);
+        }
+    }
+
+    @Benchmark
+    public CanvasRaster renderZoomedOut() {
+        view.render(model, mipmap, viewport, whole);
+        return view;
+    }
+
+    @Benchmark
+    public int applyPointsWithMipmap() {
+        return model.apply(draw) + model.apply(erase);
+    }
+}
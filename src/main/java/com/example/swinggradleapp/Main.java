@@ -1,9 +1,12 @@
 package com.example.swinggradleapp;
 
+import com.example.swinggradleapp.metrics.ClientMetrics;
+
 import javax.swing.*;
 
 public class Main {
     public static void main(String[] args) {
+        ClientMetrics.install();
         SwingUtilities.invokeLater(() -> {
             MainFrame frame = new MainFrame("Collaborative Whiteboard");
             frame.setVisible(true);
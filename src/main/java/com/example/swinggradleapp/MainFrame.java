@@ -1,30 +1,53 @@
 package com.example.swinggradleapp;
 
 import com.example.swinggradleapp.client.Client;
+import com.example.swinggradleapp.client.LoginClient;
 import com.example.swinggradleapp.client.MockClient;
 import com.example.swinggradleapp.client.RealClient;
+import com.example.swinggradleapp.datatransfer.BoardMatrix;
+import com.example.swinggradleapp.datatransfer.PackedBoard;
+import com.example.swinggradleapp.datatransfer.PixelSet;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.ResumePoint;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.datatransfer.StrokeRasterizer;
+import com.example.swinggradleapp.datatransfer.TileCodec;
+import com.example.swinggradleapp.metrics.ClientMetrics;
+import com.example.swinggradleapp.model.BoardCache;
+import com.example.swinggradleapp.model.BoardListener;
+import com.example.swinggradleapp.model.BoardModel;
+import com.example.swinggradleapp.model.BoardSnapshot;
+import com.example.swinggradleapp.rendering.CanvasRaster;
+import com.example.swinggradleapp.rendering.FrameStats;
+import com.example.swinggradleapp.rendering.MipmapPyramid;
+import com.example.swinggradleapp.rendering.PreparedBoard;
+import com.example.swinggradleapp.rendering.RenderScheduler;
+import com.example.swinggradleapp.rendering.Viewport;
 import com.example.swinggradleapp.utils.Config;
+import com.example.swinggradleapp.utils.Logger;
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.image.BufferedImage;
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * MainFrame represents the primary window of the Collaborative Whiteboard Application.
  */
 public class MainFrame extends JFrame {
+    private static final Logger log = Logger.getLogger(MainFrame.class);
+
     private final CardLayout cardLayout;
     private final JPanel mainPanel;
 
@@ -35,28 +58,52 @@ public class MainFrame extends JFrame {
     private JPanel whiteboardPanel;
     private JButton penButton;
     private JButton eraserButton;
+    private JComboBox<String> boardSelector;
     private DrawingPanel drawingPanel;
 
     private Client client;
 
     private final Gson gson = new Gson();
+    private final transient LoginClient loginClient = new LoginClient();
 
     private int penRadius = 10; // Default radius, can be modified
 
-    // Changed from ArrayList to HashSet to eliminate duplicate points
-    private Set<PointData> currentPoints = new HashSet<>();
+    // The board at one bit per pixel; the canvas is a view of it. Mutated on the EDT only
+    private final transient BoardModel boardModel = new BoardModel(Config.BOARD_WIDTH, Config.BOARD_HEIGHT);
+
+    // Pixels touched by the stroke in progress; a bitmask-backed set, so capture allocates nothing per point
+    // Sized to the board, so it is replaced when the board is resized
+    private transient PixelSet currentPoints = new PixelSet(Config.BOARD_WIDTH, Config.BOARD_HEIGHT);
+
+    // Pen centers of the stroke in progress, sent as a single STROKE when the server supports it
+    private transient Stroke currentStroke;
+
+    // True once the first center of currentStroke went out as the tail of the previous segment
+    private boolean strokeHeadSent;
+
+    // When the stroke in progress was last flushed to the server
+    private long lastFlushNanos;
+
+    // Disk pixels of the latest captured point, reused for every addPoint
+    private final transient PointBuffer localPoints = new PointBuffer();
 
     private boolean isDrawing = false;
 
+    // Set while the server moves the session to another board; nothing is drawn meanwhile
+    private boolean switchingBoard;
+
     private String boardId;
 
     private String username;
 
-    // ExecutorService for asynchronous message sending
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final String baseTitle;
+
+    // Last known state of the current board on disk; null when caching is off or unavailable
+    private transient BoardCache boardCache;
 
     public MainFrame(String title) {
         super(title);
+        this.baseTitle = title;
 
         // Initialize CardLayout and mainPanel
         cardLayout = new CardLayout();
@@ -86,17 +133,21 @@ public class MainFrame extends JFrame {
         this.setSize(totalWidth, totalHeight);
         this.setMinimumSize(new Dimension(totalWidth, totalHeight));
         this.setLocationRelativeTo(null); // Center on screen
-        this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Exits once the client has closed, see below
+        this.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
 
         // Add window listener to handle cleanup on close
         this.addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
                 sendLeaveMessage();
-                if (client != null) {
-                    client.close();
-                }
-                executor.shutdown(); // Shutdown the executor service
+                // What is still queued, LEAVE included, goes out on the client's own thread; the window is gone meanwhile
+                CompletableFuture<Void> closed = client != null ? client.close() : CompletableFuture.completedFuture(null);
+                closed.whenCompleteAsync((ignored, error) -> {
+                    closeBoardCache(client != null ? client.getResumePoint() : null);
+                    log.info("Render stats: " + getFrameStats());
+                    System.exit(0);
+                }, SwingUtilities::invokeLater);
             }
         });
     }
@@ -134,7 +185,7 @@ public class MainFrame extends JFrame {
             nameField.setEnabled(false);
 
             if (Config.USE_REAL_CLIENT) {
-                new Thread(() -> performLogin(name)).start();
+                performLogin(name);
             } else {
                 simulateLogin(name);
             }
@@ -161,162 +212,181 @@ public class MainFrame extends JFrame {
      */
     private void simulateLogin(String name) {
         this.username = name;
-        this.boardId = "mockBoard456";
         String confirmationMsg = "Welcome, " + name + "! (Mock Connection)";
 
-        // Initialize a blank matrix with dimensions [600][800]
-        int[][] matrix = new int[Config.BOARD_HEIGHT][Config.BOARD_WIDTH];
-
-        SwingUtilities.invokeLater(() -> {
-            initializeWebSocket(boardId, matrix);
-
-            JOptionPane.showMessageDialog(MainFrame.this,
-                    confirmationMsg,
-                    "Login Successful",
-                    JOptionPane.INFORMATION_MESSAGE);
-        });
+        // Start from a blank board
+        SwingUtilities.invokeLater(() -> initializeWebSocket("mockBoard456", Config.BOARD_WIDTH, Config.BOARD_HEIGHT, null)
+                .thenAcceptAsync(connected -> finishLogin(connected, confirmationMsg), SwingUtilities::invokeLater));
     }
 
     /**
-     * Performs the login POST request to the server.
+     * Logs in to the server without blocking the EDT. When the response headers announce the board, the
+     * WebSocket handshake starts right away and runs while the rest of the response is downloading; otherwise
+     * the client connects once the body arrived. The whiteboard is shown when both are done.
      *
      * @param name The username entered by the user.
      */
     private void performLogin(String name) {
-        try {
-            URL url = new URL(Config.LOGIN_URL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-
-            JsonObject loginPayload = new JsonObject();
-            loginPayload.addProperty("username", name);
-
-            OutputStream os = conn.getOutputStream();
-            byte[] input = gson.toJson(loginPayload).getBytes("utf-8");
-            os.write(input, 0, input.length);
-            os.close();
-
-            int responseCode = conn.getResponseCode();
-            if (responseCode == 200 || responseCode == 201) { // HTTP OK or Created
-                BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream(), "utf-8"));
-                StringBuilder responseBuilder = new StringBuilder();
-                String responseLine;
-                while ((responseLine = br.readLine()) != null) {
-                    responseBuilder.append(responseLine.trim());
-                }
-                br.close();
-
-                String response = responseBuilder.toString();
-                JsonObject responseJson = JsonParser.parseString(response).getAsJsonObject();
-
-                String userId = responseJson.get("user_id").getAsString();
-                boardId = responseJson.get("board_id").getAsString();
-                String confirmationMsg = responseJson.get("message").getAsString();
-                JsonArray matrixArray = responseJson.get("board_matrix_data").getAsJsonArray();
-
-                int[][] matrix = parseMatrix(matrixArray);
+        username = name;
+        Executor edt = SwingUtilities::invokeLater;
+        LoginClient.Login login = loginClient.login(name);
+
+        // Connected this early, the client loads the board itself: CONFIRM carries it, or the missed updates
+        // on top of the local cache, so a board in the login body is not needed
+        CompletableFuture<CompletableFuture<Boolean>> announced = login.getAnnouncement().thenApplyAsync(board -> board == null ? null
+                : initializeWebSocket(board.getBoardId(), board.getWidth(), board.getHeight(), null), edt);
+        // The body, and the board in it if it is still needed, is decoded and prepared on the HTTP client's thread
+        CompletableFuture<LoginResult> result = login.getResponse().thenCombine(login.getAnnouncement(),
+                (response, board) -> new LoginResult(response, board == null));
+
+        result.thenCombineAsync(announced, (loggedIn, connecting) -> connecting != null ? connecting
+                        : initializeWebSocket(loggedIn.boardId, loggedIn.width, loggedIn.height, loggedIn.board), edt)
+                .thenCompose(connecting -> connecting)
+                .whenCompleteAsync((connected, error) -> {
+                    if (error != null) {
+                        failLogin(error);
+                    } else {
+                        finishLogin(connected, result.join().message);
+                    }
+                }, edt);
+    }
 
-                SwingUtilities.invokeLater(() -> {
-                    initializeWebSocket(boardId, matrix);
-                    JOptionPane.showMessageDialog(MainFrame.this,
-                            confirmationMsg,
-                            "Login Successful",
-                            JOptionPane.INFORMATION_MESSAGE);
-                });
+    /**
+     * The parts of an accepted login response the frame uses.
+     */
+    private final class LoginResult {
+        final String boardId;
+        final String message;
+        final int width;
+        final int height;
+        // The board in the response, ready to be swapped in, or null if it holds none
+        final PreparedBoard board;
 
+        /**
+         * Reads the response, decoding and preparing the board it holds. Call off the EDT.
+         *
+         * @param response  The response body.
+         * @param withBoard false to skip decoding a board the response holds.
+         */
+        LoginResult(JsonObject response, boolean withBoard) {
+            boardId = response.get("board_id").getAsString();
+            message = response.get("message").getAsString();
+            if (withBoard && response.has("board_matrix_data")) {
+                board = prepareBoard(BoardSnapshot.fromPackedBoard(
+                        parseMatrix(response.get("board_matrix_data"), response.get("board_matrix_encoding"))));
+                width = board.getBoard().getWidth();
+                height = board.getBoard().getHeight();
             } else {
-                SwingUtilities.invokeLater(() -> {
-                    JOptionPane.showMessageDialog(MainFrame.this,
-                            "Login failed with response code: " + responseCode,
-                            "Login Error",
-                            JOptionPane.ERROR_MESSAGE);
-                    enterButton.setEnabled(true);
-                    nameField.setEnabled(true);
-                });
+                // Tiled board, or one the WebSocket delivers: only its size
+                board = null;
+                width = response.get("board_width").getAsInt();
+                height = response.get("board_height").getAsInt();
             }
-
-            conn.disconnect();
-
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            SwingUtilities.invokeLater(() -> {
-                JOptionPane.showMessageDialog(MainFrame.this,
-                        "An error occurred during login: " + ex.getMessage(),
-                        "Login Error",
-                        JOptionPane.ERROR_MESSAGE);
-                enterButton.setEnabled(true);
-                nameField.setEnabled(true);
-            });
         }
     }
 
     /**
-     * Parses the board matrix from JsonArray to 2D int array.
+     * Shows the whiteboard once logged in and connected, or lets the user try again. Call on the EDT.
      *
-     * @param matrixArray The JsonArray representing the board matrix.
-     * @return The 2D int array.
+     * @param connected       true if the WebSocket opened.
+     * @param confirmationMsg The server's welcome message.
      */
-    private int[][] parseMatrix(JsonArray matrixArray) {
-        int rows = matrixArray.size();
-        if (rows != Config.BOARD_HEIGHT) {
-            System.err.println("Warning: Matrix rows (" + rows + ") do not match BOARD_HEIGHT (" + Config.BOARD_HEIGHT + ").");
-        }
-        int cols = matrixArray.get(0).getAsJsonArray().size();
-        if (cols != Config.BOARD_WIDTH) {
-            System.err.println("Warning: Matrix columns (" + cols + ") do not match BOARD_WIDTH (" + Config.BOARD_WIDTH + ").");
+    private void finishLogin(boolean connected, String confirmationMsg) {
+        if (!connected) {
+            JOptionPane.showMessageDialog(MainFrame.this,
+                    "Unable to connect to the WebSocket server.",
+                    "Connection Error",
+                    JOptionPane.ERROR_MESSAGE);
+            // Re-enable UI components
+            enterButton.setEnabled(true);
+            nameField.setEnabled(true);
+            return;
         }
-        System.out.println("Matrix Dimensions: Rows = " + rows + ", Columns = " + cols);
-        int[][] matrix = new int[rows][cols];
 
-        for (int y = 0; y < rows; y++) { // Iterate over rows (y)
-            JsonArray row = matrixArray.get(y).getAsJsonArray();
-            if (row.size() != cols) {
-                throw new IndexOutOfBoundsException("Row " + y + " has " + row.size() + " columns; expected " + cols + ".");
-            }
-            for (int x = 0; x < cols; x++) { // Iterate over columns (x)
-                matrix[y][x] = row.get(x).getAsInt();
-            }
+        boardSelector.addItem(boardId);
+        cardLayout.show(mainPanel, "Whiteboard");
+        JOptionPane.showMessageDialog(MainFrame.this,
+                confirmationMsg,
+                "Login Successful",
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * Reports a failed login, closing a connection already opened for it. Call on the EDT.
+     *
+     * @param error The failure, possibly wrapped by the future it failed.
+     */
+    private void failLogin(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        log.error("Login failed: " + cause.getMessage(), cause);
+        if (client != null) {
+            client.close();
+            client = null;
         }
+        closeBoardCache(null);
+        String message = cause instanceof LoginClient.RejectedException
+                ? cause.getMessage()
+                : "An error occurred during login: " + cause.getMessage();
+        JOptionPane.showMessageDialog(MainFrame.this,
+                message,
+                "Login Error",
+                JOptionPane.ERROR_MESSAGE);
+        enterButton.setEnabled(true);
+        nameField.setEnabled(true);
+    }
 
+    /**
+     * Parses the board matrix to a packed board, either from the compact snapshot format
+     * or from the plain JsonArray of rows.
+     *
+     * @param matrixData The matrix field: a base64 snapshot string or a JsonArray of rows.
+     * @param encoding   The snapshot encoding field, null for the plain JsonArray.
+     * @return The packed board.
+     */
+    private PackedBoard parseMatrix(JsonElement matrixData, JsonElement encoding) {
+        PackedBoard matrix = BoardMatrix.parsePacked(matrixData, encoding);
+        log.info("Matrix Dimensions: Rows = " + matrix.getHeight() + ", Columns = " + matrix.getWidth());
         return matrix;
     }
 
     /**
-     * Initializes the WebSocket connection after receiving boardId and initial matrix.
+     * Initializes the WebSocket connection after receiving boardId and initial matrix, without waiting for
+     * the handshake. Call on the EDT.
      *
-     * @param boardId The boardId received from the login response.
-     * @param matrix  The initial board matrix.
+     * @param boardId      The boardId received from the login response.
+     * @param width        The board width.
+     * @param height       The board height.
+     * @param initialBoard The board from the login response, prepared off the EDT, or null if the login only
+     *                     announced the board's size.
+     * @return Completes with true once the connection is open.
      */
-    private void initializeWebSocket(String boardId, int[][] matrix) {
-        String websocketWithBoardId = Config.WEBSOCKET_URL + "?boardId=" + boardId;
+    private CompletableFuture<Boolean> initializeWebSocket(String boardId, int width, int height, PreparedBoard initialBoard) {
+        this.boardId = boardId;
+        // Size the model first: the client's buffers are sized from it
+        if (boardModel.getWidth() != width || boardModel.getHeight() != height) {
+            resizeBoard(width, height);
+        }
 
-        if (Config.USE_REAL_CLIENT) {
-            client = new RealClient(websocketWithBoardId, this);
-        } else {
-            client = new MockClient(this, boardId);
+        // Load the board before connecting, so nothing the server sends can be overwritten by it.
+        // A cached board is shown at once; the server then only sends what changed since, if it can
+        openBoardCache(boardId, true);
+        ResumePoint resumePoint = null;
+        if (initialBoard != null) {
+            handleInitialBoard(initialBoard);
+        } else if (boardCache != null && boardCache.isRestored()) {
+            resumePoint = boardCache.getResumePoint();
         }
 
-        boolean connected = client.connect();
+        String websocketWithBoardId = Config.WEBSOCKET_URL + "?boardId=" + boardId
+                + (username != null ? "&username=" + URLEncoder.encode(username, StandardCharsets.UTF_8) : "");
 
-        if (!connected) {
-            SwingUtilities.invokeLater(() -> {
-                JOptionPane.showMessageDialog(MainFrame.this,
-                        "Unable to connect to the WebSocket server.",
-                        "Connection Error",
-                        JOptionPane.ERROR_MESSAGE);
-                // Re-enable UI components
-                enterButton.setEnabled(true);
-                nameField.setEnabled(true);
-            });
-            return;
+        if (Config.USE_REAL_CLIENT) {
+            client = new RealClient(websocketWithBoardId, this, resumePoint);
+        } else {
+            client = new MockClient(this, boardId);
         }
 
-        SwingUtilities.invokeLater(() -> {
-            cardLayout.show(mainPanel, "Whiteboard");
-            handleInitialBoard(matrix);
-        });
+        return client.connect();
     }
 
     /**
@@ -345,13 +415,28 @@ public class MainFrame extends JFrame {
 
         penRadiusSlider.addChangeListener(e -> {
             penRadius = penRadiusSlider.getValue();
-            System.out.println("Pen Radius set to: " + penRadius);
+            log.debug(() -> "Pen Radius set to: " + penRadius);
+        });
+
+        // Type a board id and press Enter to open it, or pick one opened before
+        boardSelector = new JComboBox<>();
+        boardSelector.setEditable(true);
+        boardSelector.setBorder(BorderFactory.createTitledBorder("Board"));
+        boardSelector.setMaximumSize(new Dimension(200, 60));
+        boardSelector.addActionListener(e -> {
+            Object selected = boardSelector.getSelectedItem();
+            if (selected != null) {
+                switchBoard(selected.toString().trim());
+            }
         });
 
         penButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         eraserButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         penRadiusSlider.setAlignmentX(Component.CENTER_ALIGNMENT);
+        boardSelector.setAlignmentX(Component.CENTER_ALIGNMENT);
 
+        toolsPanel.add(boardSelector);
+        toolsPanel.add(Box.createRigidArea(new Dimension(0, 20))); // Spacer
         toolsPanel.add(penRadiusSlider);
         toolsPanel.add(Box.createRigidArea(new Dimension(0, 20))); // Spacer
         toolsPanel.add(penButton);
@@ -375,17 +460,64 @@ public class MainFrame extends JFrame {
         // Add action listeners for tools
         penButton.addActionListener(e -> {
             drawingPanel.setCurrentColor(Color.BLACK); // Set pen color to black
-            System.out.println("Pen tool selected.");
+            log.debug("Pen tool selected.");
         });
         eraserButton.addActionListener(e -> {
             drawingPanel.setCurrentColor(Color.WHITE); // Set pen color to white (eraser)
-            System.out.println("Eraser tool selected.");
+            log.debug("Eraser tool selected.");
         });
 
         whiteboardPanel.add(toolsPanel, BorderLayout.WEST);
         whiteboardPanel.add(drawingContainer, BorderLayout.CENTER);
     }
 
+    /**
+     * Moves the session to another board over the open connection.
+     *
+     * @param target The board to open.
+     */
+    private void switchBoard(String target) {
+        if (target.isEmpty() || target.equals(boardId) || switchingBoard || isDrawing || client == null) {
+            return;
+        }
+        if (!client.switchBoard(target)) {
+            boardSelector.setSelectedItem(boardId);
+            JOptionPane.showMessageDialog(this,
+                    "This server cannot switch boards over the open connection.",
+                    "Switch Board",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        switchingBoard = true;
+        setTitle(baseTitle + " (opening " + target + "...)");
+    }
+
+    /**
+     * Shows another board once the client switched the session to it. Call on the EDT.
+     *
+     * @param board    The new board.
+     * @param contents The board as kept since it was last shown, or null if the server sends it in full.
+     * @param left     The server state the board being left matches, recorded in its cache; null if unknown.
+     */
+    public void boardSwitched(String board, BoardSnapshot contents, ResumePoint left) {
+        closeBoardCache(left);
+        boardId = board;
+        if (contents != null && (contents.getWidth() != boardModel.getWidth() || contents.getHeight() != boardModel.getHeight())) {
+            resizeBoard(contents.getWidth(), contents.getHeight());
+        }
+        openBoardCache(board, true);
+        if (contents != null) {
+            boardModel.load(contents);
+        }
+        switchingBoard = false;
+        setTitle(baseTitle);
+        if (((DefaultComboBoxModel<String>) boardSelector.getModel()).getIndexOf(board) < 0) {
+            boardSelector.addItem(board);
+        }
+        boardSelector.setSelectedItem(board);
+        log.info("Now on board " + board + ".");
+    }
+
     /**
      * Sends a LEAVE message to the server when the user disconnects.
      */
@@ -395,121 +527,269 @@ public class MainFrame extends JFrame {
             leaveMessage.addProperty("type", "LEAVE");
             leaveMessage.addProperty("username", username);
             client.sendMessage(gson.toJson(leaveMessage));
-            System.out.println("Sent LEAVE message to server.");
+            log.info("Sent LEAVE message to server.");
         }
     }
 
     /**
-     * Updates the entire board based on the received matrix from the server.
+     * Builds the pyramid and canvas pixels of a whole new board for the current view, in parallel on the
+     * calling thread. Call off the EDT, then hand the result to {@link #handleInitialBoard} on the EDT.
      *
-     * @param matrix The 2D array representing the board state.
+     * @param board The board state.
+     * @return The prepared board.
      */
-    public void updateBoard(int[][] matrix) {
-        SwingUtilities.invokeLater(() -> {
-            drawingPanel.clearCanvas();
+    public PreparedBoard prepareBoard(BoardSnapshot board) {
+        return PreparedBoard.prepare(board, drawingPanel.publishedView);
+    }
 
-            System.out.println("Updating board with matrix of size: " + matrix.length + "x" + matrix[0].length);
+    private void installBoard(PreparedBoard prepared) {
+        BoardSnapshot board = prepared.getBoard();
+        log.info("Updating board with matrix of size: " + board.getHeight() + "x" + board.getWidth());
+        if (boardModel.getWidth() != board.getWidth() || boardModel.getHeight() != board.getHeight()) {
+            resizeBoard(board.getWidth(), board.getHeight());
+        }
+        drawingPanel.adopt(prepared);
+    }
 
-            for (int y = 0; y < matrix.length; y++) { // Iterate over rows (y)
-                for (int x = 0; x < matrix[y].length; x++) { // Iterate over columns (x)
-                    if (matrix[y][x] == 1) { // Pen (black)
-                        drawingPanel.plotPoint(x, y, Color.BLACK); // Plot single pixel
-                    }
-                    // If matrix[y][x] == 0, it's white; no need to draw since the background is white
-                }
-            }
-        });
+    /**
+     * Handles the tile index of a tiled board: adopts its size and requests the visible inked tiles.
+     *
+     * @param width  The board width announced by the server.
+     * @param height The board height.
+     */
+    public void handleBoardIndex(int width, int height) {
+        if (boardModel.getWidth() != width || boardModel.getHeight() != height) {
+            log.warn("Server board is " + width + "x" + height + ", expected " + boardModel.getWidth() + "x" + boardModel.getHeight() + ".");
+            resizeBoard(width, height);
+        } else {
+            // After a reconnect the local tiles may be stale; they are fetched again from the new index
+            boardModel.clear();
+        }
+        if (client != null) {
+            client.syncRegion(getVisibleBoardRegion());
+        }
     }
 
     /**
-     * Handles the confirmation message from the server containing the initial board data.
+     * Shows in the title bar whether the connection to the server is up. Can be called from any thread.
      *
-     * @param matrix The 2D array representing the initial board state.
+     * @param connected false while the client is reconnecting.
      */
-    public void handleInitialBoard(int[][] matrix) {
-        // Update the board with the initial matrix
-        updateBoard(matrix);
-        System.out.println("Initial board data loaded.");
+    public void setConnected(boolean connected) {
+        SwingUtilities.invokeLater(() -> setTitle(connected ? baseTitle : baseTitle + " (reconnecting...)"));
     }
 
     /**
-     * Applies a list of points to the canvas.
+     * Replaces one tile of the board with the contents sent by the server.
      *
-     * @param points List of points to apply.
+     * @param tile The decoded TILE message.
      */
-    public void applyPoints(List<PointData> points) {
-        SwingUtilities.invokeLater(() -> {
-            for (PointData point : points) {
-                Color color = point.pen == 1 ? Color.BLACK : Color.WHITE;
-                drawingPanel.plotPoint(point.x, point.y, color); // Plot single pixel
-            }
-            System.out.println("Applied " + points.size() + " points from server.");
-        });
+    public void applyTile(TileCodec.Tile tile) {
+        SwingUtilities.invokeLater(() -> boardModel.loadTile(tile.getTileX(), tile.getTileY(), tile.getBoard()));
     }
 
     /**
-     * Represents a point with x, y coordinates and pen status.
+     * Returns the part of the board shown on the canvas, in board coordinates. Call on the EDT.
      */
-    public static class PointData {
-        int x; // Column (width)
-        int y; // Row (height)
-        int pen;
+    public Rectangle getVisibleBoardRegion() {
+        return drawingPanel.viewport.getVisibleBoardRegion();
+    }
 
-        public PointData(int x, int y, int pen) {
-            this.x = x;
-            this.y = y;
-            this.pen = pen;
+    /**
+     * Clears the board and gives it a new size, along with everything sized to it. Call on the EDT.
+     *
+     * @param width  The new board width.
+     * @param height The new board height.
+     */
+    private void resizeBoard(int width, int height) {
+        currentPoints = new PixelSet(width, height);
+        // The view goes first so the reset below redraws through the new pyramid
+        drawingPanel.boardResized(width, height);
+        boardModel.reset(width, height);
+        if (boardCache != null) {
+            // The cached board has the old size; start a new one
+            closeBoardCache(null);
+            openBoardCache(boardId, false);
         }
+    }
 
-        // Override equals and hashCode to ensure uniqueness in HashSet
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (!(o instanceof PointData)) return false;
-            PointData point = (PointData) o;
-            return x == point.x && y == point.y && pen == point.pen;
+    /**
+     * Opens the local cache of a board at the model's current size and keeps it updated from the model.
+     * Only changes are written to the file, so a restored board is first brought in line with the model,
+     * one way or the other. Does nothing for the mock server, whose boards are not numbered.
+     *
+     * @param adopt true to load a restored board into the model, false to overwrite it with the model.
+     */
+    private void openBoardCache(String boardId, boolean adopt) {
+        if (!Config.USE_REAL_CLIENT || boardId == null) {
+            return;
+        }
+        try {
+            boardCache = BoardCache.open(Paths.get(Config.BOARD_CACHE_DIR), boardId,
+                    boardModel.getWidth(), boardModel.getHeight(), Config.BOARD_CACHE_MAX_BYTES);
+            if (boardCache != null) {
+                if (boardCache.isRestored() && adopt) {
+                    boardModel.load(boardCache.read());
+                } else if (boardCache.isRestored() || boardModel.getTileCount() > 0) {
+                    // A new file starts out blank
+                    boardCache.store(boardModel);
+                }
+                boardModel.addListener(boardCache);
+            }
+        } catch (IOException e) {
+            log.warn("Board cache unavailable: " + e.getMessage());
+            boardCache = null;
         }
+    }
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(x, y, pen);
+    /**
+     * Closes the board cache, recording the server state it matches so the next session can resume from it.
+     *
+     * @param point The server state the board matches, or null if unknown.
+     */
+    private void closeBoardCache(ResumePoint point) {
+        if (boardCache == null) {
+            return;
+        }
+        boardModel.removeListener(boardCache);
+        try {
+            boardCache.close(point);
+        } catch (IOException e) {
+            log.warn("Failed to close the board cache: " + e.getMessage());
+        }
+        boardCache = null;
+    }
+
+    /**
+     * Handles the confirmation message from the server containing the initial board data. Call on the EDT.
+     *
+     * @param board The board state, prepared off the EDT by {@link #prepareBoard}.
+     */
+    public void handleInitialBoard(PreparedBoard board) {
+        installBoard(board);
+        log.info("Initial board data loaded.");
+    }
+
+    /**
+     * Applies a batch of points to the board model, right away when called on the EDT.
+     *
+     * @param points The points to apply.
+     */
+    public void applyPoints(PointBuffer points) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            ClientMetrics.invokeLater(() -> applyPoints(points));
+            return;
         }
+        boardModel.apply(points);
+        log.debug(() -> "Applied " + points.size() + " points from server.");
+    }
+
+    /**
+     * Returns the board model. Mutate it on the EDT only; snapshots can be taken there and used anywhere.
+     */
+    public BoardModel getBoardModel() {
+        return boardModel;
+    }
+
+    /**
+     * Registers a task to run on the EDT at the start of every render frame.
+     *
+     * @param task The task to run.
+     */
+    public void addFrameTask(Runnable task) {
+        drawingPanel.renderScheduler.addFrameTask(task);
+    }
+
+    public void removeFrameTask(Runnable task) {
+        drawingPanel.renderScheduler.removeFrameTask(task);
+    }
+
+    /**
+     * Runs a task on the EDT once the next render frame has been painted. Call on the EDT.
+     *
+     * @param task The task to run.
+     */
+    public void runAfterNextFrame(Runnable task) {
+        drawingPanel.renderScheduler.runAfterNextFrame(task);
+    }
+
+    /**
+     * Returns paint timing statistics for the whiteboard canvas.
+     */
+    public FrameStats getFrameStats() {
+        return drawingPanel.renderScheduler.getStats();
     }
 
     /**
-     * Custom JPanel for drawing, backed by a BufferedImage for persistent rendering.
+     * Custom JPanel for drawing: a view of the board model through a pannable, zoomable viewport.
+     * <p>
+     * The canvas is only as large as the panel. Zoomed out it is drawn from the mipmap pyramid, so painting
+     * and redrawing cost depends on the window size, not the board size. Drag with the right or middle button
+     * to pan, use the mouse wheel to zoom, and click the minimap to jump.
      */
-    private class DrawingPanel extends JPanel {
-        private final BufferedImage canvasImage;
-        private Graphics2D g2d;
+    private class DrawingPanel extends JPanel implements BoardListener {
+        private transient CanvasRaster canvas;
+        private final transient RenderScheduler renderScheduler;
+        private final transient Viewport viewport;
+        private transient MipmapPyramid mipmap;
+        private transient CanvasRaster overview;
+        private boolean overviewStale = true;
+        // While a prepared board is loaded, whose pyramid and canvas already show it
+        private boolean adopting;
+        // A copy of the viewport after every change, for preparing boards on other threads
+        private transient volatile Viewport publishedView;
+        private Point panFrom;
         private Color currentColor = Color.BLACK;
 
         public DrawingPanel(int width, int height) {
-            // Initialize BufferedImage with exact dimensions
-            this.canvasImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-            this.g2d = canvasImage.createGraphics();
-            this.g2d.setColor(Color.WHITE);
-            this.g2d.fillRect(0, 0, width, height);
-            this.g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            // Initialize the canvas (starts out white) with exact dimensions
+            this.canvas = new CanvasRaster(width, height);
+            this.viewport = new Viewport(boardModel.getWidth(), boardModel.getHeight(), width, height);
+            this.mipmap = new MipmapPyramid(boardModel.getWidth(), boardModel.getHeight());
+            this.publishedView = viewport.copy();
+
+            // Repaints are paced by the scheduler instead of issued per point
+            this.renderScheduler = new RenderScheduler(this, Config.RENDER_FPS);
+            this.renderScheduler.start();
+            // A stroke held still between drags is flushed too once its time budget ran out
+            this.renderScheduler.addFrameTask(MainFrame.this::flushStrokeIfDue);
+
+            // The canvas only ever shows what the model holds
+            boardModel.addListener(this);
 
             // Add mouse listeners to handle drawing
             this.addMouseListener(new MouseAdapter() {
                 @Override
                 public void mousePressed(MouseEvent e) {
+                    if (!SwingUtilities.isLeftMouseButton(e)) {
+                        panFrom = e.getPoint();
+                        return;
+                    }
+                    if (getMinimapBounds().contains(e.getPoint())) {
+                        centerOnMinimap(e.getPoint());
+                        return;
+                    }
+                    if (switchingBoard) {
+                        return;
+                    }
                     isDrawing = true;
                     currentPoints.clear();
-                    int y = e.getY();
-                    int x = e.getX();
-                    System.out.println("Mouse Pressed at (" + x + ", " + y + ")");
+                    currentStroke = new Stroke(penRadius, currentColor.equals(Color.BLACK) ? 1 : 0);
+                    strokeHeadSent = false;
+                    lastFlushNanos = System.nanoTime();
+                    int y = viewport.toBoardY(e.getY());
+                    int x = viewport.toBoardX(e.getX());
+                    log.debug(() -> "Mouse Pressed at (" + x + ", " + y + ")");
                     addPoint(y, x, currentColor);
                 }
 
                 @Override
                 public void mouseReleased(MouseEvent e) {
-                    if (isDrawing) {
-                        int y = e.getY();
-                        int x = e.getX();
-                        System.out.println("Mouse Released at (" + x + ", " + y + ")");
+                    panFrom = null;
+                    if (isDrawing && SwingUtilities.isLeftMouseButton(e)) {
+                        int y = viewport.toBoardY(e.getY());
+                        int x = viewport.toBoardX(e.getX());
+                        log.debug(() -> "Mouse Released at (" + x + ", " + y + ")");
                         addPoint(y, x, currentColor);
                         sendDrawMessage();
                         isDrawing = false;
@@ -520,11 +800,37 @@ public class MainFrame extends JFrame {
             this.addMouseMotionListener(new MouseMotionAdapter() {
                 @Override
                 public void mouseDragged(MouseEvent e) {
-                    if (isDrawing) {
-                        int y = e.getY();
-                        int x = e.getX();
-                        System.out.println("Mouse Dragged to (" + x + ", " + y + ")");
+                    if (panFrom != null) {
+                        viewport.pan(panFrom.x - e.getX(), panFrom.y - e.getY());
+                        panFrom = e.getPoint();
+                        viewChanged();
+                    } else if (isDrawing) {
+                        int y = viewport.toBoardY(e.getY());
+                        int x = viewport.toBoardX(e.getX());
+                        log.debug(() -> "Mouse Dragged to (" + x + ", " + y + ")");
                         addPoint(y, x, currentColor);
+                        // Stream the stroke while it is drawn instead of waiting for the pen to lift
+                        if (isFlushDue()) {
+                            sendDrawMessage();
+                        }
+                    }
+                }
+            });
+
+            this.addMouseWheelListener(e -> {
+                double factor = Math.pow(Viewport.ZOOM_STEP, -e.getPreciseWheelRotation());
+                viewport.zoomAt(factor, e.getX(), e.getY());
+                viewChanged();
+            });
+
+            this.addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    if (getWidth() > 0 && getHeight() > 0
+                            && (getWidth() != canvas.getWidth() || getHeight() != canvas.getHeight())) {
+                        canvas = new CanvasRaster(getWidth(), getHeight());
+                        viewport.setViewSize(getWidth(), getHeight());
+                        viewChanged();
                     }
                 }
             });
@@ -537,150 +843,267 @@ public class MainFrame extends JFrame {
          */
         public void setCurrentColor(Color color) {
             this.currentColor = color;
-            System.out.println("Current drawing color set to: " + (color.equals(Color.BLACK) ? "Black" : "White"));
+            log.debug(() -> "Current drawing color set to: " + (color.equals(Color.BLACK) ? "Black" : "White"));
         }
 
         /**
-         * Draws a point on the canvas with pen size.
-         * Used for local drawing.
-         *
-         * @param row   The row (y-coordinate).
-         * @param col   The column (x-coordinate).
-         * @param color The color to draw.
+         * Starts over with a board of a new size, viewed from its top-left corner at 1:1.
          */
-        public void drawLocalPoint(int row, int col, Color color) {
-            // Clamp coordinates to board boundaries
-            row = Math.max(0, Math.min(row, Config.BOARD_HEIGHT - 1));
-            col = Math.max(0, Math.min(col, Config.BOARD_WIDTH - 1));
+        void boardResized(int width, int height) {
+            mipmap = new MipmapPyramid(width, height);
+            overview = null;
+            viewport.setBoardSize(width, height);
+            publishedView = viewport.copy();
+        }
 
-            g2d.setColor(color);
-            g2d.fillOval(col - penRadius, row - penRadius, penRadius * 2, penRadius * 2);
-            repaint();
+        /**
+         * Loads a prepared board into the model and takes over its pyramid, and its canvas when that was
+         * rendered for the current view, instead of recomputing them from the change. Runs on the EDT; the
+         * model must already have the board's size.
+         */
+        void adopt(PreparedBoard prepared) {
+            adopting = true;
+            try {
+                boardModel.load(prepared.getBoard());
+            } finally {
+                adopting = false;
+            }
+            mipmap = prepared.getMipmap();
+            overviewStale = true;
+            CanvasRaster rendered = prepared.getCanvas(viewport);
+            if (rendered != null && rendered.getWidth() == canvas.getWidth() && rendered.getHeight() == canvas.getHeight()) {
+                canvas = rendered;
+            } else {
+                // The view changed while the board was prepared; the pyramid still saves most of the work
+                canvas.render(boardModel, mipmap, viewport, new Rectangle(0, 0, canvas.getWidth(), canvas.getHeight()));
+            }
+            renderScheduler.markAllDirty();
+        }
 
-            // Debug statement
-            System.out.println("Drew local point at (" + col + ", " + row + ") with color " + (color.equals(Color.BLACK) ? "Black" : "White"));
+        /**
+         * Updates the pyramid for the changed region, then redraws whatever of it is in view.
+         */
+        @Override
+        public void boardChanged(BoardModel model, Rectangle region) {
+            if (adopting) {
+                return;
+            }
+            mipmap.update(model, region);
+            overviewStale = true;
+            Rectangle view = viewport.toView(region);
+            if (!view.isEmpty()) {
+                canvas.render(model, mipmap, viewport, view);
+                renderScheduler.markDirty(view);
+            }
+            if (isMinimapVisible()) {
+                renderScheduler.markDirty(getMinimapBounds());
+            }
         }
 
         /**
-         * Plots a single pixel on the canvas.
-         * Used for remote drawing.
-         *
-         * @param x     The column (x-coordinate).
-         * @param y     The row (y-coordinate).
-         * @param color The color to draw.
+         * Redraws the whole view after a pan, zoom or resize, and fetches any tiles that came into view.
          */
-        public void plotPoint(int x, int y, Color color) {
-            // Clamp coordinates to board boundaries
-            x = Math.max(0, Math.min(x, Config.BOARD_WIDTH - 1));
-            y = Math.max(0, Math.min(y, Config.BOARD_HEIGHT - 1));
+        private void viewChanged() {
+            publishedView = viewport.copy();
+            canvas.render(boardModel, mipmap, viewport, new Rectangle(0, 0, canvas.getWidth(), canvas.getHeight()));
+            renderScheduler.markAllDirty();
+            if (client != null) {
+                client.syncRegion(viewport.getVisibleBoardRegion());
+            }
+        }
 
-            g2d.setColor(color);
-            g2d.fillRect(x, y, 1, 1); // Draw single pixel
-            repaint();
+        private boolean isMinimapVisible() {
+            Rectangle visible = viewport.getVisibleBoardRegion();
+            return visible.width < viewport.getBoardWidth() || visible.height < viewport.getBoardHeight();
+        }
 
-            // Debug statement
-            System.out.println("Plotted remote point at (" + x + ", " + y + ") with color " + (color.equals(Color.BLACK) ? "Black" : "White"));
+        /**
+         * Returns where the minimap goes: the top-right corner, scaled to fit {@link Config#MINIMAP_SIZE}.
+         */
+        private Rectangle getMinimapBounds() {
+            if (!isMinimapVisible()) {
+                return new Rectangle();
+            }
+            double fit = (double) Config.MINIMAP_SIZE / Math.max(viewport.getBoardWidth(), viewport.getBoardHeight());
+            int width = Math.max(1, (int) Math.round(viewport.getBoardWidth() * fit));
+            int height = Math.max(1, (int) Math.round(viewport.getBoardHeight() * fit));
+            return new Rectangle(getWidth() - width - 8, 8, width, height);
+        }
+
+        private void centerOnMinimap(Point point) {
+            Rectangle bounds = getMinimapBounds();
+            Rectangle visible = viewport.getVisibleBoardRegion();
+            int boardX = (int) ((long) (point.x - bounds.x) * viewport.getBoardWidth() / bounds.width);
+            int boardY = (int) ((long) (point.y - bounds.y) * viewport.getBoardHeight() / bounds.height);
+            viewport.pan((int) ((boardX - visible.width / 2 - viewport.getOriginX()) * viewport.getScale()),
+                    (int) ((boardY - visible.height / 2 - viewport.getOriginY()) * viewport.getScale()));
+            viewChanged();
         }
 
         /**
-         * Clears the canvas by filling it with white color.
+         * Draws the minimap from the top pyramid level, with the visible region outlined.
          */
-        public void clearCanvas() {
-            g2d.setColor(Color.WHITE);
-            g2d.fillRect(0, 0, canvasImage.getWidth(), canvasImage.getHeight());
-            repaint();
-            System.out.println("Canvas cleared.");
+        private void paintMinimap(Graphics g) {
+            Rectangle bounds = getMinimapBounds();
+            if (bounds.isEmpty()) {
+                return;
+            }
+            int top = mipmap.getLevelCount();
+            if (overview == null) {
+                overview = new CanvasRaster(mipmap.levelWidth(top), mipmap.levelHeight(top));
+                overviewStale = true;
+            }
+            if (overviewStale) {
+                mipmap.renderOverview(overview);
+                overviewStale = false;
+            }
+            g.drawImage(overview.getImage(), bounds.x, bounds.y, bounds.width, bounds.height, null);
+            g.setColor(Color.GRAY);
+            g.drawRect(bounds.x - 1, bounds.y - 1, bounds.width + 1, bounds.height + 1);
+
+            Rectangle visible = viewport.getVisibleBoardRegion();
+            double fit = (double) bounds.width / viewport.getBoardWidth();
+            g.setColor(Color.RED);
+            g.drawRect(bounds.x + (int) (visible.x * fit), bounds.y + (int) (visible.y * fit),
+                    Math.max(1, (int) (visible.width * fit)), Math.max(1, (int) (visible.height * fit)));
         }
 
         @Override
         protected void paintComponent(Graphics g) {
+            long start = System.nanoTime();
             super.paintComponent(g);
             // Draw the BufferedImage onto the panel
-            g.drawImage(canvasImage, 0, 0, null);
+            g.drawImage(canvas.getImage(), 0, 0, null);
+            paintMinimap(g);
+            renderScheduler.recordPaint(System.nanoTime() - start);
         }
     }
 
     /**
-     * Adds a point to the currentPoints set and draws it on the canvas with pen size.
+     * Extends the stroke in progress to a point: adds the pixels of the segment from the previous center
+     * to the currentPoints set and applies them to the board model.
      *
      * @param row   The row (y-coordinate).
      * @param col   The column (x-coordinate).
      * @param color The color to draw.
      */
     private void addPoint(int row, int col, Color color) {
-        int pen = color.equals(Color.BLACK) ? 1 : 0;
-
-        // Removed step size to collect all points within penRadius
-        // Iterate with step size of 1 for full point density
-        for (int dx = -penRadius; dx <= penRadius; dx++) {
-            for (int dy = -penRadius; dy <= penRadius; dy++) {
-                if (dx * dx + dy * dy <= penRadius * penRadius) {
-                    int newRow = row + dy;
-                    int newCol = col + dx;
-
-                    // Clamp to board boundaries
-                    newRow = Math.max(0, Math.min(newRow, Config.BOARD_HEIGHT - 1));
-                    newCol = Math.max(0, Math.min(newCol, Config.BOARD_WIDTH - 1));
+        // Join the point to the previous center the way the server and every peer rasterize the stroke,
+        // clamped to the board; duplicates are ignored by the set
+        int before = currentPoints.size();
+        int last = currentStroke.size() - 1;
+        if (last < 0) {
+            StrokeRasterizer.addSegment(col, row, col, row, currentStroke.getRadius(), currentPoints);
+        } else {
+            StrokeRasterizer.addSegment(currentStroke.getX(last), currentStroke.getY(last), col, row,
+                    currentStroke.getRadius(), currentPoints);
+        }
+        currentStroke.add(col, row);
+
+        // Draw the newly covered pixels locally: exactly the pixels the server and other clients will see
+        localPoints.clear();
+        currentPoints.copyTo(before, currentPoints.size(), color.equals(Color.BLACK) ? 1 : 0, localPoints);
+        boardModel.apply(localPoints);
+        if (log.isDebugEnabled()) {
+            log.debug("Drew local point at (" + col + ", " + row + ") with color " + (color.equals(Color.BLACK) ? "Black" : "White"));
+        }
+    }
 
-                    // Add each affected point to the HashSet (duplicates automatically ignored)
-                    currentPoints.add(new PointData(newCol, newRow, pen));
+    /**
+     * Checks whether the stroke in progress has exceeded its time or size budget since the last flush.
+     * The time budget is the client's current flush interval, which follows the round-trip time.
+     */
+    private boolean isFlushDue() {
+        return System.nanoTime() - lastFlushNanos >= client.getBatchSizer().getFlushIntervalMillis() * 1_000_000L
+                || currentPoints.size() >= Config.STROKE_FLUSH_MAX_POINTS;
+    }
 
-                    // Debug statement for each point
-                    System.out.println("Adding point to currentPoints: (" + newCol + ", " + newRow + "), pen=" + pen);
-                }
-            }
+    /**
+     * Flushes the stroke in progress when it is due; runs on the EDT at the start of every frame, so a
+     * stroke is streamed on time even while the mouse does not move.
+     */
+    private void flushStrokeIfDue() {
+        if (isDrawing && client != null && isFlushDue()) {
+            sendDrawMessage();
         }
-
-        // Draw all affected points locally with pen size
-        drawingPanel.drawLocalPoint(row, col, color);
     }
 
     /**
-     * Sends the DRAW message with the list of points.
-     * This method batches points into smaller messages to prevent overwhelming the WebSocket connection.
+     * Sends what was captured of the stroke since the last flush: as STROKE messages carrying only
+     * the pen centers when the server supports them, otherwise as DRAW messages with every rasterized point.
+     * Called while dragging and once more when the pen lifts, so the capture buffers stay small.
      */
     private void sendDrawMessage() {
-        if (currentPoints.isEmpty()) return;
+        lastFlushNanos = System.nanoTime();
 
-        List<PointData> pointsToSend = new ArrayList<>(currentPoints);
-        currentPoints.clear();
+        if (client.supportsStrokes()) {
+            currentPoints.clear();
+            // Nothing new if only the center carried over from the previous flush is left
+            if (!currentStroke.isEmpty() && !(strokeHeadSent && currentStroke.size() == 1)) {
+                sendStrokeMessage(currentStroke);
+            }
+            restartStrokeAtLastCenter();
+            return;
+        }
 
-        int totalPoints = pointsToSend.size();
+        restartStrokeAtLastCenter();
+        if (currentPoints.isEmpty()) return;
+
+        int totalPoints = currentPoints.size();
         int sentPoints = 0;
+        int pen = currentStroke.getPen();
 
-        final int MAX_POINTS_PER_MESSAGE = 300;
+        int maxPointsPerMessage = client.getBatchSizer().getBatchPoints();
 
         while (sentPoints < totalPoints) {
-            int end = Math.min(sentPoints + MAX_POINTS_PER_MESSAGE, totalPoints);
-            List<PointData> batch = pointsToSend.subList(sentPoints, end);
-
-            JsonObject drawMessage = new JsonObject();
-            drawMessage.addProperty("type", "DRAW");
-
-            JsonArray pointsArray = new JsonArray();
-            for (PointData point : batch) {
-                JsonObject pointObj = new JsonObject();
-                pointObj.addProperty("x", point.x);
-                pointObj.addProperty("y", point.y);
-                pointObj.addProperty("pen", point.pen);
-                pointsArray.add(pointObj);
-            }
-            drawMessage.add("points", pointsArray);
-
-            System.out.println("DRAW Message to be sent: " + gson.toJson(drawMessage));
-
-            // Async
-            executor.submit(() -> {
-                try {
-                    client.sendMessage(gson.toJson(drawMessage));
-                    System.out.println("Sent DRAW message with " + batch.size() + " points.");
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                    System.err.println("Failed to send DRAW message: " + ex.getMessage());
-                }
-            });
+            int end = Math.min(sentPoints + maxPointsPerMessage, totalPoints);
+            // Stream straight from the capture set into the batch handed to the encoder
+            PointBuffer batch = new PointBuffer(end - sentPoints);
+            currentPoints.copyTo(sentPoints, end, pen, batch);
+
+            // Queued without blocking; the client merges and encodes batches on its sender thread
+            client.sendDraw(batch);
+            log.debug(() -> "Queued DRAW batch with " + batch.size() + " points.");
 
             sentPoints = end;
         }
+        currentPoints.clear();
+    }
+
+    /**
+     * Replaces currentStroke with a new one holding only its last center, so the next segment
+     * continues the line from where this one ended.
+     */
+    private void restartStrokeAtLastCenter() {
+        if (currentStroke.isEmpty()) {
+            return;
+        }
+        int last = currentStroke.size() - 1;
+        Stroke next = new Stroke(currentStroke.getRadius(), currentStroke.getPen());
+        next.add(currentStroke.getX(last), currentStroke.getY(last));
+        currentStroke = next;
+        strokeHeadSent = true;
+    }
+
+    /**
+     * Sends a stroke as STROKE messages of bounded size. Consecutive segments share their boundary
+     * center so receivers rasterize one connected line.
+     *
+     * @param stroke The stroke to send.
+     */
+    private void sendStrokeMessage(Stroke stroke) {
+        // Segments share their end centers, so each must hold at least two to make progress
+        int maxCentersPerMessage = Math.max(2, client.getBatchSizer().getBatchCenters());
+
+        int start = 0;
+        do {
+            int end = Math.min(start + maxCentersPerMessage, stroke.size());
+            Stroke segment = stroke.segment(start, end);
+
+            client.sendStroke(segment);
+            log.debug(() -> "Queued STROKE segment with " + segment.size() + " centers.");
+
+            start = end - 1;
+        } while (start + 1 < stroke.size());
     }
 }
@@ -0,0 +1,133 @@
+package com.example.swinggradleapp.client;
+
+import com.example.swinggradleapp.utils.Config;
+import com.example.swinggradleapp.utils.Logger;
+
+/**
+ * BatchSizer picks the size of outbound DRAW and STROKE messages and how often a stroke in progress is
+ * flushed, from what the connection is observed to do.
+ * <p>
+ * Batches grow additively while the link is the bottleneck, that is while the sender finds the socket
+ * buffer or the queue backed up, so each frame carries more drawing for the same per-message cost. They
+ * shrink multiplicatively when the server answers with an ERROR, and slowly while the link keeps up with a
+ * round-trip time below {@link Config#BATCH_FAST_RTT_MS}, where small frames reach collaborators soonest.
+ * The flush interval follows a quarter of the smoothed round-trip time. Everything stays within the bounds
+ * in {@link Config}.
+ * <p>
+ * Thread-safe: the sender thread reports sends, the decoder thread round trips and errors, and the EDT
+ * reads the limits.
+ */
+public class BatchSizer {
+    private static final Logger log = Logger.getLogger(BatchSizer.class);
+
+    // Additive step per congested send: a sixteenth of the range
+    private static final int POINTS_STEP = Math.max(1, (Config.OUTBOUND_MAX_BATCH_POINTS - Config.OUTBOUND_MIN_BATCH_POINTS) / 16);
+    private static final int CENTERS_STEP = Math.max(1, (Config.OUTBOUND_MAX_BATCH_CENTERS - Config.OUTBOUND_MIN_BATCH_CENTERS) / 16);
+    // The socket counts as backed up above this many unsent bytes
+    private static final long BACKED_UP_BYTES = Config.OUTBOUND_HIGH_WATERMARK_BYTES / 4;
+
+    private final boolean adaptive;
+    private volatile int batchPoints = Config.OUTBOUND_INITIAL_BATCH_POINTS;
+    private volatile int batchCenters = Config.OUTBOUND_INITIAL_BATCH_CENTERS;
+    private volatile long flushIntervalMillis = Config.STROKE_FLUSH_INTERVAL_MS;
+    // Exponentially weighted round-trip time in microseconds, or -1 before the first sample
+    private double smoothedRttMicros = -1;
+    private int errors;
+
+    /**
+     * Creates a sizer that adapts to what it is told.
+     */
+    public BatchSizer() {
+        this(true);
+    }
+
+    /**
+     * @param adaptive false for fixed limits at their initial values, for clients without feedback.
+     */
+    public BatchSizer(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Returns the most points one DRAW message should carry.
+     */
+    public int getBatchPoints() {
+        return batchPoints;
+    }
+
+    /**
+     * Returns the most centers one STROKE message should carry.
+     */
+    public int getBatchCenters() {
+        return batchCenters;
+    }
+
+    /**
+     * Returns how long a stroke in progress may collect input before it is flushed.
+     */
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    /**
+     * Returns the smoothed round-trip time in microseconds, or -1 while unknown.
+     */
+    public synchronized long getSmoothedRttMicros() {
+        return (long) smoothedRttMicros;
+    }
+
+    /**
+     * Records a message handed to the socket.
+     *
+     * @param bufferedBytes The bytes the socket held unsent before this message.
+     * @param queued        The entries still waiting in the outbound queue after it.
+     */
+    public synchronized void onSent(long bufferedBytes, int queued) {
+        if (!adaptive) {
+            return;
+        }
+        if (bufferedBytes > BACKED_UP_BYTES || queued > 0) {
+            setBatch(batchPoints + POINTS_STEP, batchCenters + CENTERS_STEP);
+        } else if (smoothedRttMicros >= 0 && smoothedRttMicros < Config.BATCH_FAST_RTT_MS * 1000L) {
+            setBatch(batchPoints - (batchPoints >> 3), batchCenters - (batchCenters >> 3));
+        }
+    }
+
+    /**
+     * Records the round-trip time of a traced message.
+     *
+     * @param micros From sending the message to receiving its echo.
+     */
+    public synchronized void onRoundTrip(long micros) {
+        if (!adaptive) {
+            return;
+        }
+        smoothedRttMicros = smoothedRttMicros < 0 ? micros : smoothedRttMicros + (micros - smoothedRttMicros) / 8;
+        long interval = (long) (smoothedRttMicros / 4000);
+        flushIntervalMillis = Math.max(Config.STROKE_FLUSH_INTERVAL_MS, Math.min(Config.STROKE_FLUSH_MAX_INTERVAL_MS, interval));
+    }
+
+    /**
+     * Records an ERROR from the server; the batches are halved.
+     */
+    public synchronized void onError() {
+        if (!adaptive) {
+            return;
+        }
+        errors++;
+        setBatch(batchPoints >> 1, batchCenters >> 1);
+        log.info("Server error " + errors + "; outbound batches reduced to " + batchPoints + " points, "
+                + batchCenters + " centers.");
+    }
+
+    private void setBatch(int points, int centers) {
+        batchPoints = Math.max(Config.OUTBOUND_MIN_BATCH_POINTS, Math.min(Config.OUTBOUND_MAX_BATCH_POINTS, points));
+        batchCenters = Math.max(Config.OUTBOUND_MIN_BATCH_CENTERS, Math.min(Config.OUTBOUND_MAX_BATCH_CENTERS, centers));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "batch " + batchPoints + " points / " + batchCenters + " centers, flush every " + flushIntervalMillis
+                + " ms, smoothed RTT " + (smoothedRttMicros < 0 ? "unknown" : (long) smoothedRttMicros + " us");
+    }
+}
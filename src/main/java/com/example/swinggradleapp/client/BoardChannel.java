@@ -0,0 +1,107 @@
+package com.example.swinggradleapp.client;
+
+import com.example.swinggradleapp.datatransfer.ChannelCodec;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.ResumePoint;
+import com.example.swinggradleapp.datatransfer.SequenceCodec;
+import com.example.swinggradleapp.model.BoardModel;
+import com.example.swinggradleapp.model.BoardSnapshot;
+
+/**
+ * BoardChannel is the client's side of one board opened over a multiplexed connection, see {@link ChannelCodec}.
+ * <p>
+ * While the board is in the background its contents are kept here, updated from the coalesced updates the
+ * server sends, together with the resume point they correspond to; focusing the board again then only
+ * needs the updates since. The channel number and the size are used on the decoder thread; everything else
+ * is used on the EDT.
+ */
+final class BoardChannel {
+    final String boardId;
+    volatile int channel = ChannelCodec.NONE;
+    // Size of the board when it was last in the foreground, as known on the decoder thread; 0 if never
+    int width;
+    int height;
+    // The board while in the background, or null if no usable copy is kept
+    private BoardModel model;
+    private long epoch = SequenceCodec.NONE;
+    private long seq = SequenceCodec.NONE;
+    // Set once FOCUS was sent with the resume point; later background updates would only be replayed again
+    private boolean frozen;
+    private long lastFocusedNanos;
+
+    BoardChannel(String boardId) {
+        this.boardId = boardId;
+    }
+
+    /**
+     * Keeps a copy of the board as it was when it moved to the background.
+     *
+     * @param board The foreground model; only its snapshot is kept, so this is cheap.
+     * @param point The server state the board matches, or null if it is incomplete; then nothing is kept.
+     */
+    void keep(BoardModel board, ResumePoint point) {
+        lastFocusedNanos = System.nanoTime();
+        frozen = false;
+        if (point == null) {
+            drop();
+            return;
+        }
+        model = new BoardModel(board.getWidth(), board.getHeight());
+        model.load(board.snapshot());
+        epoch = point.getEpoch();
+        seq = point.getSeq();
+    }
+
+    /**
+     * Applies a coalesced background update.
+     *
+     * @param updateSeq The sequence number of the last update merged into it, or {@link SequenceCodec#NONE}.
+     * @param points    The merged points.
+     */
+    void apply(long updateSeq, PointBuffer points) {
+        if (model == null || frozen || (updateSeq != SequenceCodec.NONE && updateSeq <= seq)) {
+            return;
+        }
+        model.apply(points);
+        seq = updateSeq;
+    }
+
+    /**
+     * Returns the server state the kept copy matches, or null if there is none.
+     */
+    ResumePoint getResumePoint() {
+        return model != null && seq != SequenceCodec.NONE ? new ResumePoint(epoch, seq) : null;
+    }
+
+    /**
+     * Stops applying background updates, once the board is about to be resumed from its resume point.
+     */
+    void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * Hands the kept copy over to the foreground and forgets it.
+     *
+     * @return The board, or null if none was kept.
+     */
+    BoardSnapshot take() {
+        BoardSnapshot snapshot = model != null ? model.snapshot() : null;
+        drop();
+        return snapshot;
+    }
+
+    void drop() {
+        model = null;
+        seq = SequenceCodec.NONE;
+        frozen = false;
+    }
+
+    boolean isKept() {
+        return model != null;
+    }
+
+    long getLastFocusedNanos() {
+        return lastFocusedNanos;
+    }
+}
@@ -1,8 +1,61 @@
 package com.example.swinggradleapp.client;
 
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.ResumePoint;
+import com.example.swinggradleapp.datatransfer.Stroke;
+
+import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+
 public interface Client {
-    boolean connect();
+    /**
+     * Starts connecting without blocking the caller.
+     *
+     * @return Completes with true once the connection is open, or false if it could not be opened.
+     */
+    CompletableFuture<Boolean> connect();
+
     void sendMessage(String message);
 
-    void close();
+    void sendDraw(PointBuffer points);
+
+    boolean supportsStrokes();
+
+    void sendStroke(Stroke stroke);
+
+    /**
+     * Makes sure the board contents covering a region are loaded, for servers that send the board
+     * tile by tile. Clients that receive the whole board up front do nothing.
+     *
+     * @param region The region in board coordinates.
+     */
+    void syncRegion(Rectangle region);
+
+    /**
+     * Returns the server state the local board is known to match, or null when there is none, for
+     * example because drawing is still unsent or the server does not number its updates.
+     */
+    ResumePoint getResumePoint();
+
+    /**
+     * Returns the sizer deciding how large outbound DRAW and STROKE messages are and how often a stroke
+     * in progress is flushed.
+     */
+    BatchSizer getBatchSizer();
+
+    /**
+     * Moves the session to another board without reconnecting. The frame is told through
+     * {@code MainFrame.boardSwitched} once the server confirmed the board; nothing may be drawn until then.
+     *
+     * @param boardId The board to switch to.
+     * @return false if switching is not supported, or another switch is still in progress.
+     */
+    boolean switchBoard(String boardId);
+
+    /**
+     * Closes the connection, giving messages still queued a moment to go out first.
+     *
+     * @return Completes once the connection is closed; callers on the EDT must not wait for it.
+     */
+    CompletableFuture<Void> close();
 }
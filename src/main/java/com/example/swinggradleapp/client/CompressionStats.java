@@ -0,0 +1,76 @@
+package com.example.swinggradleapp.client;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CompressionStats counts what permessage-deflate saves on the wire and what it costs in CPU.
+ */
+public class CompressionStats {
+    final LongAdder framesOut = new LongAdder();
+    final LongAdder compressedFramesOut = new LongAdder();
+    final LongAdder rawBytesOut = new LongAdder();
+    final LongAdder wireBytesOut = new LongAdder();
+    final LongAdder deflateNanos = new LongAdder();
+    final LongAdder framesIn = new LongAdder();
+    final LongAdder compressedFramesIn = new LongAdder();
+    final LongAdder wireBytesIn = new LongAdder();
+    final LongAdder rawBytesIn = new LongAdder();
+    final LongAdder inflateNanos = new LongAdder();
+
+    /**
+     * Returns wire bytes divided by raw bytes for outbound frames; below 1.0 means compression helped.
+     */
+    public double getOutboundRatio() {
+        long raw = rawBytesOut.sum();
+        return raw == 0 ? 1.0 : wireBytesOut.sum() / (double) raw;
+    }
+
+    /**
+     * Returns wire bytes divided by raw bytes for inbound frames.
+     */
+    public double getInboundRatio() {
+        long raw = rawBytesIn.sum();
+        return raw == 0 ? 1.0 : wireBytesIn.sum() / (double) raw;
+    }
+
+    /**
+     * Returns the average CPU time spent compressing one compressed outbound frame, in microseconds.
+     */
+    public double getAverageDeflateMicros() {
+        long frames = compressedFramesOut.sum();
+        return frames == 0 ? 0 : deflateNanos.sum() / (double) frames / 1000.0;
+    }
+
+    /**
+     * Returns the average CPU time spent decompressing one compressed inbound frame, in microseconds.
+     */
+    public double getAverageInflateMicros() {
+        long frames = compressedFramesIn.sum();
+        return frames == 0 ? 0 : inflateNanos.sum() / (double) frames / 1000.0;
+    }
+
+    public long getRawBytesOut() {
+        return rawBytesOut.sum();
+    }
+
+    public long getWireBytesOut() {
+        return wireBytesOut.sum();
+    }
+
+    public long getRawBytesIn() {
+        return rawBytesIn.sum();
+    }
+
+    public long getWireBytesIn() {
+        return wireBytesIn.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("out: %d/%d frames compressed, %d -> %d bytes (ratio %.2f, %.1fus/frame); "
+                        + "in: %d/%d frames compressed, %d -> %d bytes (ratio %.2f, %.1fus/frame)",
+                compressedFramesOut.sum(), framesOut.sum(), rawBytesOut.sum(), wireBytesOut.sum(),
+                getOutboundRatio(), getAverageDeflateMicros(),
+                compressedFramesIn.sum(), framesIn.sum(), wireBytesIn.sum(), rawBytesIn.sum(), getInboundRatio(), getAverageInflateMicros());
+    }
+}
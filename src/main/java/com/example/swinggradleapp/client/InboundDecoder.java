@@ -0,0 +1,357 @@
+package com.example.swinggradleapp.client;
+
+import com.example.swinggradleapp.MainFrame;
+import com.example.swinggradleapp.datatransfer.ChannelCodec;
+import com.example.swinggradleapp.datatransfer.DecodedMessage;
+import com.example.swinggradleapp.datatransfer.JsonStreamDecoder;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.PointCodec;
+import com.example.swinggradleapp.datatransfer.PointCodecs;
+import com.example.swinggradleapp.datatransfer.SequenceCodec;
+import com.example.swinggradleapp.datatransfer.StrokeCodec;
+import com.example.swinggradleapp.datatransfer.StrokeRasterizer;
+import com.example.swinggradleapp.datatransfer.TileCodec;
+import com.example.swinggradleapp.datatransfer.WireMessage;
+import com.example.swinggradleapp.metrics.ClientMetrics;
+import com.example.swinggradleapp.utils.Config;
+import com.example.swinggradleapp.utils.Logger;
+import com.google.gson.JsonObject;
+
+import javax.swing.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * InboundDecoder decodes server messages on its own thread so parsing never competes with painting.
+ * <p>
+ * The WebSocket thread hands raw messages to a bounded queue; when it is full the WebSocket thread
+ * blocks, which pushes back on the server through TCP. The decoder thread streams point data into
+ * primitive buffers, rasterizes strokes, and merges the result into an {@link UpdateCoalescer}. The EDT
+ * takes one merged batch per frame through a render frame task, capped so that heavy remote traffic
+ * leaves room for local input. Other messages go to a control handler, called on the decoder thread after
+ * any pending points were handed to the EDT, so ordering is kept.
+ * <p>
+ * The decoder also tracks the last board sequence number received (see {@link SequenceCodec}) and drops
+ * stamped updates it has already seen, which makes replays after a reconnect safe to overlap. Whenever
+ * it runs idle it posts a checkpoint to the EDT; once the points merged before it have been applied, the
+ * checkpoint becomes the {@link #getAppliedSeq() applied sequence number} the local board reflects.
+ * <p>
+ * Coalesced updates of background boards, tagged by {@link ChannelCodec}, bypass all of this: they are
+ * decoded into their own buffer and passed to a background handler along with their sequence number.
+ */
+public class InboundDecoder {
+    private static final Logger log = Logger.getLogger(InboundDecoder.class);
+
+    /**
+     * Receives the updates of background boards.
+     */
+    public interface BackgroundHandler {
+        /**
+         * @param channel The board's channel.
+         * @param seq     The sequence number of the last update merged in, or {@link SequenceCodec#NONE}.
+         * @param points  The points; the buffer is not reused.
+         */
+        void accept(int channel, long seq, PointBuffer points);
+    }
+
+    private final MainFrame mainFrame;
+    private final Consumer<JsonObject> controlHandler;
+    private final Consumer<TileCodec.Tile> tileHandler;
+    private final BackgroundHandler backgroundHandler;
+    private final BlockingQueue<WireMessage> queue = new ArrayBlockingQueue<>(Config.INBOUND_QUEUE_CAPACITY);
+    // Both sized to the foreground board; replaced by the decoder thread when it changes size
+    private volatile UpdateCoalescer coalescer;
+    private final JsonStreamDecoder jsonDecoder = new JsonStreamDecoder();
+    private StrokeRasterizer strokeRasterizer;
+    private final PointBuffer scratch = new PointBuffer(4096);
+    // Reused by the frame task; only touched on the EDT
+    private final PointBuffer frameBatch = new PointBuffer(4096);
+    private final Runnable frameTask = this::applyFrameBatch;
+    private final Thread thread;
+    // Written by the decoder thread only
+    private volatile long lastSeq = SequenceCodec.NONE;
+    // Last checkpoint posted to the EDT; decoder thread only
+    private long postedSeq = SequenceCodec.NONE;
+    // Checkpoint reached the EDT, and the one the board is known to include; written on the EDT
+    private long checkpointSeq = SequenceCodec.NONE;
+    private volatile long appliedSeq = SequenceCodec.NONE;
+    // Set while a board switch is on its way to the EDT: frames then leave pending points of the new board alone
+    private volatile boolean held;
+
+    /**
+     * @param mainFrame         The frame receiving merged point batches.
+     * @param controlHandler    Handles every non-point message; called on the decoder thread.
+     * @param tileHandler       Handles TILE messages once pending points were handed over; called on the decoder thread.
+     * @param backgroundHandler Handles updates of background boards; called on the decoder thread.
+     */
+    public InboundDecoder(MainFrame mainFrame, Consumer<JsonObject> controlHandler, Consumer<TileCodec.Tile> tileHandler,
+                          BackgroundHandler backgroundHandler) {
+        this.mainFrame = mainFrame;
+        this.controlHandler = controlHandler;
+        this.tileHandler = tileHandler;
+        this.backgroundHandler = backgroundHandler;
+        // Both are tiled internally, so sizing them to a very large board costs nothing up front
+        int width = mainFrame.getBoardModel().getWidth();
+        int height = mainFrame.getBoardModel().getHeight();
+        this.coalescer = new UpdateCoalescer(width, height);
+        this.strokeRasterizer = new StrokeRasterizer(width, height);
+        this.thread = new Thread(this::run, "inbound-decoder");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        mainFrame.addFrameTask(frameTask);
+        thread.start();
+    }
+
+    public void stop() {
+        mainFrame.removeFrameTask(frameTask);
+        thread.interrupt();
+    }
+
+    /**
+     * Queues a raw message for decoding, blocking while the queue is full.
+     *
+     * @param message The raw message.
+     */
+    public void submit(WireMessage message) {
+        try {
+            queue.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last board update received, or {@link SequenceCodec#NONE}.
+     * Everything up to it has been handed to the board or is pending for the next frames.
+     */
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Returns the sequence number of the last board update known to be applied to the board model, or
+     * {@link SequenceCodec#NONE}. The board may already include later updates too.
+     */
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+
+    /**
+     * Sets the last sequence number received, for a board that was loaded from elsewhere at that number.
+     * Call on the decoder thread, i.e. from the control handler.
+     */
+    void seedSeq(long seq) {
+        lastSeq = seq;
+        postCheckpoint(seq);
+    }
+
+    /**
+     * Starts tracking another board after the foreground board changed. Call on the decoder thread, i.e.
+     * from the control handler, after the new board's contents were posted to the EDT.
+     *
+     * @param seq The sequence number the new board's contents correspond to, or {@link SequenceCodec#NONE}.
+     */
+    void switchSeq(long seq) {
+        lastSeq = seq;
+        // Forces a fresh checkpoint behind the new contents; until it arrives nothing counts as applied
+        postedSeq = SequenceCodec.NONE;
+        SwingUtilities.invokeLater(() -> {
+            checkpointSeq = SequenceCodec.NONE;
+            appliedSeq = SequenceCodec.NONE;
+        });
+    }
+
+    /**
+     * Sizes the merge and rasterize buffers to a board of another size, so its points are not clamped to
+     * the previous one. Call on the decoder thread, from a control message, so nothing is pending.
+     *
+     * @param width  The new board width.
+     * @param height The new board height.
+     */
+    void resize(int width, int height) {
+        coalescer = new UpdateCoalescer(width, height);
+        strokeRasterizer = new StrokeRasterizer(width, height);
+    }
+
+    /**
+     * Keeps frames from applying pending points until {@link #release}, so points of a board switched to
+     * cannot reach the model before the switch does. Call on the decoder thread, before posting the switch.
+     */
+    void hold() {
+        held = true;
+    }
+
+    /**
+     * Lets frames apply pending points again. Call on the EDT, in the task that switched the board.
+     */
+    void release() {
+        held = false;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                WireMessage message = queue.take();
+                long start = System.nanoTime();
+                decode(message);
+                ClientMetrics.recordSince(ClientMetrics.DECODE_MICROS, start);
+                if (queue.isEmpty() && lastSeq != postedSeq) {
+                    postCheckpoint(lastSeq);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to decode server message: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void decode(WireMessage message) {
+        scratch.clear();
+        if (ChannelCodec.isBinaryChannel(message)) {
+            decodeBackground(ChannelCodec.channelOf(message), ChannelCodec.unwrap(message));
+            return;
+        }
+        if (SequenceCodec.isBinarySequenced(message)) {
+            if (!advanceSeq(SequenceCodec.seqOf(message))) {
+                return;
+            }
+            message = SequenceCodec.unwrap(message);
+        }
+        if (message.isBinary()) {
+            if (StrokeCodec.isBinaryStroke(message)) {
+                strokeRasterizer.rasterize(StrokeCodec.decodeBinary(message), scratch);
+            } else if (TileCodec.isBinaryTile(message)) {
+                applyTile(TileCodec.decodeBinary(message));
+                return;
+            } else {
+                decodeWithCodec(message);
+            }
+        } else if (!message.getText().startsWith("{")) {
+            decodeWithCodec(message);
+        } else {
+            DecodedMessage decoded = jsonDecoder.decode(message.getText());
+            if (decoded.getChannel() != ChannelCodec.NONE) {
+                backgroundHandler.accept(decoded.getChannel(), decoded.getSeq(),
+                        decoded.getPoints().copyRange(0, decoded.getPoints().size()));
+                return;
+            }
+            String type = decoded.getType();
+            boolean update = "DRAW".equals(type) || "UPDATE".equals(type) || "STROKE".equals(type);
+            if (update && decoded.getSeq() != SequenceCodec.NONE && !advanceSeq(decoded.getSeq())) {
+                return;
+            }
+            if ("DRAW".equals(type) || "UPDATE".equals(type)) {
+                scratch.addAll(decoded.getPoints(), 0, decoded.getPoints().size());
+            } else if ("STROKE".equals(type)) {
+                strokeRasterizer.rasterize(decoded.toStroke(), scratch);
+            } else if ("TILE".equals(type)) {
+                applyTile(TileCodec.decodeJson(decoded.toJsonObject()));
+                return;
+            } else {
+                // Hand over what was merged so far first, so the control message sees updates in order
+                drainPending();
+                if (decoded.getSeq() != SequenceCodec.NONE) {
+                    // A full CONFIRM: the board it carries is the new baseline
+                    lastSeq = decoded.getSeq();
+                }
+                controlHandler.accept(decoded.toJsonObject());
+                return;
+            }
+        }
+
+        log.debug(() -> "Decoded " + scratch.size() + " points.");
+        ClientMetrics.POINTS_IN.record(scratch.size());
+        coalescer.merge(scratch);
+    }
+
+    /**
+     * Decodes a binary background update, possibly stamped with its sequence number.
+     */
+    private void decodeBackground(int channel, WireMessage message) {
+        long seq = SequenceCodec.NONE;
+        if (SequenceCodec.isBinarySequenced(message)) {
+            seq = SequenceCodec.seqOf(message);
+            message = SequenceCodec.unwrap(message);
+        }
+        PointCodec decoder = PointCodecs.forMessage(message);
+        if (decoder == null) {
+            log.warn("Unknown background message format (" + message.byteLength() + " bytes).");
+            return;
+        }
+        PointBuffer points = new PointBuffer();
+        decoder.decode(message, points);
+        backgroundHandler.accept(channel, seq, points);
+    }
+
+    private void decodeWithCodec(WireMessage message) {
+        PointCodec decoder = PointCodecs.forMessage(message);
+        if (decoder == null) {
+            log.warn("Unknown message format (" + message.byteLength() + " bytes).");
+            return;
+        }
+        decoder.decode(message, scratch);
+    }
+
+    /**
+     * Replaces a whole tile. Pending points are handed over first, since the tile already includes them.
+     */
+    private void applyTile(TileCodec.Tile tile) {
+        drainPending();
+        tileHandler.accept(tile);
+    }
+
+    /**
+     * Records the sequence number of an update.
+     *
+     * @return false if the update was received before and must be skipped.
+     */
+    private boolean advanceSeq(long seq) {
+        if (lastSeq != SequenceCodec.NONE && seq <= lastSeq) {
+            log.debug(() -> "Skipping replayed update " + seq + ".");
+            return false;
+        }
+        lastSeq = seq;
+        return true;
+    }
+
+    /**
+     * Applies one merged batch of pending points; runs on the EDT at the start of every frame.
+     */
+    private void applyFrameBatch() {
+        if (held) {
+            return;
+        }
+        frameBatch.clear();
+        if (coalescer.drainTo(frameBatch, Config.MAX_REMOTE_POINTS_PER_FRAME) > 0) {
+            mainFrame.applyPoints(frameBatch);
+        }
+        if (checkpointSeq != SequenceCodec.NONE && coalescer.pendingCount() == 0) {
+            appliedSeq = checkpointSeq;
+            checkpointSeq = SequenceCodec.NONE;
+        }
+    }
+
+    /**
+     * Posts a checkpoint behind everything already handed to the EDT. Points still in the coalescer when it
+     * arrives are applied by a later frame, which then promotes the checkpoint.
+     */
+    private void postCheckpoint(long seq) {
+        postedSeq = seq;
+        ClientMetrics.invokeLater(() -> checkpointSeq = seq);
+    }
+
+    /**
+     * Moves every pending point into its own batch and posts it to the EDT.
+     * Runs on the decoder thread just before a control message is handled.
+     */
+    private void drainPending() {
+        PointBuffer batch = new PointBuffer(Math.max(1, coalescer.pendingCount()));
+        if (coalescer.drainTo(batch) > 0) {
+            mainFrame.applyPoints(batch);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.swinggradleapp.client;
+
+import com.example.swinggradleapp.datatransfer.BoardAnnouncement;
+import com.example.swinggradleapp.datatransfer.BoardSnapshotCodec;
+import com.example.swinggradleapp.datatransfer.ProtocolFeatures;
+import com.example.swinggradleapp.utils.Config;
+import com.example.swinggradleapp.utils.Logger;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * LoginClient logs in to the whiteboard server over HTTP without blocking the caller.
+ * <p>
+ * Requests go out on one {@link HttpClient}, which prefers HTTP/2 and accepts gzip-compressed responses.
+ * When the server names the board in a {@link BoardAnnouncement} header, the board is known as soon as the
+ * response headers arrive, so the caller can open the WebSocket while the body is still on its way. The
+ * board itself then arrives with the WebSocket's CONFIRM, and the announced body leaves it out, so what
+ * overlaps is the WebSocket handshake with the rest of the login, not the snapshot download. Only the
+ * bundled local server sends the header; with any other server the login completes, snapshot included,
+ * before the WebSocket is opened. The body is decompressed and parsed on the HTTP client's threads.
+ */
+public class LoginClient {
+    private static final Logger log = Logger.getLogger(LoginClient.class);
+
+    /**
+     * A login in progress.
+     */
+    public static final class Login {
+        private final CompletableFuture<BoardAnnouncement> announcement = new CompletableFuture<>();
+        private CompletableFuture<JsonObject> response;
+
+        /**
+         * Completes with the announced board once the response headers arrived, or with null if the server
+         * announced none or the login failed.
+         */
+        public CompletableFuture<BoardAnnouncement> getAnnouncement() {
+            return announcement;
+        }
+
+        /**
+         * Completes with the parsed body once the whole response arrived, or exceptionally: with a
+         * {@link RejectedException} if the server refused the login.
+         */
+        public CompletableFuture<JsonObject> getResponse() {
+            return response;
+        }
+    }
+
+    /**
+     * Thrown when the server answers a login with a status other than 200 or 201.
+     */
+    public static class RejectedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        RejectedException(int status) {
+            super("Login failed with response code: " + status);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(Config.LOGIN_TIMEOUT_MS))
+            .build();
+
+    /**
+     * Sends the login request.
+     *
+     * @param username The name to log in with.
+     * @return The login in progress.
+     */
+    public Login login(String username) {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("username", username);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(Config.LOGIN_URL))
+                .timeout(Duration.ofMillis(Config.LOGIN_TIMEOUT_MS))
+                .header("Content-Type", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .header(BoardSnapshotCodec.HEADER, Config.SNAPSHOT_FORMATS)
+                .header(ProtocolFeatures.HEADER, Config.PROTOCOL_FEATURES)
+                .POST(HttpRequest.BodyPublishers.ofString(payload.toString(), StandardCharsets.UTF_8))
+                .build();
+
+        Login login = new Login();
+        long start = System.nanoTime();
+        login.response = http.sendAsync(request, info -> {
+                    BoardAnnouncement board = info.statusCode() == 200 || info.statusCode() == 201
+                            ? BoardAnnouncement.parse(info.headers().firstValue(BoardAnnouncement.HEADER).orElse(null))
+                            : null;
+                    if (board != null) {
+                        log.info("Login announced board " + board.getBoardId() + " after "
+                                + (System.nanoTime() - start) / 1_000_000 + " ms (" + info.version() + ").");
+                    }
+                    login.announcement.complete(board);
+                    return HttpResponse.BodySubscribers.ofByteArray();
+                })
+                .thenApply(LoginClient::toResponse)
+                .whenComplete((response, e) -> login.announcement.complete(null));
+        return login;
+    }
+
+    private static JsonObject toResponse(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200 && response.statusCode() != 201) {
+            throw new CompletionException(new RejectedException(response.statusCode()));
+        }
+        boolean gzip = response.headers().firstValue("Content-Encoding").map(v -> v.contains("gzip")).orElse(false);
+        try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(response.body()))
+                : new ByteArrayInputStream(response.body());
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return JsonParser.parseReader(reader).getAsJsonObject();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.swinggradleapp.client;
+
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.framing.DataFrame;
+import org.java_websocket.framing.Framedata;
+
+/**
+ * MeteredDeflateExtension is Java-WebSocket's permessage-deflate extension with byte and CPU accounting.
+ * <p>
+ * Frames smaller than the threshold are sent uncompressed, as the base extension does. Every frame is
+ * measured before and after the base class transforms it and the results go to a shared
+ * {@link CompressionStats}; CPU time is only counted for frames that were actually compressed or inflated.
+ */
+public final class MeteredDeflateExtension extends PerMessageDeflateExtension {
+    private final CompressionStats stats;
+
+    public MeteredDeflateExtension(int thresholdBytes, CompressionStats stats) {
+        this.stats = stats;
+        setThreshold(thresholdBytes);
+    }
+
+    @Override
+    public void encodeFrame(Framedata inputFrame) {
+        int rawBytes = inputFrame.getPayloadData().remaining();
+        long start = System.nanoTime();
+        super.encodeFrame(inputFrame);
+        long elapsed = System.nanoTime() - start;
+
+        stats.framesOut.increment();
+        stats.rawBytesOut.add(rawBytes);
+        stats.wireBytesOut.add(inputFrame.getPayloadData().remaining());
+        if (inputFrame.isRSV1()) {
+            stats.compressedFramesOut.increment();
+            stats.deflateNanos.add(elapsed);
+        }
+    }
+
+    @Override
+    public void decodeFrame(Framedata inputFrame) throws InvalidDataException {
+        if (!(inputFrame instanceof DataFrame)) {
+            // Control frames are never compressed
+            super.decodeFrame(inputFrame);
+            return;
+        }
+        // The base class inflates the first frame of a compressed message and every continuation frame
+        boolean inflated = inputFrame.isRSV1() || inputFrame.getOpcode() == Opcode.CONTINUOUS;
+        int wireBytes = inputFrame.getPayloadData().remaining();
+        long start = System.nanoTime();
+        super.decodeFrame(inputFrame);
+        long elapsed = System.nanoTime() - start;
+
+        stats.framesIn.increment();
+        stats.wireBytesIn.add(wireBytes);
+        stats.rawBytesIn.add(inputFrame.getPayloadData().remaining());
+        if (inflated) {
+            stats.compressedFramesIn.increment();
+            stats.inflateNanos.add(elapsed);
+        }
+    }
+
+    @Override
+    public IExtension copyInstance() {
+        // The draft copies its extensions per connection; keep the threshold and the shared stats
+        return new MeteredDeflateExtension(getThreshold(), stats);
+    }
+}
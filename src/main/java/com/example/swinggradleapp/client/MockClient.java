@@ -1,16 +1,22 @@
 package com.example.swinggradleapp.client;
 
 import com.example.swinggradleapp.MainFrame;
+import com.example.swinggradleapp.datatransfer.JsonPointCodec;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.ResumePoint;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.datatransfer.StrokeRasterizer;
+import com.example.swinggradleapp.model.BoardModel;
 import com.example.swinggradleapp.utils.Config;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 import javax.swing.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.Rectangle;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * MockClient simulates server interactions for testing purposes.
@@ -20,6 +26,12 @@ public class MockClient implements Client {
     private final Gson gson = new Gson();
     private Timer mockTimer;
     private final String boardId;
+    // Nothing to learn from without a connection
+    private final BatchSizer batchSizer = new BatchSizer(false);
+    // Rasterizes echoed strokes for the current board size; EDT only
+    private StrokeRasterizer strokeRasterizer;
+    private int rasterWidth;
+    private int rasterHeight;
 
     public MockClient(MainFrame mainFrame, String boardId) {
         this.mainFrame = mainFrame;
@@ -27,10 +39,10 @@ public class MockClient implements Client {
     }
 
     @Override
-    public boolean connect() {
+    public CompletableFuture<Boolean> connect() {
         SwingUtilities.invokeLater(() -> showInfoDialog("Connected to Mock Server with boardId: " + boardId, "Mock Connection"));
         startMockBroadcasts();
-        return true;
+        return CompletableFuture.completedFuture(true);
     }
 
     private void startMockBroadcasts() {
@@ -39,7 +51,7 @@ public class MockClient implements Client {
             @Override
             public void run() {
                 JsonObject updateMessage = createMockUpdateMessage();
-                List<MainFrame.PointData> points = parsePoints(updateMessage.getAsJsonArray("points"));
+                PointBuffer points = parsePoints(updateMessage.getAsJsonArray("points"));
                 mainFrame.applyPoints(points);
             }
         }, 5000, 5000);
@@ -68,15 +80,9 @@ public class MockClient implements Client {
         return pointsArray;
     }
 
-    private List<MainFrame.PointData> parsePoints(JsonArray pointsArray) {
-        List<MainFrame.PointData> points = new ArrayList<>();
-        for (int i = 0; i < pointsArray.size(); i++) {
-            JsonObject pointObj = pointsArray.get(i).getAsJsonObject();
-            int x = pointObj.get("x").getAsInt(); // horizontal
-            int y = pointObj.get("y").getAsInt(); // vertical
-            int pen = pointObj.get("pen").getAsInt();
-            points.add(new MainFrame.PointData(x, y, pen));
-        }
+    private PointBuffer parsePoints(JsonArray pointsArray) {
+        PointBuffer points = new PointBuffer(pointsArray.size());
+        JsonPointCodec.readPoints(pointsArray, points);
         return points;
     }
 
@@ -87,17 +93,65 @@ public class MockClient implements Client {
 
         if ("DRAW".equals(type)) {
             JsonArray pointsArray = jsonMessage.get("points").getAsJsonArray();
-            List<MainFrame.PointData> points = parsePoints(pointsArray);
+            PointBuffer points = parsePoints(pointsArray);
             mainFrame.applyPoints(points);
         }
     }
 
     @Override
-    public void close() {
+    public void sendDraw(PointBuffer points) {
+        // The mock server echoes every DRAW straight back as an update
+        mainFrame.applyPoints(points);
+    }
+
+    @Override
+    public boolean supportsStrokes() {
+        return true;
+    }
+
+    @Override
+    public void sendStroke(Stroke stroke) {
+        // Echoed as the pixels a server would send, like DRAW
+        BoardModel board = mainFrame.getBoardModel();
+        if (strokeRasterizer == null || rasterWidth != board.getWidth() || rasterHeight != board.getHeight()) {
+            rasterWidth = board.getWidth();
+            rasterHeight = board.getHeight();
+            strokeRasterizer = new StrokeRasterizer(rasterWidth, rasterHeight);
+        }
+        PointBuffer points = new PointBuffer(stroke.size() * (stroke.getRadius() * 2 + 1));
+        strokeRasterizer.rasterize(stroke, points);
+        mainFrame.applyPoints(points);
+    }
+
+    @Override
+    public void syncRegion(Rectangle region) {
+        // The mock board is created locally; there is nothing to fetch
+    }
+
+    @Override
+    public BatchSizer getBatchSizer() {
+        return batchSizer;
+    }
+
+    @Override
+    public ResumePoint getResumePoint() {
+        // Mock boards are not numbered
+        return null;
+    }
+
+    @Override
+    public boolean switchBoard(String boardId) {
+        // The mock server has a single board
+        return false;
+    }
+
+    @Override
+    public CompletableFuture<Void> close() {
         if (mockTimer != null) {
             mockTimer.cancel();
         }
         SwingUtilities.invokeLater(() -> showInfoDialog("Disconnected from Mock Server.", "Mock Disconnection"));
+        return CompletableFuture.completedFuture(null);
     }
 
     private void showInfoDialog(String message, String title) {
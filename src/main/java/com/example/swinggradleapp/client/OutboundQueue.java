@@ -0,0 +1,356 @@
+package com.example.swinggradleapp.client;
+
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.datatransfer.StrokeRasterizer;
+import com.example.swinggradleapp.metrics.ClientMetrics;
+import com.example.swinggradleapp.utils.Config;
+import com.example.swinggradleapp.utils.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * OutboundQueue decouples producers of outbound messages from the WebSocket.
+ * <p>
+ * Enqueueing never blocks, so it is safe on the EDT. A sender thread takes entries in order and merges
+ * adjacent DRAW batches, and adjacent contiguous STROKE segments, into larger frames. It only sends
+ * while the socket is open and its buffered amount is below the high watermark. Entries that cannot be
+ * sent are kept across disconnects instead of dropped. How large merged frames may grow is decided by a
+ * {@link BatchSizer}, which the sender tells how backed up the socket and the queue were at each send.
+ * <p>
+ * The queue is bounded by {@link Config#OUTBOUND_QUEUE_MAX_POINTS}. Past that, each run of queued drawing
+ * between text messages is compacted into a per-pixel, last-writer-wins set, so memory stays proportional
+ * to the board rather than to the length of an outage, and the final board state is still delivered.
+ */
+public class OutboundQueue {
+    private static final Logger log = Logger.getLogger(OutboundQueue.class);
+
+    /**
+     * The transport the queue sends through.
+     */
+    public interface Sink {
+        boolean isOpen();
+
+        /**
+         * Returns the bytes queued in the socket and not yet written to the network.
+         */
+        long getBufferedAmount();
+
+        void sendDraw(PointBuffer points);
+
+        void sendStroke(Stroke stroke);
+
+        void sendText(String message);
+    }
+
+    private static final class Entry {
+        final PointBuffer points;
+        final Stroke stroke;
+        final String text;
+
+        Entry(PointBuffer points, Stroke stroke, String text) {
+            this.points = points;
+            this.stroke = stroke;
+            this.text = text;
+        }
+
+        int weight() {
+            return points != null ? points.size() : stroke != null ? stroke.size() : 1;
+        }
+    }
+
+    private final Sink sink;
+    private final BatchSizer sizer;
+    // The board queued drawing is clamped to when compacted; guarded by this
+    private int boardWidth;
+    private int boardHeight;
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    private int pendingWeight;
+    // Compaction threshold; raised after a compaction that could not get below the configured bound
+    private int compactAt = Config.OUTBOUND_QUEUE_MAX_POINTS;
+    private Entry inFlight;
+    private boolean running = true;
+    private final Thread thread;
+
+    /**
+     * @param sink        Where messages go.
+     * @param sizer       Bounds merged frames and learns from each send.
+     * @param boardWidth  Board width, for clamping when queued drawing is compacted.
+     * @param boardHeight Board height.
+     */
+    public OutboundQueue(Sink sink, BatchSizer sizer, int boardWidth, int boardHeight) {
+        this.sink = sink;
+        this.sizer = sizer;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.thread = new Thread(this::run, "outbound-sender");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Clamps drawing compacted from now on to a board of another size, for example after a board switch.
+     *
+     * @param width  The new board width.
+     * @param height The new board height.
+     */
+    public synchronized void resize(int width, int height) {
+        boardWidth = width;
+        boardHeight = height;
+    }
+
+    public void enqueueDraw(PointBuffer points) {
+        enqueue(new Entry(points, null, null));
+    }
+
+    public void enqueueStroke(Stroke stroke) {
+        enqueue(new Entry(null, stroke, null));
+    }
+
+    public void enqueueText(String message) {
+        enqueue(new Entry(null, null, message));
+    }
+
+    /**
+     * Returns the number of entries waiting to be sent.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Wakes the sender, for example after the socket reopened.
+     */
+    public synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    /**
+     * Waits until everything queued has been handed to the socket, then stops the sender thread.
+     *
+     * @param timeoutMillis The longest time to wait for the queue to drain.
+     */
+    public void shutdown(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (this) {
+            while ((!entries.isEmpty() || inFlight != null) && System.currentTimeMillis() < deadline) {
+                try {
+                    wait(Math.max(1, deadline - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (!entries.isEmpty()) {
+                log.warn("Discarding " + entries.size() + " unsent messages on shutdown.");
+            }
+            running = false;
+            notifyAll();
+        }
+    }
+
+    private synchronized void enqueue(Entry entry) {
+        entries.addLast(entry);
+        pendingWeight += entry.weight();
+        ClientMetrics.OUTBOUND_QUEUE_DEPTH.record(entries.size());
+        if (pendingWeight > compactAt) {
+            compact();
+            compactAt = Math.max(Config.OUTBOUND_QUEUE_MAX_POINTS, pendingWeight * 2);
+        }
+        notifyAll();
+    }
+
+    private void run() {
+        while (true) {
+            Entry entry = takeMerged();
+            if (entry == null) {
+                return;
+            }
+            long buffered = awaitWritable();
+            if (buffered < 0) {
+                return;
+            }
+            try {
+                if (entry.points != null) {
+                    sink.sendDraw(entry.points);
+                } else if (entry.stroke != null) {
+                    sink.sendStroke(entry.stroke);
+                } else {
+                    sink.sendText(entry.text);
+                }
+                log.debug(() -> "Sent outbound message of weight " + entry.weight() + ".");
+                int queued;
+                synchronized (this) {
+                    inFlight = null;
+                    queued = entries.size();
+                    notifyAll();
+                }
+                sizer.onSent(buffered, queued);
+            } catch (RuntimeException e) {
+                // Most likely the socket closed between the check and the send; retry once it reopens
+                log.warn("Send failed, keeping message for retry: " + e.getMessage());
+                synchronized (this) {
+                    entries.addFirst(entry);
+                    pendingWeight += entry.weight();
+                    inFlight = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the head entry and merges the compatible entries right behind it into it.
+     *
+     * @return The merged entry, or null once the queue is shut down.
+     */
+    private synchronized Entry takeMerged() {
+        while (running && entries.isEmpty()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+        if (!running) {
+            return null;
+        }
+        Entry head = entries.pollFirst();
+        pendingWeight -= head.weight();
+
+        if (head.points != null) {
+            int maxPoints = sizer.getBatchPoints();
+            PointBuffer merged = null;
+            while (!entries.isEmpty() && entries.peekFirst().points != null
+                    && (merged == null ? head.points.size() : merged.size()) + entries.peekFirst().points.size()
+                    <= maxPoints) {
+                if (merged == null) {
+                    merged = head.points.copyRange(0, head.points.size());
+                }
+                Entry next = entries.pollFirst();
+                pendingWeight -= next.weight();
+                merged.addAll(next.points, 0, next.points.size());
+            }
+            if (merged != null) {
+                head = new Entry(merged, null, null);
+            }
+        } else if (head.stroke != null) {
+            int maxCenters = sizer.getBatchCenters();
+            Stroke merged = head.stroke;
+            while (!entries.isEmpty() && continues(merged, entries.peekFirst().stroke, maxCenters)) {
+                Entry next = entries.pollFirst();
+                pendingWeight -= next.weight();
+                if (merged == head.stroke) {
+                    merged = merged.segment(0, merged.size());
+                }
+                for (int i = 1; i < next.stroke.size(); i++) {
+                    merged.add(next.stroke.getX(i), next.stroke.getY(i));
+                }
+            }
+            if (merged != head.stroke) {
+                head = new Entry(null, merged, null);
+            }
+        }
+        inFlight = head;
+        return head;
+    }
+
+    /**
+     * Checks whether the next segment continues the current one and the merged stroke stays within bounds.
+     */
+    private static boolean continues(Stroke current, Stroke next, int maxCenters) {
+        if (next == null || next.isEmpty()) {
+            return false;
+        }
+        int last = current.size() - 1;
+        return next.getRadius() == current.getRadius()
+                && next.getPen() == current.getPen()
+                && next.getX(0) == current.getX(last)
+                && next.getY(0) == current.getY(last)
+                && current.size() + next.size() - 1 <= maxCenters;
+    }
+
+    /**
+     * Blocks while the socket is closed or its send buffer is above the high watermark.
+     *
+     * @return The bytes the socket holds unsent, or -1 if the queue was shut down while waiting.
+     */
+    private long awaitWritable() {
+        while (true) {
+            synchronized (this) {
+                if (!running) {
+                    return -1;
+                }
+                if (!sink.isOpen()) {
+                    try {
+                        // Woken by wakeUp() when the socket reopens; poll in case nobody calls it
+                        wait(100);
+                    } catch (InterruptedException e) {
+                        return -1;
+                    }
+                    continue;
+                }
+            }
+            long buffered = sink.getBufferedAmount();
+            if (buffered <= Config.OUTBOUND_HIGH_WATERMARK_BYTES) {
+                return buffered;
+            }
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Collapses each run of queued drawing between two text messages into a per-pixel merged set. Text
+     * messages stay where they were, so drawing never moves across a message that depends on it, such as
+     * a board switch or LEAVE.
+     */
+    private void compact() {
+        UpdateCoalescer merged = new UpdateCoalescer(boardWidth, boardHeight);
+        StrokeRasterizer rasterizer = new StrokeRasterizer(boardWidth, boardHeight);
+        PointBuffer scratch = new PointBuffer(4096);
+        List<Entry> compacted = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.points != null) {
+                merged.merge(entry.points);
+            } else if (entry.stroke != null) {
+                scratch.clear();
+                rasterizer.rasterize(entry.stroke, scratch);
+                merged.merge(scratch);
+            } else {
+                drainRun(merged, compacted);
+                compacted.add(entry);
+            }
+        }
+        drainRun(merged, compacted);
+
+        int before = pendingWeight;
+        entries.clear();
+        pendingWeight = 0;
+        for (Entry entry : compacted) {
+            entries.addLast(entry);
+            pendingWeight += entry.weight();
+        }
+        log.warn("Outbound queue over capacity; compacted " + before + " queued points to " + pendingWeight + ".");
+    }
+
+    /**
+     * Moves the merged drawing of one run into DRAW entries of at most the current batch size.
+     */
+    private void drainRun(UpdateCoalescer merged, List<Entry> out) {
+        int maxPoints = sizer.getBatchPoints();
+        while (merged.pendingCount() > 0) {
+            PointBuffer batch = new PointBuffer(Math.min(maxPoints, merged.pendingCount()));
+            merged.drainTo(batch, maxPoints);
+            out.add(new Entry(batch, null, null));
+        }
+    }
+}
@@ -1,26 +1,158 @@
 package com.example.swinggradleapp.client;
 
 import com.example.swinggradleapp.MainFrame;
+import com.example.swinggradleapp.datatransfer.BoardMatrix;
+import com.example.swinggradleapp.datatransfer.BoardSnapshotCodec;
+import com.example.swinggradleapp.datatransfer.ChannelCodec;
+import com.example.swinggradleapp.datatransfer.LegacyTextPointCodec;
+import com.example.swinggradleapp.datatransfer.PackedBoard;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.PointCodec;
+import com.example.swinggradleapp.datatransfer.PointCodecs;
+import com.example.swinggradleapp.datatransfer.ProtocolFeatures;
+import com.example.swinggradleapp.datatransfer.ResumePoint;
+import com.example.swinggradleapp.datatransfer.SequenceCodec;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.datatransfer.StrokeCodec;
+import com.example.swinggradleapp.datatransfer.TileCodec;
+import com.example.swinggradleapp.datatransfer.Tiles;
+import com.example.swinggradleapp.datatransfer.TraceCodec;
+import com.example.swinggradleapp.datatransfer.TraceStamp;
+import com.example.swinggradleapp.datatransfer.WireMessage;
+import com.example.swinggradleapp.metrics.ClientMetrics;
+import com.example.swinggradleapp.metrics.Histogram;
+import com.example.swinggradleapp.metrics.MetricsRegistry;
+import com.example.swinggradleapp.model.BoardSnapshot;
+import com.example.swinggradleapp.rendering.PreparedBoard;
+import com.example.swinggradleapp.utils.Config;
+import com.example.swinggradleapp.utils.Logger;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
 import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.framing.CloseFrame;
 import org.java_websocket.handshake.ServerHandshake;
 
 import javax.swing.*;
+import java.awt.Rectangle;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
 
 /**
  * RealClient manages real-time communication with the backend server using WebSockets.
+ * <p>
+ * When the connection drops unexpectedly it reconnects on its own, backing off exponentially. If the server
+ * supports the resume feature the reconnect asks only for the updates missed since the last sequence number
+ * received; otherwise, or when the server no longer holds them, the board is re-synchronized from a snapshot.
+ * <p>
+ * With the channels feature the connection can switch between boards, see {@link #switchBoard}. Boards left
+ * behind stay subscribed, up to {@link Config#MAX_BACKGROUND_BOARDS}; their contents are kept in a
+ * {@link BoardChannel} and follow the server's coalesced background updates, so switching back only fetches
+ * what changed since.
  */
-public class RealClient implements Client {
+public final class RealClient implements Client {
+    private static final Logger log = Logger.getLogger(RealClient.class);
+
+    // The client the connection gauges read: the one connected last. The gauges are registered once
+    private static volatile RealClient current;
+
+    static {
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        registry.gauge("outbound.queueSize", ofCurrent(client -> client.outbound.size()));
+        registry.gauge("outbound.socketBufferedBytes", ofCurrent(RealClient::bufferedAmount));
+        registry.gauge("outbound.batchPoints", ofCurrent(client -> client.batchSizer.getBatchPoints()));
+        registry.gauge("outbound.batchCenters", ofCurrent(client -> client.batchSizer.getBatchCenters()));
+        registry.gauge("outbound.flushIntervalMs", ofCurrent(client -> client.batchSizer.getFlushIntervalMillis()));
+    }
+
     private WebSocketClient webSocketClient;
     private final MainFrame mainFrame;
     private final Gson gson = new Gson();
 
+    // Codec for outbound point batches; JSON until the server announces something cheaper
+    private volatile PointCodec codec = PointCodecs.getDefault();
+
+    // Optional features the server enabled for this connection
+    private volatile Set<String> serverFeatures = Set.of();
+
+    // Decodes inbound messages off the EDT
+    private final InboundDecoder decoder;
+
+    // Merges, paces and retains outbound messages, in batches sized from RTT, backlog and server errors
+    private final OutboundQueue outbound;
+    private final BatchSizer batchSizer = new BatchSizer();
+
+    // Inked tiles announced in CONFIRM when the board is tiled, those already requested, and those still in flight
+    private volatile Set<Long> tileIndex;
+    private final Set<Long> requestedTiles = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingTiles = ConcurrentHashMap.newKeySet();
+
+    // Reconnects run here: the WebSocket's own thread may not reconnect itself
+    private final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ws-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean closing;
+    private volatile boolean everConnected;
+    // Completed by the first handshake: true once open, false if it failed
+    private final CompletableFuture<Boolean> opened = new CompletableFuture<>();
+    private volatile boolean confirmed;
+    private int reconnectAttempts;
+    // Set once drawing is handed to the socket; only an orderly close proves the server processed it all.
+    // Drawing outstanding when a connection dropped may never have arrived, so that stays unconfirmed.
+    private volatile boolean drawingUnconfirmed;
+    private volatile boolean drawingLost;
+    // Completed by the close handshake that close() starts
+    private final CompletableFuture<Void> socketClosed = new CompletableFuture<>();
+    // Size of the foreground board as the decoder thread knows it, which the inbound and outbound buffers match
+    private int boardWidth;
+    private int boardHeight;
+    // Epoch of the board on the server, from CONFIRM or the resume point this client started from
+    private volatile long boardEpoch = SequenceCodec.NONE;
+    private long initialSeq = SequenceCodec.NONE;
+
+    // The foreground board, once a CONFIRM named it, and every board opened on this connection
+    private volatile String boardId;
+    private final Map<String, BoardChannel> channels = new ConcurrentHashMap<>();
+    // The board a FOCUS was sent for and not yet confirmed, with the FOCUS message itself
+    private volatile String switchingTo;
+    private volatile String focusRequest;
+    private volatile ResumePoint focusResumePoint;
+
+    // Filled by the permessage-deflate extension when compression is enabled
+    private final CompressionStats compressionStats = new CompressionStats();
+
+    // Latency tracing: this client's id in trace stamps, and the last stamp sent; outbound thread only
+    private final long traceClientId = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+    private long traceCseq;
+    private long lastTraceNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(Config.TRACE_SAMPLE_INTERVAL_MS);
+    // From sending a stamped message to its echo, and to the end of the first frame after the echo, in microseconds
+    private final Histogram traceRoundTrip = new Histogram();
+    private final Histogram traceOnScreen = new Histogram();
+
     /**
      * Constructs a RealClient with the specified server URI and MainFrame reference.
      *
@@ -28,10 +160,81 @@ public class RealClient implements Client {
      * @param mainFrame Reference to the MainFrame for UI updates.
      */
     public RealClient(String serverUri, MainFrame mainFrame) {
+        this(serverUri, mainFrame, null);
+    }
+
+    /**
+     * Constructs a RealClient whose first connection resumes from a board state the caller already holds,
+     * for example one loaded from the local board cache.
+     *
+     * @param serverUri   The WebSocket server URI including boardId as query parameter.
+     * @param mainFrame   Reference to the MainFrame for UI updates.
+     * @param resumePoint The state the board model is in, or null to receive the whole board.
+     */
+    public RealClient(String serverUri, MainFrame mainFrame, ResumePoint resumePoint) {
         this.mainFrame = mainFrame;
-        this.webSocketClient = new WebSocketClient(URI.create(serverUri)) {
+        this.decoder = new InboundDecoder(mainFrame, this::handleControlMessage, this::handleTile, this::handleBackground);
+        this.boardWidth = mainFrame.getBoardModel().getWidth();
+        this.boardHeight = mainFrame.getBoardModel().getHeight();
+        this.outbound = new OutboundQueue(new OutboundQueue.Sink() {
+            @Override
+            public boolean isOpen() {
+                return webSocketClient.isOpen();
+            }
+
+            @Override
+            public long getBufferedAmount() {
+                return bufferedAmount();
+            }
+
+            @Override
+            public void sendDraw(PointBuffer points) {
+                ClientMetrics.POINTS_OUT.record(points.size());
+                drawingUnconfirmed = true;
+                send(traced(codec.encode("DRAW", points, 0, points.size())));
+            }
+
+            @Override
+            public void sendStroke(Stroke stroke) {
+                ClientMetrics.POINTS_OUT.record(stroke.size());
+                drawingUnconfirmed = true;
+                send(traced(StrokeCodec.encode(stroke, codec)));
+            }
+
+            @Override
+            public void sendText(String message) {
+                send(WireMessage.text(message));
+            }
+        }, batchSizer, boardWidth, boardHeight);
+        Map<String, String> headers = new HashMap<>();
+        headers.put(PointCodecs.HEADER, PointCodecs.advertise(Config.WIRE_CODECS));
+        headers.put(BoardSnapshotCodec.HEADER, Config.SNAPSHOT_FORMATS);
+        headers.put(ProtocolFeatures.HEADER, Config.PROTOCOL_FEATURES);
+        if (resumePoint != null) {
+            headers.put(SequenceCodec.RESUME_HEADER, resumePoint.toHeaderValue());
+            boardEpoch = resumePoint.getEpoch();
+            initialSeq = resumePoint.getSeq();
+        }
+        // With deflate enabled the extension is offered in the handshake; the server may still decline it
+        Draft_6455 draft = Config.WS_DEFLATE_ENABLED
+                ? new Draft_6455(new MeteredDeflateExtension(Config.WS_DEFLATE_THRESHOLD_BYTES, compressionStats))
+                : new Draft_6455();
+        this.webSocketClient = new WebSocketClient(URI.create(serverUri), draft, headers) {
             @Override
             public void onOpen(ServerHandshake handshakedata) {
+                negotiateCodec(handshakedata.getFieldValue(PointCodecs.HEADER));
+                negotiateFeatures(handshakedata.getFieldValue(ProtocolFeatures.HEADER));
+                outbound.wakeUp();
+                synchronized (RealClient.this) {
+                    reconnectAttempts = 0;
+                }
+                opened.complete(true);
+                if (everConnected) {
+                    log.info("Reconnected to the WebSocket server.");
+                    mainFrame.setConnected(true);
+                    return;
+                }
+                everConnected = true;
                 SwingUtilities.invokeLater(() -> {
                     JOptionPane.showMessageDialog(mainFrame,
                             "Connected to Server.",
@@ -42,151 +245,711 @@ public class RealClient implements Client {
 
             @Override
             public void onMessage(String message) {
-                SwingUtilities.invokeLater(() -> {
-                    System.out.println("RealClient received message: " + message);
-                    handleServerMessage(message);
-                });
+                log.debug(() -> "RealClient received message: " + message);
+                WireMessage wireMessage = WireMessage.text(message);
+                ClientMetrics.MESSAGES_IN.mark();
+                ClientMetrics.BYTES_IN.mark(wireMessage.byteLength());
+                decoder.submit(wireMessage);
+            }
+
+            @Override
+            public void onMessage(ByteBuffer bytes) {
+                byte[] data = new byte[bytes.remaining()];
+                bytes.get(data);
+                ClientMetrics.MESSAGES_IN.mark();
+                ClientMetrics.BYTES_IN.mark(data.length);
+                decoder.submit(WireMessage.binary(data));
             }
 
             @Override
             public void onClose(int code, String reason, boolean remote) {
+                opened.complete(false);
+                // The server handles a connection's messages in order, so a completed close handshake
+                // means everything sent on it was applied
+                if (code == CloseFrame.NORMAL) {
+                    drawingUnconfirmed = drawingLost;
+                } else if (drawingUnconfirmed) {
+                    drawingLost = true;
+                }
+                if (closing) {
+                    socketClosed.complete(null);
+                }
+                if (shouldReconnect(code)) {
+                    log.warn("WebSocket closed. Code: " + code + ", Reason: " + reason + ". Reconnecting.");
+                    mainFrame.setConnected(false);
+                    scheduleReconnect();
+                    return;
+                }
+                if (closing) {
+                    return;
+                }
                 SwingUtilities.invokeLater(() -> {
                     JOptionPane.showMessageDialog(mainFrame,
                             "Disconnected from Server.\nReason: " + reason + "\nCode: " + code,
                             "Disconnected",
                             JOptionPane.WARNING_MESSAGE);
-                    System.err.println("WebSocket closed. Code: " + code + ", Reason: " + reason);
+                    log.warn("WebSocket closed. Code: " + code + ", Reason: " + reason);
                 });
             }
 
             @Override
             public void onError(Exception ex) {
+                opened.complete(false);
+                if (everConnected) {
+                    // Failed reconnect attempts end up here too; onClose schedules the next one
+                    log.warn("WebSocket error: " + ex.getMessage());
+                    return;
+                }
                 SwingUtilities.invokeLater(() -> {
                     JOptionPane.showMessageDialog(mainFrame,
                             "An error occurred: " + ex.getMessage(),
                             "Error",
                             JOptionPane.ERROR_MESSAGE);
-                    System.err.println("WebSocket error: " + ex.getMessage());
-                    ex.printStackTrace();
+                    log.error("WebSocket error: " + ex.getMessage(), ex);
                 });
             }
         };
     }
 
     /**
-     * Attempts to establish a blocking connection to the WebSocket server.
+     * Starts connecting to the WebSocket server; the handshake runs on the WebSocket's own thread.
      *
-     * @return true if connected successfully, false otherwise.
+     * @return Completes with true once the connection is open, or false if it could not be opened.
      */
     @Override
-    public boolean connect() {
-        try {
-            webSocketClient.connectBlocking();
-            return webSocketClient.isOpen();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-            return false;
-        }
+    public CompletableFuture<Boolean> connect() {
+        decoder.start();
+        outbound.start();
+        current = this;
+        webSocketClient.connect();
+        return opened;
     }
 
     /**
-     * Sends a message to the WebSocket server.
+     * Queues a message for the WebSocket server.
      *
      * @param message The message to send.
      */
     @Override
     public void sendMessage(String message) {
-        if (webSocketClient != null && webSocketClient.isOpen()) {
-            webSocketClient.send(message);
+        outbound.enqueueText(message);
+    }
+
+    /**
+     * Queues a DRAW batch; it is encoded with the negotiated codec when it is sent.
+     *
+     * @param points The points to send.
+     */
+    @Override
+    public void sendDraw(PointBuffer points) {
+        outbound.enqueueDraw(points);
+    }
+
+    /**
+     * Returns true once the server has enabled STROKE messages and the negotiated codec can carry them.
+     */
+    @Override
+    public boolean supportsStrokes() {
+        return serverFeatures.contains(ProtocolFeatures.STROKE) && !LegacyTextPointCodec.NAME.equals(codec.getName());
+    }
+
+    /**
+     * Queues a vector stroke for the WebSocket server.
+     *
+     * @param stroke The stroke to send.
+     */
+    @Override
+    public void sendStroke(Stroke stroke) {
+        outbound.enqueueStroke(stroke);
+    }
+
+    /**
+     * Requests the inked tiles covering a region that have not been requested yet. Does nothing until the
+     * server has sent its tile index, or when it does not support tiles.
+     *
+     * @param region The region in board coordinates.
+     */
+    @Override
+    public void syncRegion(Rectangle region) {
+        Set<Long> index = tileIndex;
+        if (index == null || !serverFeatures.contains(ProtocolFeatures.TILES) || switchingTo != null) {
+            // While switching boards the server would answer with tiles of the new board
+            return;
+        }
+        List<Long> wanted = new ArrayList<>();
+        for (int tileY = region.y >> Tiles.SHIFT; tileY <= (region.y + region.height - 1) >> Tiles.SHIFT; tileY++) {
+            for (int tileX = region.x >> Tiles.SHIFT; tileX <= (region.x + region.width - 1) >> Tiles.SHIFT; tileX++) {
+                long key = Tiles.key(tileX, tileY);
+                // Blank tiles are never requested; whatever is drawn on them later arrives as updates
+                if (index.contains(key) && requestedTiles.add(key)) {
+                    wanted.add(key);
+                }
+            }
+        }
+        if (!wanted.isEmpty()) {
+            pendingTiles.addAll(wanted);
+            log.debug(() -> "Requesting " + wanted.size() + " tiles.");
+            sendMessage(TileCodec.encodeRequest(wanted).getText());
+        }
+    }
+
+    /**
+     * Asks the server to move this connection to another board, resuming it from the copy kept since it was
+     * last left if there is one. Call on the EDT, and stop drawing until {@link MainFrame#boardSwitched}.
+     *
+     * @param board The board to switch to.
+     * @return false if the server does not support switching boards, or a switch is still in progress.
+     */
+    @Override
+    public boolean switchBoard(String board) {
+        if (!serverFeatures.contains(ProtocolFeatures.CHANNELS) || boardId == null || switchingTo != null
+                || board.equals(boardId)) {
+            return false;
+        }
+        BoardChannel channel = channelFor(board);
+        ResumePoint point = serverFeatures.contains(ProtocolFeatures.RESUME) ? channel.getResumePoint() : null;
+        channel.freeze();
+        JsonObject focus = new JsonObject();
+        focus.addProperty("type", "FOCUS");
+        focus.addProperty("board", board);
+        if (point != null) {
+            focus.addProperty("resume", point.toHeaderValue());
+        }
+        focusResumePoint = point;
+        focusRequest = gson.toJson(focus);
+        switchingTo = board;
+        log.info("Switching to board " + board + (point != null ? " from " + point : "") + ".");
+        sendMessage(focusRequest);
+        return true;
+    }
+
+    /**
+     * Returns the permessage-deflate byte and CPU counters for this connection.
+     */
+    public CompressionStats getCompressionStats() {
+        return compressionStats;
+    }
+
+    /**
+     * Returns the number of outbound messages waiting to be sent.
+     */
+    public int getOutboundQueueSize() {
+        return outbound.size();
+    }
+
+    private void send(WireMessage message) {
+        ClientMetrics.MESSAGES_OUT.mark();
+        ClientMetrics.BYTES_OUT.mark(message.byteLength());
+        if (message.isBinary()) {
+            webSocketClient.send(message.getBinary());
         } else {
-            System.err.println("WebSocket is not open. Cannot send message: " + message);
+            webSocketClient.send(message.getText());
         }
     }
 
+    /**
+     * Returns the bytes the socket has queued but not yet written, the WebSocket "bufferedAmount".
+     */
+    private long bufferedAmount() {
+        WebSocket connection = webSocketClient.getConnection();
+        if (!(connection instanceof WebSocketImpl)) {
+            return 0;
+        }
+        long total = 0;
+        for (ByteBuffer buffer : ((WebSocketImpl) connection).outQueue) {
+            total += buffer.remaining();
+        }
+        return total;
+    }
+
     /**
      * Closes the WebSocket connection.
      */
     @Override
-    public void close() {
-        if (webSocketClient != null) {
-            webSocketClient.close();
+    public CompletableFuture<Void> close() {
+        closing = true;
+        reconnector.shutdownNow();
+        if (current == this) {
+            current = null;
+        }
+        // The caller is usually the EDT, which must not wait for the queue to drain
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        Thread closer = new Thread(() -> {
+            // Give queued messages (such as LEAVE) a moment to go out first
+            outbound.shutdown(Config.OUTBOUND_CLOSE_TIMEOUT_MS);
+            if (webSocketClient != null) {
+                boolean open = webSocketClient.isOpen();
+                webSocketClient.close();
+                // Wait for the handshake, which confirms the drawing sent before the resume point is read
+                if (open) {
+                    awaitSocketClosed();
+                }
+            }
+            decoder.stop();
+            if (Config.WS_DEFLATE_ENABLED) {
+                log.info("Compression stats: " + compressionStats);
+            }
+            if (traceRoundTrip.getCount() > 0) {
+                log.info("Trace latency (us): round trip " + traceRoundTrip + "; on screen " + traceOnScreen);
+            }
+            log.info("Outbound batching: " + batchSizer + ".");
+            closed.complete(null);
+        }, "ws-close");
+        // The caller decides whether to wait for it; an exiting application should not
+        closer.setDaemon(true);
+        closer.start();
+        return closed;
+    }
+
+    /**
+     * Reads a connection gauge from the current client, or 0 before any client connected.
+     */
+    private static LongSupplier ofCurrent(ToLongFunction<RealClient> value) {
+        return () -> {
+            RealClient client = current;
+            return client != null ? value.applyAsLong(client) : 0;
+        };
+    }
+
+    private void awaitSocketClosed() {
+        try {
+            socketClosed.get(Config.OUTBOUND_CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("WebSocket did not close in time; the board will not be cached with a resume point.");
         }
     }
 
     /**
-     * Handles incoming messages from the server.
+     * Returns the round-trip latency of traced messages on this connection, in microseconds: from sending
+     * a stamped DRAW or STROKE until the server's echo arrives.
+     */
+    public Histogram getTraceRoundTrip() {
+        return traceRoundTrip;
+    }
+
+    /**
+     * Returns the apply-to-screen latency of traced messages on this connection, in microseconds: from
+     * sending a stamped DRAW or STROKE until the updates received with its echo have been painted. That is
+     * how long collaborators on a similar connection wait to see the drawing.
+     */
+    public Histogram getTraceOnScreen() {
+        return traceOnScreen;
+    }
+
+    /**
+     * Stamps an outbound DRAW or STROKE for latency tracing, at most once per
+     * {@link Config#TRACE_SAMPLE_INTERVAL_MS}. Runs on the outbound thread.
+     */
+    private WireMessage traced(WireMessage message) {
+        long now = System.nanoTime();
+        if (!serverFeatures.contains(ProtocolFeatures.TRACE) || LegacyTextPointCodec.NAME.equals(codec.getName())
+                || now - lastTraceNanos < TimeUnit.MILLISECONDS.toNanos(Config.TRACE_SAMPLE_INTERVAL_MS)) {
+            return message;
+        }
+        lastTraceNanos = now;
+        return TraceCodec.wrap(new TraceStamp(traceClientId, ++traceCseq, now), message);
+    }
+
+    /**
+     * Checks whether a close is a network failure worth reconnecting after, rather than a deliberate close.
+     */
+    private boolean shouldReconnect(int code) {
+        // 1000: normal close, e.g. after LEAVE; 1008: the server refused this client
+        return everConnected && !closing && code != 1000 && code != 1008;
+    }
+
+    /**
+     * Schedules the next reconnect attempt after an exponential, jittered delay.
+     */
+    private synchronized void scheduleReconnect() {
+        long delay = Math.min(Config.RECONNECT_MAX_DELAY_MS,
+                Config.RECONNECT_INITIAL_DELAY_MS << Math.min(reconnectAttempts, 20));
+        // Jitter keeps clients dropped together by one outage from reconnecting in lockstep
+        delay = delay / 2 + (long) (Math.random() * (delay / 2 + 1));
+        reconnectAttempts++;
+        log.info("Reconnect attempt " + reconnectAttempts + " in " + delay + " ms.");
+        try {
+            reconnector.schedule(this::reconnect, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed in the meantime
+        }
+    }
+
+    /**
+     * Reconnects, asking to resume from the last sequence number received when the server supports it.
+     * A failed attempt ends in onClose, which schedules the next one.
+     */
+    private void reconnect() {
+        if (closing) {
+            return;
+        }
+        long lastSeq = decoder.getLastSeq();
+        if (serverFeatures.contains(ProtocolFeatures.RESUME) && lastSeq != SequenceCodec.NONE) {
+            webSocketClient.addHeader(SequenceCodec.RESUME_HEADER, new ResumePoint(boardEpoch, lastSeq).toHeaderValue());
+        } else {
+            webSocketClient.removeHeader(SequenceCodec.RESUME_HEADER);
+        }
+        String board = boardId;
+        if (serverFeatures.contains(ProtocolFeatures.CHANNELS) && board != null) {
+            // The URI still names the board this client started on
+            webSocketClient.addHeader(ChannelCodec.BOARD_HEADER, board);
+        } else {
+            webSocketClient.removeHeader(ChannelCodec.BOARD_HEADER);
+        }
+        try {
+            webSocketClient.reconnectBlocking();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Reconnect failed: " + e.getMessage());
+            scheduleReconnect();
+        }
+    }
+
+    /**
+     * Returns the sizer of outbound batches; it adapts to this connection.
+     */
+    @Override
+    public BatchSizer getBatchSizer() {
+        return batchSizer;
+    }
+
+    /**
+     * Returns the server state the local board is known to match, for resuming from it later, or null if
+     * the board may be incomplete or hold drawing the server has not confirmed. Drawing counts as confirmed
+     * only once the connection it was sent on closed normally.
+     */
+    @Override
+    public ResumePoint getResumePoint() {
+        long seq = decoder.getAppliedSeq();
+        if (seq == SequenceCodec.NONE || !serverFeatures.contains(ProtocolFeatures.RESUME) || outbound.size() > 0
+                || drawingUnconfirmed) {
+            return null;
+        }
+        // A tiled board is only complete once every inked tile has arrived
+        Set<Long> index = tileIndex;
+        if (index != null && (!pendingTiles.isEmpty() || !requestedTiles.containsAll(index))) {
+            return null;
+        }
+        return new ResumePoint(boardEpoch, seq);
+    }
+
+    /**
+     * Applies a TILE from the server and marks it as received. Called on the decoder thread.
+     */
+    private void handleTile(TileCodec.Tile tile) {
+        pendingTiles.remove(Tiles.key(tile.getTileX(), tile.getTileY()));
+        mainFrame.applyTile(tile);
+    }
+
+    /**
+     * Applies a coalesced update of a background board to its kept copy. Called on the decoder thread.
+     */
+    private void handleBackground(int channel, long seq, PointBuffer points) {
+        for (BoardChannel candidate : channels.values()) {
+            if (candidate.channel == channel) {
+                ClientMetrics.invokeLater(() -> candidate.apply(seq, points));
+                return;
+            }
+        }
+        log.warn("Update for unknown channel " + channel + ".");
+    }
+
+    private BoardChannel channelFor(String board) {
+        return channels.computeIfAbsent(board, BoardChannel::new);
+    }
+
+    /**
+     * Moves the view from the foreground board to the board a CONFIRM is for. Called on the decoder thread
+     * after everything received for the previous board was handed to the EDT, so the copy kept of it is
+     * complete up to the last sequence number received.
      *
-     * @param message The incoming message string.
+     * @param board   The new foreground board.
+     * @param resumed true if the server resumed the board from the copy kept of it.
      */
-    private void handleServerMessage(String message) {
-        JsonObject jsonMessage = JsonParser.parseString(message).getAsJsonObject();
+    private void switchForeground(String board, boolean resumed) {
+        long seq = decoder.getLastSeq();
+        Set<Long> index = tileIndex;
+        boolean complete = index == null || (pendingTiles.isEmpty() && requestedTiles.containsAll(index));
+        ResumePoint left = serverFeatures.contains(ProtocolFeatures.RESUME) && seq != SequenceCodec.NONE && complete
+                ? new ResumePoint(boardEpoch, seq) : null;
+        BoardChannel previous = channelFor(boardId);
+        BoardChannel next = channelFor(board);
+        ResumePoint resumedFrom = focusResumePoint;
+        switchingTo = null;
+        focusRequest = null;
+        tileIndex = null;
+        requestedTiles.clear();
+        pendingTiles.clear();
+        log.info("Switched from board " + boardId + " to " + board + (resumed ? ", resumed from " + resumedFrom : "") + ".");
+        previous.width = boardWidth;
+        previous.height = boardHeight;
+        if (resumed && next.width > 0) {
+            // A resumed board continues at the size it was kept at; otherwise its CONFIRM tells the size
+            boardSized(next.width, next.height);
+        }
+        // Until the task below ran, the model still holds the previous board: no frame may apply the new one's points
+        decoder.hold();
+        SwingUtilities.invokeLater(() -> {
+            previous.keep(mainFrame.getBoardModel(), left);
+            BoardSnapshot contents = next.take();
+            mainFrame.boardSwitched(board, resumed ? contents : null, left);
+            decoder.release();
+            trimBackground(board);
+        });
+        if (resumed) {
+            boardEpoch = resumedFrom.getEpoch();
+            decoder.switchSeq(resumedFrom.getSeq());
+        } else {
+            decoder.switchSeq(decoder.getLastSeq());
+        }
+    }
+
+    /**
+     * Resizes the buffers that clamp points to the board, before any point of a board of the new size is
+     * decoded or queued. Runs on the decoder thread.
+     *
+     * @param width  The foreground board's width.
+     * @param height The foreground board's height.
+     */
+    private void boardSized(int width, int height) {
+        if (width == boardWidth && height == boardHeight) {
+            return;
+        }
+        log.info("Resizing inbound and outbound buffers to " + width + "x" + height + ".");
+        boardWidth = width;
+        boardHeight = height;
+        decoder.resize(width, height);
+        outbound.resize(width, height);
+    }
+
+    /**
+     * Drops the least recently used background boards beyond {@link Config#MAX_BACKGROUND_BOARDS}. Runs on the EDT.
+     */
+    private void trimBackground(String foreground) {
+        while (true) {
+            BoardChannel oldest = null;
+            int kept = 0;
+            for (BoardChannel channel : channels.values()) {
+                if (!channel.isKept() || channel.boardId.equals(foreground)) {
+                    continue;
+                }
+                kept++;
+                if (oldest == null || channel.getLastFocusedNanos() < oldest.getLastFocusedNanos()) {
+                    oldest = channel;
+                }
+            }
+            if (kept <= Config.MAX_BACKGROUND_BOARDS) {
+                return;
+            }
+            oldest.drop();
+            JsonObject unsubscribe = new JsonObject();
+            unsubscribe.addProperty("type", "UNSUBSCRIBE");
+            unsubscribe.addProperty("board", oldest.boardId);
+            sendMessage(gson.toJson(unsubscribe));
+        }
+    }
+
+    /**
+     * Follows the kept background boards again after a reconnect, which drops the server's subscriptions.
+     * Runs on the EDT.
+     */
+    private void resubscribe() {
+        for (BoardChannel channel : channels.values()) {
+            ResumePoint point = channel.getResumePoint();
+            if (point == null || channel.boardId.equals(boardId)) {
+                continue;
+            }
+            JsonObject subscribe = new JsonObject();
+            subscribe.addProperty("type", "SUBSCRIBE");
+            subscribe.addProperty("board", channel.boardId);
+            subscribe.addProperty("resume", point.toHeaderValue());
+            sendMessage(gson.toJson(subscribe));
+        }
+    }
+
+    /**
+     * Handles non-point messages from the server. Called on the decoder thread; UI work is posted to the EDT.
+     *
+     * @param jsonMessage The message, without its point data.
+     */
+    private void handleControlMessage(JsonObject jsonMessage) {
         String type = jsonMessage.get("type").getAsString();
 
         switch (type) {
             case "CONFIRM":
                 String username = jsonMessage.get("username").getAsString();
-                JsonArray matrixArray = jsonMessage.get("matrix").getAsJsonArray();
-                int[][] matrix = parseMatrix(matrixArray);
-                JOptionPane.showMessageDialog(mainFrame,
-                        "Welcome, " + username + "! Connected to the server.",
-                        "Connection Confirmed",
-                        JOptionPane.INFORMATION_MESSAGE);
-                mainFrame.handleInitialBoard(matrix);
+                JsonElement codecs = jsonMessage.get("codecs");
+                if (codecs != null) {
+                    negotiateCodec(joinNames(codecs.getAsJsonArray()));
+                }
+                JsonElement features = jsonMessage.get("features");
+                if (features != null) {
+                    negotiateFeatures(joinNames(features.getAsJsonArray()));
+                }
+                boolean resumed = jsonMessage.has("resumed") && jsonMessage.get("resumed").getAsBoolean();
+                boolean switched = false;
+                if (jsonMessage.has("board")) {
+                    String board = jsonMessage.get("board").getAsString();
+                    channelFor(board).channel = jsonMessage.get("channel").getAsInt();
+                    switched = boardId != null && !board.equals(boardId);
+                    if (switched) {
+                        switchForeground(board, resumed);
+                    } else if (confirmed) {
+                        // A reconnect: follow the background boards again, and repeat a switch it interrupted
+                        SwingUtilities.invokeLater(this::resubscribe);
+                        String request = focusRequest;
+                        if (request != null) {
+                            sendMessage(request);
+                        }
+                    }
+                    boardId = board;
+                }
+                if (resumed && switched) {
+                    // The updates since the kept copy follow
+                    break;
+                }
+                if (resumed) {
+                    // The missed updates follow; only tile requests lost with the old connection are repeated
+                    if (decoder.getLastSeq() == SequenceCodec.NONE) {
+                        // Resumed from a board loaded before connecting; no update has been received yet
+                        decoder.seedSeq(initialSeq);
+                    }
+                    log.info("Resumed session after update " + decoder.getLastSeq() + ".");
+                    requestedTiles.removeAll(pendingTiles);
+                    pendingTiles.clear();
+                    SwingUtilities.invokeLater(() -> syncRegion(mainFrame.getVisibleBoardRegion()));
+                    break;
+                }
+                boolean welcome = !confirmed;
+                confirmed = true;
+                boardEpoch = jsonMessage.has("epoch") ? jsonMessage.get("epoch").getAsLong() : SequenceCodec.NONE;
+                if (!welcome && !switched) {
+                    log.info("Re-synchronizing the board from a full snapshot.");
+                }
+                if (serverFeatures.contains(ProtocolFeatures.TILES) && jsonMessage.has("tiles")) {
+                    // Tiled board: only the index of inked tiles; the visible ones are requested next
+                    int width = jsonMessage.get("width").getAsInt();
+                    int height = jsonMessage.get("height").getAsInt();
+                    requestedTiles.clear();
+                    pendingTiles.clear();
+                    tileIndex = new HashSet<>(TileCodec.fromJson(jsonMessage.get("tiles")));
+                    boardSized(width, height);
+                    log.info("Board is " + width + "x" + height + " with " + tileIndex.size() + " inked tiles.");
+                    SwingUtilities.invokeLater(() -> {
+                        // The board goes first: the modal dialog keeps dispatching events while it is open
+                        mainFrame.handleBoardIndex(width, height);
+                        if (welcome) {
+                            showWelcome(username);
+                        }
+                    });
+                    break;
+                }
+                PackedBoard matrix = BoardMatrix.parsePacked(jsonMessage.get("matrix"), jsonMessage.get("matrix_encoding"));
+                log.info("Matrix Dimensions: Rows = " + matrix.getHeight() + ", Columns = " + matrix.getWidth());
+                boardSized(matrix.getWidth(), matrix.getHeight());
+                // Built here on the decoder thread, so the EDT only swaps the board in
+                PreparedBoard prepared = mainFrame.prepareBoard(BoardSnapshot.fromPackedBoard(matrix));
+                SwingUtilities.invokeLater(() -> {
+                    mainFrame.handleInitialBoard(prepared);
+                    if (welcome) {
+                        showWelcome(username);
+                    }
+                });
                 break;
 
-            case "DRAW":
-            case "UPDATE":
-                JsonArray pointsArray = jsonMessage.get("points").getAsJsonArray();
-                List<MainFrame.PointData> points = new ArrayList<>();
-                for (int i = 0; i < pointsArray.size(); i++) {
-                    JsonObject pointObj = pointsArray.get(i).getAsJsonObject();
-                    int x = pointObj.get("x").getAsInt(); // Correctly assign x
-                    int y = pointObj.get("y").getAsInt(); // Correctly assign y
-                    int pen = pointObj.get("pen").getAsInt();
-                    points.add(new MainFrame.PointData(x, y, pen));
-                    System.out.println("RealClient parsed point: x=" + x + ", y=" + y + ", pen=" + pen);
-                }
-                mainFrame.applyPoints(points);
+            case "SUBSCRIBED":
+                String subscribedBoard = jsonMessage.get("board").getAsString();
+                channelFor(subscribedBoard).channel = jsonMessage.get("channel").getAsInt();
+                if (!jsonMessage.get("live").getAsBoolean()) {
+                    log.info("Board " + subscribedBoard + " cannot be followed from its kept copy; it is resumed when opened.");
+                }
+                break;
+
+            case "STALE":
+                // The kept copy stops following the board, but still resumes from its own sequence number
+                log.info("Board " + jsonMessage.get("board").getAsString() + " fell too far behind in the background.");
+                break;
+
+            case "TRACE":
+                TraceStamp stamp = TraceCodec.fromJson(jsonMessage);
+                if (stamp != null && stamp.getClientId() == traceClientId) {
+                    long roundTripMicros = (System.nanoTime() - stamp.getSentNanos()) / 1000;
+                    traceRoundTrip.record(roundTripMicros);
+                    ClientMetrics.TRACE_ROUND_TRIP_MICROS.record(roundTripMicros);
+                    batchSizer.onRoundTrip(roundTripMicros);
+                    // Posted behind the updates that arrived before the echo; the next frame shows them
+                    ClientMetrics.invokeLater(() -> mainFrame.runAfterNextFrame(() -> {
+                        long onScreenMicros = (System.nanoTime() - stamp.getSentNanos()) / 1000;
+                        traceOnScreen.record(onScreenMicros);
+                        ClientMetrics.TRACE_ON_SCREEN_MICROS.record(onScreenMicros);
+                    }));
+                }
                 break;
 
             case "ERROR":
                 String errorMsg = jsonMessage.get("message").getAsString();
-                JOptionPane.showMessageDialog(mainFrame,
-                        "Server Error: " + errorMsg,
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE);
+                // Possibly a frame the server could not take; send smaller ones from now on
+                batchSizer.onError();
+                SwingUtilities.invokeLater(() -> {
+                    JOptionPane.showMessageDialog(mainFrame,
+                            "Server Error: " + errorMsg,
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                });
                 break;
 
             default:
-                System.err.println("Unknown message type: " + type);
+                log.warn("Unknown message type: " + type);
         }
     }
 
+    private void showWelcome(String username) {
+        JOptionPane.showMessageDialog(mainFrame,
+                "Welcome, " + username + "! Connected to the server.",
+                "Connection Confirmed",
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+
     /**
-     * Parses the board matrix from JsonArray to 2D int array.
+     * Switches the outbound codec to the cheapest one both ends support.
      *
-     * @param matrixArray The JsonArray representing the board matrix.
-     * @return The 2D int array.
+     * @param serverCodecs Comma separated codec names announced by the server, may be null.
      */
-    private int[][] parseMatrix(JsonArray matrixArray) {
-        int rows = matrixArray.size();
-        if (rows == 0) {
-            throw new IllegalArgumentException("Received empty matrix from server.");
+    private void negotiateCodec(String serverCodecs) {
+        if (serverCodecs == null || serverCodecs.isEmpty()) {
+            return;
         }
-        int cols = matrixArray.get(0).getAsJsonArray().size();
-        System.out.println("Matrix Dimensions: Rows = " + rows + ", Columns = " + cols);
-        int[][] matrix = new int[rows][cols];
+        codec = PointCodecs.negotiate(Config.WIRE_CODECS, serverCodecs);
+        log.info("Negotiated wire codec: " + codec.getName());
+    }
 
-        for (int y = 0; y < rows; y++) { // Iterate over rows (y)
-            JsonArray row = matrixArray.get(y).getAsJsonArray();
-            if (row.size() != cols) {
-                throw new IndexOutOfBoundsException("Row " + y + " has " + row.size() + " columns; expected " + cols + ".");
-            }
-            for (int x = 0; x < cols; x++) { // Iterate over columns (x)
-                matrix[y][x] = row.get(x).getAsInt();
-            }
+    /**
+     * Records the optional features the server enabled.
+     *
+     * @param enabled Comma separated feature names announced by the server, may be null.
+     */
+    private void negotiateFeatures(String enabled) {
+        if (enabled == null || enabled.isEmpty()) {
+            return;
         }
+        Set<String> offered = ProtocolFeatures.parse(Config.PROTOCOL_FEATURES);
+        Set<String> agreed = new LinkedHashSet<>(ProtocolFeatures.parse(enabled));
+        agreed.retainAll(offered);
+        serverFeatures = Set.copyOf(agreed);
+        log.info("Negotiated protocol features: " + serverFeatures);
+    }
 
-        return matrix;
+    private static String joinNames(JsonArray names) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(names.get(i).getAsString());
+        }
+        return sb.toString();
     }
 }
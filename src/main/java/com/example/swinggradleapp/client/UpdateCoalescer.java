@@ -0,0 +1,154 @@
+package com.example.swinggradleapp.client;
+
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.Tiles;
+
+import java.util.Arrays;
+
+/**
+ * UpdateCoalescer merges pending inbound points per pixel, last writer wins.
+ * <p>
+ * However many updates arrive between two drains, the pending set never holds more than one entry per
+ * board pixel, so the consumer always receives a single pre-merged batch. Coordinates are clamped to the
+ * board the same way the canvas clamps them. Per-pixel state is kept in {@link Tiles} allocated on first
+ * use and released once drained, so large boards only cost memory where updates are pending. Capped drains
+ * advance a read offset rather than shifting what is left. All methods are thread-safe.
+ */
+public class UpdateCoalescer {
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    // Per tile: pen + 1 for each pending pixel, 0 when the pixel has nothing pending
+    private final byte[][] pending;
+    private final int[] pendingPerTile;
+    // Pending pixels in arrival order: indices[head] up to indices[size - 1]
+    private long[] indices = new long[1024];
+    private int head;
+    private int size;
+
+    public UpdateCoalescer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.tilesX = Tiles.count(width);
+        this.pending = new byte[tilesX * Tiles.count(height)][];
+        this.pendingPerTile = new int[pending.length];
+    }
+
+    /**
+     * Merges a batch of points into the pending set.
+     *
+     * @param points The points to merge.
+     * @return true if the set was empty before this call, i.e. the caller should schedule a drain.
+     */
+    public synchronized boolean merge(PointBuffer points) {
+        boolean wasEmpty = size == head;
+        for (int i = 0; i < points.size(); i++) {
+            int x = Math.max(0, Math.min(points.getX(i), width - 1));
+            int y = Math.max(0, Math.min(points.getY(i), height - 1));
+            int tileIndex = tileIndex(x, y);
+            byte[] tile = pending[tileIndex];
+            if (tile == null) {
+                tile = new byte[Tiles.SIZE * Tiles.SIZE];
+                pending[tileIndex] = tile;
+            }
+            int offset = offset(x, y);
+            if (tile[offset] == 0) {
+                if (size == indices.length) {
+                    makeRoom();
+                }
+                indices[size++] = (long) y * width + x;
+                pendingPerTile[tileIndex]++;
+            }
+            tile[offset] = (byte) (points.getPen(i) + 1);
+        }
+        return wasEmpty && size > head;
+    }
+
+    /**
+     * Moves every pending pixel into the given buffer and empties the set.
+     *
+     * @param out The buffer receiving the merged points.
+     * @return The number of points drained.
+     */
+    public synchronized int drainTo(PointBuffer out) {
+        return drainTo(out, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Moves up to the given number of pending pixels, oldest first, into the buffer.
+     *
+     * @param out       The buffer receiving the merged points.
+     * @param maxPoints The most points to drain; the rest stay pending.
+     * @return The number of points drained.
+     */
+    public synchronized int drainTo(PointBuffer out, int maxPoints) {
+        int drained = Math.min(size - head, maxPoints);
+        for (int i = head; i < head + drained; i++) {
+            int x = (int) (indices[i] % width);
+            int y = (int) (indices[i] / width);
+            int tileIndex = tileIndex(x, y);
+            byte[] tile = pending[tileIndex];
+            int offset = offset(x, y);
+            out.add(x, y, tile[offset] - 1);
+            tile[offset] = 0;
+            if (--pendingPerTile[tileIndex] == 0) {
+                pending[tileIndex] = null;
+            }
+        }
+        head += drained;
+        if (head == size) {
+            head = 0;
+            size = 0;
+        }
+        return drained;
+    }
+
+    public synchronized int pendingCount() {
+        return size - head;
+    }
+
+    /**
+     * Returns the number of tiles holding per-pixel state.
+     */
+    synchronized int allocatedTiles() {
+        int count = 0;
+        for (byte[] tile : pending) {
+            if (tile != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Drops every pending pixel and releases the memory they took.
+     */
+    public synchronized void clear() {
+        Arrays.fill(pending, null);
+        Arrays.fill(pendingPerTile, 0);
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Frees space at the end of the index array: reuses the drained front once it is at least half the
+     * array, so each pending index moves at most a constant number of times, and grows the array otherwise.
+     */
+    private void makeRoom() {
+        if (head >= indices.length / 2) {
+            System.arraycopy(indices, head, indices, 0, size - head);
+            size -= head;
+            head = 0;
+        } else {
+            indices = Arrays.copyOf(indices, indices.length * 2);
+        }
+    }
+
+    private int tileIndex(int x, int y) {
+        return (y >>> Tiles.SHIFT) * tilesX + (x >>> Tiles.SHIFT);
+    }
+
+    private static int offset(int x, int y) {
+        return ((y & Tiles.MASK) << Tiles.SHIFT) | (x & Tiles.MASK);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.swinggradleapp.datatransfer;
+
+/**
+ * BinaryPointCodec packs point batches into compact binary frames.
+ * <p>
+ * Frame layout:
+ * <pre>
+ *   byte    header   (FORMAT_VERSION &lt;&lt; 4) | message type
+ *   varint  count
+ *   count x {
+ *     varint  (zigzag(dx) &lt;&lt; 1) | pen
+ *     varint  zigzag(dy)
+ *   }
+ * </pre>
+ * Coordinates are deltas from the previous point (the first from 0,0), so neighbouring
+ * pixels of a stroke cost two bytes each instead of a ~25 byte JSON object.
+ */
+public class BinaryPointCodec implements PointCodec {
+    public static final String NAME = "binary";
+
+    static final int FORMAT_VERSION = 1;
+    static final int TYPE_DRAW = 1;
+    static final int TYPE_UPDATE = 2;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public WireMessage encode(String type, PointBuffer points, int from, int to) {
+        BinaryWriter writer = new BinaryWriter(8 + (to - from) * 3);
+        writer.writeByte((FORMAT_VERSION << 4) | typeCode(type));
+        writer.writeVarInt(to - from);
+
+        int prevX = 0;
+        int prevY = 0;
+        for (int i = from; i < to; i++) {
+            int x = points.getX(i);
+            int y = points.getY(i);
+            int dx = x - prevX;
+            writer.writeVarInt(((dx << 1) ^ (dx >> 31)) << 1 | (points.getPen(i) & 1));
+            writer.writeZigZag(y - prevY);
+            prevX = x;
+            prevY = y;
+        }
+        return WireMessage.binary(writer.toByteArray());
+    }
+
+    @Override
+    public boolean canDecode(WireMessage message) {
+        if (!message.isBinary() || message.getBinary().length == 0) {
+            return false;
+        }
+        int header = message.getBinary()[0] & 0xFF;
+        int type = header & 0x0F;
+        return header >>> 4 == FORMAT_VERSION && (type == TYPE_DRAW || type == TYPE_UPDATE);
+    }
+
+    @Override
+    public String decode(WireMessage message, PointBuffer out) {
+        BinaryReader reader = new BinaryReader(message.getBinary());
+        String type = typeName(reader.readByte() & 0x0F);
+        int count = reader.readVarInt();
+
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < count; i++) {
+            int head = reader.readVarInt();
+            int zigzagDx = head >>> 1;
+            x += (zigzagDx >>> 1) ^ -(zigzagDx & 1);
+            y += reader.readZigZag();
+            out.add(x, y, head & 1);
+        }
+        return type;
+    }
+
+    private static int typeCode(String type) {
+        switch (type) {
+            case "DRAW":
+                return TYPE_DRAW;
+            case "UPDATE":
+                return TYPE_UPDATE;
+            default:
+                throw new IllegalArgumentException("Unsupported binary message type: " + type);
+        }
+    }
+
+    private static String typeName(int code) {
+        switch (code) {
+            case TYPE_DRAW:
+                return "DRAW";
+            case TYPE_UPDATE:
+                return "UPDATE";
+            default:
+                throw new IllegalArgumentException("Unknown binary message type code: " + code);
+        }
+    }
+}
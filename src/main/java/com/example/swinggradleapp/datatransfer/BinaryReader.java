@@ -0,0 +1,75 @@
+package com.example.swinggradleapp.datatransfer;
+
+/**
+ * BinaryReader reads the encodings written by {@link BinaryWriter}.
+ */
+public class BinaryReader {
+    private final byte[] bytes;
+    private int position;
+    private final int limit;
+
+    public BinaryReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    public BinaryReader(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public int readByte() {
+        if (position >= limit) {
+            throw new IllegalArgumentException("Unexpected end of binary message at offset " + position + ".");
+        }
+        return bytes[position++] & 0xFF;
+    }
+
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at offset " + position + ".");
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at offset " + position + ".");
+    }
+
+    public int readZigZag() {
+        int raw = readVarInt();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public long readLong() {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the offset of the next byte to read.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+}
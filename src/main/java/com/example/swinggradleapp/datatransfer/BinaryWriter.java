@@ -0,0 +1,84 @@
+package com.example.swinggradleapp.datatransfer;
+
+import java.util.Arrays;
+
+/**
+ * BinaryWriter is a growable byte array with helpers for the varint encodings used on the wire.
+ */
+public class BinaryWriter {
+    private byte[] bytes;
+    private int length;
+
+    public BinaryWriter(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(length + 1);
+        bytes[length++] = (byte) value;
+    }
+
+    public void writeBytes(byte[] value) {
+        ensureCapacity(length + value.length);
+        System.arraycopy(value, 0, bytes, length, value.length);
+        length += value.length;
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint (7 bits per byte, high bit set on all but the last byte).
+     *
+     * @param value The value, treated as unsigned.
+     */
+    public void writeVarInt(int value) {
+        ensureCapacity(length + 5);
+        while ((value & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint of up to 64 bits.
+     *
+     * @param value The value, treated as unsigned.
+     */
+    public void writeVarLong(long value) {
+        ensureCapacity(length + 10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Writes a signed value as a zigzag-mapped varint so small negative deltas stay short.
+     *
+     * @param value The signed value.
+     */
+    public void writeZigZag(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeLong(long value) {
+        ensureCapacity(length + 8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            bytes[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.swinggradleapp.datatransfer;
+
+/**
+ * BoardAnnouncement names the board a login response is for, and its size, ahead of the response body.
+ * <p>
+ * The server sends it in the {@link #HEADER} response header, so a client can open the WebSocket to the
+ * board while the body is still downloading. A login that announces its board leaves the board out of the
+ * body; the client receives it with the WebSocket's CONFIRM. In the header an announcement
+ * is written as "widthxheight boardId"; the board id comes last, so it may hold any character but line breaks.
+ */
+public final class BoardAnnouncement {
+    public static final String HEADER = "X-Whiteboard-Login-Board";
+
+    private final String boardId;
+    private final int width;
+    private final int height;
+
+    public BoardAnnouncement(String boardId, int width, int height) {
+        this.boardId = boardId;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Parses a header value.
+     *
+     * @param value "widthxheight boardId".
+     * @return The announcement, or null if the value is missing or malformed.
+     */
+    public static BoardAnnouncement parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            int space = value.indexOf(' ');
+            int x = value.indexOf('x');
+            if (space < 0 || x < 0 || x > space || space == value.length() - 1) {
+                return null;
+            }
+            int width = Integer.parseInt(value.substring(0, x).trim());
+            int height = Integer.parseInt(value.substring(x + 1, space).trim());
+            return width > 0 && height > 0 ? new BoardAnnouncement(value.substring(space + 1), width, height) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String toHeaderValue() {
+        return width + "x" + height + " " + boardId;
+    }
+
+    public String getBoardId() {
+        return boardId;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public String toString() {
+        return toHeaderValue();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.swinggradleapp.datatransfer;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
+/**
+ * BoardMatrix parses the board matrix sent with the login response and CONFIRM.
+ */
+public final class BoardMatrix {
+    private BoardMatrix() {
+    }
+
+    /**
+     * Parses the board matrix to a 2D int array, either from the compact snapshot format
+     * or from the plain JsonArray of rows.
+     *
+     * @param matrixData The matrix field: a base64 snapshot string or a JsonArray of rows.
+     * @param encoding   The snapshot encoding field, null for the plain JsonArray.
+     * @return The 2D int array, indexed [row][column].
+     * @throws IllegalArgumentException  If the matrix is empty.
+     * @throws IndexOutOfBoundsException If the rows have different lengths.
+     */
+    public static int[][] parse(JsonElement matrixData, JsonElement encoding) {
+        if (BoardSnapshotCodec.isEncoded(matrixData, encoding)) {
+            int[][] matrix = BoardSnapshotCodec.decodeBase64(matrixData.getAsString()).toMatrix();
+            if (matrix.length == 0) {
+                throw new IllegalArgumentException("Received empty matrix from server.");
+            }
+            return matrix;
+        }
+
+        JsonArray matrixArray = matrixData.getAsJsonArray();
+        int rows = matrixArray.size();
+        if (rows == 0) {
+            throw new IllegalArgumentException("Received empty matrix from server.");
+        }
+        int cols = matrixArray.get(0).getAsJsonArray().size();
+        int[][] matrix = new int[rows][cols];
+
+        for (int y = 0; y < rows; y++) { // Iterate over rows (y)
+            JsonArray row = matrixArray.get(y).getAsJsonArray();
+            if (row.size() != cols) {
+                throw new IndexOutOfBoundsException("Row " + y + " has " + row.size() + " columns; expected " + cols + ".");
+            }
+            for (int x = 0; x < cols; x++) { // Iterate over columns (x)
+                matrix[y][x] = row.get(x).getAsInt();
+            }
+        }
+
+        return matrix;
+    }
+
+    /**
+     * Parses the board matrix straight to a packed board, without building the int[][] in between.
+     *
+     * @param matrixData The matrix field: a base64 snapshot string or a JsonArray of rows.
+     * @param encoding   The snapshot encoding field, null for the plain JsonArray.
+     * @return The packed board.
+     * @throws IllegalArgumentException  If the matrix is empty.
+     * @throws IndexOutOfBoundsException If the rows have different lengths.
+     */
+    public static PackedBoard parsePacked(JsonElement matrixData, JsonElement encoding) {
+        if (BoardSnapshotCodec.isEncoded(matrixData, encoding)) {
+            PackedBoard board = BoardSnapshotCodec.decodeBase64(matrixData.getAsString());
+            if (board.getHeight() == 0) {
+                throw new IllegalArgumentException("Received empty matrix from server.");
+            }
+            return board;
+        }
+
+        JsonArray matrixArray = matrixData.getAsJsonArray();
+        int rows = matrixArray.size();
+        if (rows == 0) {
+            throw new IllegalArgumentException("Received empty matrix from server.");
+        }
+        int cols = matrixArray.get(0).getAsJsonArray().size();
+        int wordsPerRow = PackedBoard.wordsPerRow(cols);
+        long[] words = new long[wordsPerRow * rows];
+
+        for (int y = 0; y < rows; y++) {
+            JsonArray row = matrixArray.get(y).getAsJsonArray();
+            if (row.size() != cols) {
+                throw new IndexOutOfBoundsException("Row " + y + " has " + row.size() + " columns; expected " + cols + ".");
+            }
+            for (int x = 0; x < cols; x++) {
+                if (row.get(x).getAsInt() == 1) {
+                    words[y * wordsPerRow + (x >>> 6)] |= 1L << (x & 63);
+                }
+            }
+        }
+
+        return new PackedBoard(cols, rows, words);
+    }
+}
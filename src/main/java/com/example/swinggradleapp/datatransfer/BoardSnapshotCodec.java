@@ -0,0 +1,158 @@
+package com.example.swinggradleapp.datatransfer;
+
+import com.google.gson.JsonElement;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * BoardSnapshotCodec encodes whole-board snapshots as run-length compressed, bit-packed words.
+ * <p>
+ * Layout:
+ * <pre>
+ *   byte    'B', 'S', FORMAT_VERSION
+ *   varint  width, height
+ *   runs until all words are covered:
+ *     varint  (count &lt;&lt; 2) | kind
+ *     kind 0: count all-white words
+ *     kind 1: count all-black words
+ *     kind 2: count literal words follow, 8 bytes each
+ * </pre>
+ * An empty 800x600 board encodes to a handful of bytes; a noisy one costs at most the 60 KB of raw bits
+ * plus a few bytes of run headers.
+ * <p>
+ * On the wire the snapshot travels base64 encoded inside the existing JSON messages, with a sibling
+ * "..._encoding" field set to {@link #NAME}. Clients ask for it with the {@link #HEADER} request header;
+ * servers that ignore the header keep sending the plain JSON matrix.
+ */
+public final class BoardSnapshotCodec {
+    public static final String NAME = "rle";
+    public static final String HEADER = "X-Whiteboard-Snapshot-Formats";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int RUN_ZERO = 0;
+    private static final int RUN_ONES = 1;
+    private static final int RUN_LITERAL = 2;
+
+    private BoardSnapshotCodec() {
+    }
+
+    /**
+     * Encodes a board snapshot.
+     *
+     * @param board The board to encode.
+     * @return The encoded bytes.
+     */
+    public static byte[] encode(PackedBoard board) {
+        long[] words = board.getWords();
+        BinaryWriter writer = new BinaryWriter(64);
+        writer.writeByte('B');
+        writer.writeByte('S');
+        writer.writeByte(FORMAT_VERSION);
+        writer.writeVarInt(board.getWidth());
+        writer.writeVarInt(board.getHeight());
+
+        int i = 0;
+        while (i < words.length) {
+            long word = words[i];
+            if (word == 0L || word == -1L) {
+                int end = i + 1;
+                while (end < words.length && words[end] == word) {
+                    end++;
+                }
+                writer.writeVarInt(((end - i) << 2) | (word == 0L ? RUN_ZERO : RUN_ONES));
+                i = end;
+            } else {
+                int end = i + 1;
+                while (end < words.length && words[end] != 0L && words[end] != -1L) {
+                    end++;
+                }
+                writer.writeVarInt(((end - i) << 2) | RUN_LITERAL);
+                for (int w = i; w < end; w++) {
+                    writer.writeLong(words[w]);
+                }
+                i = end;
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes a board snapshot.
+     *
+     * @param data The encoded bytes.
+     * @return The decoded board.
+     */
+    public static PackedBoard decode(byte[] data) {
+        return decode(data, 0, data.length);
+    }
+
+    /**
+     * Decodes a board snapshot embedded in a larger message.
+     *
+     * @param data   The message bytes.
+     * @param offset Where the snapshot starts.
+     * @param length The snapshot length in bytes.
+     * @return The decoded board.
+     */
+    public static PackedBoard decode(byte[] data, int offset, int length) {
+        BinaryReader reader = new BinaryReader(data, offset, length);
+        if (reader.readByte() != 'B' || reader.readByte() != 'S') {
+            throw new IllegalArgumentException("Not a board snapshot.");
+        }
+        int version = reader.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported board snapshot version: " + version);
+        }
+        int width = reader.readVarInt();
+        int height = reader.readVarInt();
+        long[] words = new long[PackedBoard.wordsPerRow(width) * height];
+
+        int i = 0;
+        while (i < words.length) {
+            int run = reader.readVarInt();
+            int count = run >>> 2;
+            if (count == 0 || i + count > words.length) {
+                throw new IllegalArgumentException("Corrupt board snapshot run at word " + i + ".");
+            }
+            switch (run & 3) {
+                case RUN_ZERO:
+                    break; // Array is already zeroed
+                case RUN_ONES:
+                    Arrays.fill(words, i, i + count, -1L);
+                    break;
+                case RUN_LITERAL:
+                    for (int w = i; w < i + count; w++) {
+                        words[w] = reader.readLong();
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown board snapshot run kind: " + (run & 3));
+            }
+            i += count;
+        }
+        return new PackedBoard(width, height, words);
+    }
+
+    /**
+     * Encodes a snapshot as the base64 string carried in JSON messages.
+     */
+    public static String encodeBase64(PackedBoard board) {
+        return Base64.getEncoder().encodeToString(encode(board));
+    }
+
+    /**
+     * Checks whether a JSON matrix field was sent in this codec's format.
+     *
+     * @param data     The matrix field, either a JSON int[][] or a base64 string.
+     * @param encoding The sibling encoding field, may be null.
+     * @return true if the field should be decoded with {@link #decodeBase64}.
+     */
+    public static boolean isEncoded(JsonElement data, JsonElement encoding) {
+        return encoding != null && NAME.equals(encoding.getAsString()) && data.isJsonPrimitive();
+    }
+
+    public static PackedBoard decodeBase64(String data) {
+        return decode(Base64.getDecoder().decode(data));
+    }
+}
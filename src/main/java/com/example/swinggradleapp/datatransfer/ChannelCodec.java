@@ -0,0 +1,93 @@
+package com.example.swinggradleapp.datatransfer;
+
+import java.util.Arrays;
+
+/**
+ * ChannelCodec tags messages with the board channel they belong to, for the "channels" protocol feature.
+ * <p>
+ * With the feature one connection carries several boards. The board named in the handshake starts in the
+ * foreground: its messages are sent untagged, exactly as without the feature. Every board the client has
+ * opened is given a channel number, announced in the board's CONFIRM or SUBSCRIBED message, and the
+ * updates of background boards arrive coalesced and tagged with it. JSON messages get a leading "ch"
+ * field, binary ones a prefix sharing the header byte of {@link BinaryPointCodec}:
+ * <pre>
+ *   byte    (FORMAT_VERSION &lt;&lt; 4) | TYPE_CHANNEL
+ *   varint  channel
+ *   bytes   the wrapped binary message, itself stamped by {@link SequenceCodec} when resuming is enabled
+ * </pre>
+ * Control messages of the feature:
+ * <ul>
+ *   <li>FOCUS {"board", "resume"?}: make a board the foreground one; the previous one moves to the
+ *   background. The server answers with a CONFIRM for the board, "resumed" from the given
+ *   {@link ResumePoint} if it can. Drawing goes to the foreground board.</li>
+ *   <li>SUBSCRIBE {"board", "resume"}: follow a board in the background from a resume point, for example
+ *   after a reconnect. Answered with SUBSCRIBED {"board", "channel", "live"}; a board that cannot be
+ *   followed from that point is not live and receives no updates.</li>
+ *   <li>UNSUBSCRIBE {"board"}: stop following a background board.</li>
+ *   <li>STALE {"board"}: sent by the server when a background board fell too far behind to be caught up
+ *   with one coalesced update; it stops being live until it is focused again.</li>
+ * </ul>
+ * A reconnecting client names its foreground board in the {@link #BOARD_HEADER} handshake header, which
+ * takes precedence over the boardId in the URI. The legacy text codec cannot be tagged and does not
+ * support the feature.
+ */
+public final class ChannelCodec {
+    public static final String BOARD_HEADER = "X-Whiteboard-Board";
+
+    static final int TYPE_CHANNEL = 6;
+
+    // Marks messages of the foreground board, which carry no channel
+    public static final int NONE = -1;
+
+    private ChannelCodec() {
+    }
+
+    /**
+     * Tags an encoded update with its channel.
+     *
+     * @param channel The channel.
+     * @param message A binary update or a JSON text update.
+     * @return The tagged message.
+     */
+    public static WireMessage wrap(int channel, WireMessage message) {
+        if (message.isBinary()) {
+            byte[] inner = message.getBinary();
+            BinaryWriter writer = new BinaryWriter(inner.length + 6);
+            writer.writeByte((BinaryPointCodec.FORMAT_VERSION << 4) | TYPE_CHANNEL);
+            writer.writeVarInt(channel);
+            writer.writeBytes(inner);
+            return WireMessage.binary(writer.toByteArray());
+        }
+        String text = message.getText();
+        if (!text.startsWith("{")) {
+            throw new IllegalArgumentException("Only binary and JSON messages can carry a channel.");
+        }
+        return WireMessage.text("{\"ch\":" + channel + "," + text.substring(1));
+    }
+
+    public static boolean isBinaryChannel(WireMessage message) {
+        return message.isBinary()
+                && message.getBinary().length > 0
+                && (message.getBinary()[0] & 0xFF) == ((BinaryPointCodec.FORMAT_VERSION << 4) | TYPE_CHANNEL);
+    }
+
+    /**
+     * Reads the channel of a tagged binary message.
+     */
+    public static int channelOf(WireMessage message) {
+        BinaryReader reader = new BinaryReader(message.getBinary());
+        reader.readByte();
+        return reader.readVarInt();
+    }
+
+    /**
+     * Returns the message wrapped by a tagged binary message.
+     */
+    public static WireMessage unwrap(WireMessage message) {
+        byte[] data = message.getBinary();
+        BinaryReader reader = new BinaryReader(data);
+        reader.readByte();
+        reader.readVarInt();
+        return WireMessage.binary(Arrays.copyOfRange(data, reader.getPosition(), data.length));
+    }
+}
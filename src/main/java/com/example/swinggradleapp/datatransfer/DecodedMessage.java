@@ -0,0 +1,76 @@
+package com.example.swinggradleapp.datatransfer;
+
+import com.google.gson.JsonObject;
+
+/**
+ * DecodedMessage is the reusable result of {@link JsonStreamDecoder}.
+ * Point data stays in primitive buffers; only the remaining fields of control messages become JSON trees.
+ */
+public class DecodedMessage {
+    String type;
+    final PointBuffer points = new PointBuffer(512);
+    final PointBuffer centers = new PointBuffer(64);
+    int radius;
+    int pen;
+    long seq;
+    int channel;
+    JsonObject fields = new JsonObject();
+
+    void reset() {
+        type = null;
+        points.clear();
+        centers.clear();
+        radius = 0;
+        pen = 0;
+        seq = SequenceCodec.NONE;
+        channel = ChannelCodec.NONE;
+        fields = new JsonObject();
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the board sequence number the message carries, or {@link SequenceCodec#NONE}.
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Returns the board channel the message belongs to, or {@link ChannelCodec#NONE} for the foreground board.
+     */
+    public int getChannel() {
+        return channel;
+    }
+
+    /**
+     * Returns the DRAW/UPDATE points. The buffer is reused by the next decode.
+     */
+    public PointBuffer getPoints() {
+        return points;
+    }
+
+    /**
+     * Builds the STROKE carried by this message.
+     */
+    public Stroke toStroke() {
+        Stroke stroke = new Stroke(radius, pen, centers.size());
+        for (int i = 0; i < centers.size(); i++) {
+            stroke.add(centers.getX(i), centers.getY(i));
+        }
+        return stroke;
+    }
+
+    /**
+     * Returns every field other than the point data, including "type", as a JsonObject.
+     */
+    public JsonObject toJsonObject() {
+        JsonObject jsonMessage = fields;
+        if (type != null) {
+            jsonMessage.addProperty("type", type);
+        }
+        return jsonMessage;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.swinggradleapp.datatransfer;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * JsonPointCodec encodes points as {"type":..,"points":[{"x":..,"y":..,"pen":..}]}.
+ * This is the format every server understands and the fallback when negotiation fails.
+ */
+public class JsonPointCodec implements PointCodec {
+    public static final String NAME = "json";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public WireMessage encode(String type, PointBuffer points, int from, int to) {
+        // Written by hand rather than through a JsonObject tree; the format is fixed and all values are ints
+        StringBuilder sb = new StringBuilder(32 + (to - from) * 26);
+        sb.append("{\"type\":\"").append(type).append("\",\"points\":[");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                sb.append(',');
+            }
+            sb.append("{\"x\":").append(points.getX(i))
+                    .append(",\"y\":").append(points.getY(i))
+                    .append(",\"pen\":").append(points.getPen(i))
+                    .append('}');
+        }
+        sb.append("]}");
+        return WireMessage.text(sb.toString());
+    }
+
+    @Override
+    public boolean canDecode(WireMessage message) {
+        return !message.isBinary() && message.getText().startsWith("{");
+    }
+
+    @Override
+    public String decode(WireMessage message, PointBuffer out) {
+        JsonObject jsonMessage = JsonParser.parseString(message.getText()).getAsJsonObject();
+        readPoints(jsonMessage.get("points").getAsJsonArray(), out);
+        return jsonMessage.get("type").getAsString();
+    }
+
+    /**
+     * Reads a "points" array into the given buffer.
+     *
+     * @param pointsArray The JsonArray of point objects.
+     * @param out         The buffer receiving the points.
+     */
+    public static void readPoints(JsonArray pointsArray, PointBuffer out) {
+        for (int i = 0; i < pointsArray.size(); i++) {
+            JsonObject pointObj = pointsArray.get(i).getAsJsonObject();
+            int x = pointObj.get("x").getAsInt(); // horizontal
+            int y = pointObj.get("y").getAsInt(); // vertical
+            int pen = pointObj.get("pen").getAsInt();
+            out.add(x, y, pen);
+        }
+    }
+}
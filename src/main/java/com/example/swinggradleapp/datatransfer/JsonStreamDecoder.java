@@ -0,0 +1,104 @@
+package com.example.swinggradleapp.datatransfer;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * JsonStreamDecoder reads JSON messages with a streaming reader.
+ * <p>
+ * "points" arrays go straight into primitive buffers without building a JSON tree, in either shape:
+ * DRAW/UPDATE objects {"x":..,"y":..,"pen":..} or the flat x,y pairs of a STROKE. Any other field is
+ * kept as a JSON tree for the control-message handlers. Fields may arrive in any order.
+ * <p>
+ * Each instance reuses one {@link DecodedMessage} and is not thread-safe.
+ */
+public class JsonStreamDecoder {
+    private final DecodedMessage message = new DecodedMessage();
+
+    /**
+     * Decodes a JSON message.
+     *
+     * @param text The message text.
+     * @return The decoded message, valid until the next call.
+     */
+    public DecodedMessage decode(String text) {
+        message.reset();
+        try (JsonReader reader = new JsonReader(new StringReader(text))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "type":
+                        message.type = reader.nextString();
+                        break;
+                    case "points":
+                        readPoints(reader);
+                        break;
+                    case "radius":
+                        message.radius = reader.nextInt();
+                        break;
+                    case "pen":
+                        message.pen = reader.nextInt();
+                        break;
+                    case "seq":
+                        message.seq = reader.nextLong();
+                        break;
+                    case "ch":
+                        message.channel = reader.nextInt();
+                        break;
+                    default:
+                        message.fields.add(name, JsonParser.parseReader(reader));
+                }
+            }
+            reader.endObject();
+        } catch (IOException | IllegalStateException e) {
+            throw new IllegalArgumentException("Malformed JSON message: " + e.getMessage(), e);
+        }
+        return message;
+    }
+
+    private void readPoints(JsonReader reader) throws IOException {
+        reader.beginArray();
+        if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+            while (reader.hasNext()) {
+                readPointObject(reader);
+            }
+        } else {
+            // STROKE centers: x0,y0,x1,y1,...
+            while (reader.hasNext()) {
+                int x = reader.nextInt();
+                int y = reader.nextInt();
+                message.centers.add(x, y, 0);
+            }
+        }
+        reader.endArray();
+    }
+
+    private void readPointObject(JsonReader reader) throws IOException {
+        int x = 0;
+        int y = 0;
+        int pen = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "x":
+                    x = reader.nextInt();
+                    break;
+                case "y":
+                    y = reader.nextInt();
+                    break;
+                case "pen":
+                    pen = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        message.points.add(x, y, pen);
+    }
+}
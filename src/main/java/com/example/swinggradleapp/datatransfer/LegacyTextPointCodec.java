@@ -0,0 +1,60 @@
+package com.example.swinggradleapp.datatransfer;
+
+/**
+ * LegacyTextPointCodec speaks the original line format handled by BoardDataTransfer:
+ * one "DRAW:x,y,colorHex" line per point, batched by newlines.
+ */
+public class LegacyTextPointCodec implements PointCodec {
+    public static final String NAME = "text";
+
+    private static final String BLACK = "#000000";
+    private static final String WHITE = "#FFFFFF";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public WireMessage encode(String type, PointBuffer points, int from, int to) {
+        StringBuilder sb = new StringBuilder((to - from) * 24);
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                sb.append('\n');
+            }
+            sb.append(type).append(':')
+                    .append(points.getX(i)).append(',')
+                    .append(points.getY(i)).append(',')
+                    .append(points.getPen(i) == 1 ? BLACK : WHITE);
+        }
+        return WireMessage.text(sb.toString());
+    }
+
+    @Override
+    public boolean canDecode(WireMessage message) {
+        if (message.isBinary()) {
+            return false;
+        }
+        String text = message.getText();
+        return text.startsWith("DRAW:") || text.startsWith("UPDATE:");
+    }
+
+    @Override
+    public String decode(WireMessage message, PointBuffer out) {
+        String type = null;
+        for (String line : message.getText().split("\n")) {
+            int colon = line.indexOf(':');
+            String[] parts = colon < 0 ? new String[0] : line.substring(colon + 1).split(",");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid text point format: " + line);
+            }
+            type = line.substring(0, colon);
+            // The legacy format carried doubles; the board works on whole pixels
+            int x = (int) Double.parseDouble(parts[0]);
+            int y = (int) Double.parseDouble(parts[1]);
+            int pen = parts[2].trim().equalsIgnoreCase(WHITE) ? 0 : 1;
+            out.add(x, y, pen);
+        }
+        return type;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.swinggradleapp.datatransfer;
+
+/**
+ * PackedBoard holds a board at one bit per pixel, row-major, with each row padded to whole 64-bit words.
+ */
+public class PackedBoard {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    /**
+     * Creates a board over the given words without copying them.
+     *
+     * @param width  Width in pixels (columns).
+     * @param height Height in pixels (rows).
+     * @param words  The packed pixels; must hold {@code wordsPerRow(width) * height} words.
+     */
+    public PackedBoard(int width, int height, long[] words) {
+        if (words.length != wordsPerRow(width) * height) {
+            throw new IllegalArgumentException("Expected " + wordsPerRow(width) * height + " words for a "
+                    + width + "x" + height + " board, got " + words.length + ".");
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = wordsPerRow(width);
+        this.words = words;
+    }
+
+    public PackedBoard(int width, int height) {
+        this(width, height, new long[wordsPerRow(width) * height]);
+    }
+
+    /**
+     * Returns the number of 64-bit words used to store one row of the given width.
+     */
+    public static int wordsPerRow(int width) {
+        return (width + 63) >>> 6;
+    }
+
+    /**
+     * Packs a 0/1 matrix indexed as matrix[y][x].
+     *
+     * @param matrix The matrix to pack.
+     * @return The packed board.
+     */
+    public static PackedBoard fromMatrix(int[][] matrix) {
+        int height = matrix.length;
+        int width = height == 0 ? 0 : matrix[0].length;
+        PackedBoard board = new PackedBoard(width, height);
+        for (int y = 0; y < height; y++) {
+            int[] row = matrix[y];
+            for (int x = 0; x < width; x++) {
+                if (row[x] == 1) {
+                    board.words[y * board.wordsPerRow + (x >>> 6)] |= 1L << (x & 63);
+                }
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Unpacks the board into a 0/1 matrix indexed as matrix[y][x].
+     */
+    public int[][] toMatrix() {
+        int[][] matrix = new int[height][width];
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * wordsPerRow;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = words[rowStart + w];
+                // Only visit set bits; mostly-empty boards skip whole words
+                while (word != 0) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    matrix[y][(w << 6) + bit] = 1;
+                    word &= word - 1;
+                }
+            }
+        }
+        return matrix;
+    }
+
+    public int get(int x, int y) {
+        return (int) (words[y * wordsPerRow + (x >>> 6)] >>> (x & 63)) & 1;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Returns the backing words. Callers must not modify them.
+     */
+    public long[] getWords() {
+        return words;
+    }
+}
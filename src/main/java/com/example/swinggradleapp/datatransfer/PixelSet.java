@@ -0,0 +1,121 @@
+package com.example.swinggradleapp.datatransfer;
+
+import java.util.Arrays;
+
+/**
+ * PixelSet is a set of board pixels backed by a bitmask plus an insertion-ordered index list.
+ * <p>
+ * The bitmask is split into {@link Tiles} that are allocated on first use and kept for reuse, so a set over
+ * a very large board only costs memory for the regions actually touched. Adding, iterating and clearing
+ * allocate nothing once the touched tiles and the index list have grown to the working size, and clearing
+ * only touches the bits that were set. Not thread-safe.
+ */
+public class PixelSet {
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final long[][] tiles;
+    private long[] indices;
+    private int size;
+
+    public PixelSet(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.tilesX = Tiles.count(width);
+        this.tiles = new long[tilesX * Tiles.count(height)][];
+        this.indices = new long[1024];
+    }
+
+    /**
+     * Adds a pixel.
+     *
+     * @param x The column, must be inside the board.
+     * @param y The row, must be inside the board.
+     * @return true if the pixel was not in the set yet.
+     */
+    public boolean add(int x, int y) {
+        int tileIndex = (y >>> Tiles.SHIFT) * tilesX + (x >>> Tiles.SHIFT);
+        long[] tile = tiles[tileIndex];
+        if (tile == null) {
+            tile = new long[Tiles.WORDS];
+            tiles[tileIndex] = tile;
+        }
+        int word = ((y & Tiles.MASK) * Tiles.WORDS_PER_ROW) + ((x & Tiles.MASK) >>> 6);
+        long bit = 1L << x;
+        if ((tile[word] & bit) != 0) {
+            return false;
+        }
+        tile[word] |= bit;
+        if (size == indices.length) {
+            indices = Arrays.copyOf(indices, size * 2);
+        }
+        indices[size++] = (long) y * width + x;
+        return true;
+    }
+
+    public boolean contains(int x, int y) {
+        long[] tile = tiles[(y >>> Tiles.SHIFT) * tilesX + (x >>> Tiles.SHIFT)];
+        if (tile == null) {
+            return false;
+        }
+        return (tile[((y & Tiles.MASK) * Tiles.WORDS_PER_ROW) + ((x & Tiles.MASK) >>> 6)] & (1L << x)) != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the column of the pixel added at the given position.
+     */
+    public int getX(int position) {
+        return (int) (indices[position] % width);
+    }
+
+    /**
+     * Returns the row of the pixel added at the given position.
+     */
+    public int getY(int position) {
+        return (int) (indices[position] / width);
+    }
+
+    /**
+     * Appends the pixels added at positions [from, to) to a point buffer.
+     *
+     * @param from First position, inclusive.
+     * @param to   Last position, exclusive.
+     * @param pen  The pen value to give every point.
+     * @param out  The receiving buffer.
+     */
+    public void copyTo(int from, int to, int pen, PointBuffer out) {
+        for (int i = from; i < to; i++) {
+            long index = indices[i];
+            out.add((int) (index % width), (int) (index / width), pen);
+        }
+    }
+
+    /**
+     * Empties the set, clearing only the bits that were set.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            int x = getX(i);
+            int y = getY(i);
+            tiles[(y >>> Tiles.SHIFT) * tilesX + (x >>> Tiles.SHIFT)]
+                    [((y & Tiles.MASK) * Tiles.WORDS_PER_ROW) + ((x & Tiles.MASK) >>> 6)] &= ~(1L << x);
+        }
+        size = 0;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.swinggradleapp.datatransfer;
+
+import java.util.Arrays;
+
+/**
+ * PointBuffer is a growable batch of points stored in primitive arrays.
+ * It is the unit that the wire codecs encode and decode.
+ */
+public class PointBuffer {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] xs;
+    private int[] ys;
+    private byte[] pens;
+    private int size;
+
+    public PointBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PointBuffer(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        this.pens = new byte[capacity];
+    }
+
+    /**
+     * Appends a point to the buffer.
+     *
+     * @param x   The column (x-coordinate).
+     * @param y   The row (y-coordinate).
+     * @param pen 1 for pen (black), 0 for eraser (white).
+     */
+    public void add(int x, int y, int pen) {
+        ensureCapacity(size + 1);
+        xs[size] = x;
+        ys[size] = y;
+        pens[size] = (byte) pen;
+        size++;
+    }
+
+    /**
+     * Appends the points in the range [from, to) of another buffer.
+     *
+     * @param other The buffer to copy from.
+     * @param from  First index, inclusive.
+     * @param to    Last index, exclusive.
+     */
+    public void addAll(PointBuffer other, int from, int to) {
+        int count = to - from;
+        ensureCapacity(size + count);
+        System.arraycopy(other.xs, from, xs, size, count);
+        System.arraycopy(other.ys, from, ys, size, count);
+        System.arraycopy(other.pens, from, pens, size, count);
+        size += count;
+    }
+
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    public int getPen(int index) {
+        return pens[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Empties the buffer while keeping its backing arrays for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns a new buffer holding a copy of the points in [from, to).
+     *
+     * @param from First index, inclusive.
+     * @param to   Last index, exclusive.
+     * @return The copied range.
+     */
+    public PointBuffer copyRange(int from, int to) {
+        PointBuffer copy = new PointBuffer(to - from);
+        copy.addAll(this, from, to);
+        return copy;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > xs.length) {
+            int capacity = Math.max(required, xs.length * 2);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            pens = Arrays.copyOf(pens, capacity);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.swinggradleapp.datatransfer;
+
+/**
+ * PointCodec converts DRAW/UPDATE point batches to and from their wire representation.
+ */
+public interface PointCodec {
+    /**
+     * Returns the name this codec is advertised under during negotiation.
+     */
+    String getName();
+
+    /**
+     * Encodes the points in [from, to) as a single message.
+     *
+     * @param type   The message type, "DRAW" or "UPDATE".
+     * @param points The points to encode.
+     * @param from   First index, inclusive.
+     * @param to     Last index, exclusive.
+     * @return The encoded message.
+     */
+    WireMessage encode(String type, PointBuffer points, int from, int to);
+
+    /**
+     * Checks whether a message is in this codec's format.
+     *
+     * @param message The incoming message.
+     * @return true if {@link #decode} can handle it.
+     */
+    boolean canDecode(WireMessage message);
+
+    /**
+     * Decodes a message, appending its points to the given buffer.
+     *
+     * @param message The incoming message.
+     * @param out     The buffer receiving the decoded points.
+     * @return The message type, "DRAW" or "UPDATE".
+     */
+    String decode(WireMessage message, PointBuffer out);
+}
@@ -0,0 +1,108 @@
+package com.example.swinggradleapp.datatransfer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PointCodecs is the registry of wire codecs and picks the cheapest format both ends support.
+ * <p>
+ * The client lists its codecs, cheapest first, in the {@link #HEADER} handshake header. The server
+ * answers with its own list, either in the same response header or as a "codecs" array in CONFIRM.
+ * Servers that know nothing about negotiation keep getting JSON.
+ */
+public final class PointCodecs {
+    public static final String HEADER = "X-Whiteboard-Codecs";
+
+    // Ordered from cheapest to most expensive on the wire
+    private static final List<PointCodec> ALL = List.of(
+            new BinaryPointCodec(),
+            new JsonPointCodec(),
+            new LegacyTextPointCodec());
+
+    private static final PointCodec DEFAULT = forName(JsonPointCodec.NAME);
+
+    private PointCodecs() {
+    }
+
+    /**
+     * Returns the codec used before (or without) negotiation.
+     */
+    public static PointCodec getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Looks up a codec by its advertised name.
+     *
+     * @param name The codec name.
+     * @return The codec, or null if unknown.
+     */
+    public static PointCodec forName(String name) {
+        for (PointCodec codec : ALL) {
+            if (codec.getName().equalsIgnoreCase(name.trim())) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the comma separated list of codec names to advertise, filtered by the enabled names
+     * and in preference order.
+     *
+     * @param enabled Comma separated codec names enabled locally.
+     * @return The value for the {@link #HEADER} header.
+     */
+    public static String advertise(String enabled) {
+        List<String> names = new ArrayList<>();
+        for (PointCodec codec : ALL) {
+            if (contains(enabled, codec.getName())) {
+                names.add(codec.getName());
+            }
+        }
+        return String.join(",", names);
+    }
+
+    /**
+     * Picks the cheapest codec that both ends support.
+     *
+     * @param local  Comma separated codec names enabled locally.
+     * @param remote Comma separated codec names announced by the peer, may be null.
+     * @return The agreed codec, or the default if there is no overlap.
+     */
+    public static PointCodec negotiate(String local, String remote) {
+        if (remote == null || remote.isEmpty()) {
+            return DEFAULT;
+        }
+        for (PointCodec codec : ALL) {
+            if (contains(local, codec.getName()) && contains(remote, codec.getName())) {
+                return codec;
+            }
+        }
+        return DEFAULT;
+    }
+
+    /**
+     * Finds the codec able to decode an incoming message.
+     *
+     * @param message The incoming message.
+     * @return The matching codec, or null if none can decode it.
+     */
+    public static PointCodec forMessage(WireMessage message) {
+        for (PointCodec codec : ALL) {
+            if (codec.canDecode(message)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(String list, String name) {
+        for (String entry : list.split(",")) {
+            if (entry.trim().equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
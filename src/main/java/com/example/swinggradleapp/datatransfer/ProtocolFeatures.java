@@ -0,0 +1,52 @@
+package com.example.swinggradleapp.datatransfer;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * ProtocolFeatures lists optional protocol extensions both ends must agree on before use.
+ * <p>
+ * The client sends the features it understands in the {@link #HEADER} handshake header; the server
+ * answers with the ones it enables, in the same response header or as a "features" array in CONFIRM.
+ */
+public final class ProtocolFeatures {
+    public static final String HEADER = "X-Whiteboard-Features";
+
+    // Vector STROKE messages instead of rasterized DRAW points
+    public static final String STROKE = "stroke";
+
+    // Board synchronized per tile with TILE/TILE_REQUEST instead of one dense matrix, see TileCodec
+    public static final String TILES = "tiles";
+
+    // Board updates carry sequence numbers and a reconnecting client resumes from the last one, see SequenceCodec
+    public static final String RESUME = "resume";
+
+    // Several boards over one connection, the background ones as coalesced updates, see ChannelCodec
+    public static final String CHANNELS = "channels";
+
+    // Sampled DRAW/STROKE messages carry a trace stamp the server echoes back, see TraceCodec
+    public static final String TRACE = "trace";
+
+    private ProtocolFeatures() {
+    }
+
+    /**
+     * Parses a comma separated feature list.
+     *
+     * @param list The list, may be null.
+     * @return The features, lower-cased.
+     */
+    public static Set<String> parse(String list) {
+        if (list == null || list.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> features = new LinkedHashSet<>();
+        for (String entry : list.split(",")) {
+            if (!entry.trim().isEmpty()) {
+                features.add(entry.trim().toLowerCase());
+            }
+        }
+        return Collections.unmodifiableSet(features);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.swinggradleapp.datatransfer;
+
+/**
+ * ResumePoint identifies a board state a client can resume from: the board's epoch and the sequence
+ * number of the last update included.
+ * <p>
+ * The epoch is chosen by the server when it creates the board, so sequence numbers from a board that was
+ * since recreated (for example after a server restart) are never mistaken for current ones. It is
+ * {@link SequenceCodec#NONE} when the server did not announce one. In the {@link SequenceCodec#RESUME_HEADER}
+ * header a resume point is written as "epoch:seq", or just "seq" without an epoch.
+ */
+public final class ResumePoint {
+    private final long epoch;
+    private final long seq;
+
+    public ResumePoint(long epoch, long seq) {
+        this.epoch = epoch;
+        this.seq = seq;
+    }
+
+    /**
+     * Parses a header value.
+     *
+     * @param value "epoch:seq" or "seq".
+     * @return The resume point, or null if the value is malformed.
+     */
+    public static ResumePoint parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            int colon = value.indexOf(':');
+            if (colon < 0) {
+                return new ResumePoint(SequenceCodec.NONE, Long.parseLong(value.trim()));
+            }
+            return new ResumePoint(Long.parseLong(value.substring(0, colon).trim()), Long.parseLong(value.substring(colon + 1).trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String toHeaderValue() {
+        return epoch == SequenceCodec.NONE ? Long.toString(seq) : epoch + ":" + seq;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    @Override
+    public String toString() {
+        return toHeaderValue();
+    }
+}
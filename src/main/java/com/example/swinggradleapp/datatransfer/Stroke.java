@@ -0,0 +1,85 @@
+package com.example.swinggradleapp.datatransfer;
+
+import java.util.Arrays;
+
+/**
+ * Stroke is a polyline of pen centers drawn with a single radius and pen.
+ * Receivers rasterize it locally with {@link StrokeRasterizer} instead of receiving every pixel.
+ */
+public class Stroke {
+    private final int radius;
+    private final int pen;
+    private int[] xs;
+    private int[] ys;
+    private int size;
+
+    public Stroke(int radius, int pen) {
+        this(radius, pen, 16);
+    }
+
+    public Stroke(int radius, int pen, int initialCapacity) {
+        this.radius = radius;
+        this.pen = pen;
+        this.xs = new int[Math.max(1, initialCapacity)];
+        this.ys = new int[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Appends a center point, skipping exact repeats of the previous one.
+     *
+     * @param x The column (x-coordinate).
+     * @param y The row (y-coordinate).
+     */
+    public void add(int x, int y) {
+        if (size > 0 && xs[size - 1] == x && ys[size - 1] == y) {
+            return;
+        }
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    /**
+     * Returns a copy of the centers in [from, to) as a stroke with the same radius and pen.
+     * Consecutive segments should share their boundary center so the rasterized line stays connected.
+     *
+     * @param from First index, inclusive.
+     * @param to   Last index, exclusive.
+     * @return The segment.
+     */
+    public Stroke segment(int from, int to) {
+        Stroke segment = new Stroke(radius, pen, to - from);
+        for (int i = from; i < to; i++) {
+            segment.add(xs[i], ys[i]);
+        }
+        return segment;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public int getPen() {
+        return pen;
+    }
+
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.swinggradleapp.datatransfer;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * StrokeCodec encodes STROKE messages.
+ * <p>
+ * JSON: {"type":"STROKE","radius":r,"pen":p,"points":[x0,y0,x1,y1,...]}
+ * <p>
+ * Binary, sharing the header byte of {@link BinaryPointCodec}:
+ * <pre>
+ *   byte    (FORMAT_VERSION &lt;&lt; 4) | TYPE_STROKE
+ *   varint  radius
+ *   byte    pen
+ *   varint  count
+ *   count x { varint zigzag(dx), varint zigzag(dy) }
+ * </pre>
+ */
+public final class StrokeCodec {
+    static final int TYPE_STROKE = 3;
+
+    private StrokeCodec() {
+    }
+
+    public static WireMessage encodeJson(Stroke stroke) {
+        StringBuilder sb = new StringBuilder(64 + stroke.size() * 10);
+        sb.append("{\"type\":\"STROKE\",\"radius\":").append(stroke.getRadius())
+                .append(",\"pen\":").append(stroke.getPen())
+                .append(",\"points\":[");
+        for (int i = 0; i < stroke.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(stroke.getX(i)).append(',').append(stroke.getY(i));
+        }
+        sb.append("]}");
+        return WireMessage.text(sb.toString());
+    }
+
+    /**
+     * Reads a STROKE message that was already parsed to a JsonObject.
+     *
+     * @param jsonMessage The parsed message.
+     * @return The stroke.
+     */
+    public static Stroke decodeJson(JsonObject jsonMessage) {
+        JsonArray points = jsonMessage.get("points").getAsJsonArray();
+        Stroke stroke = new Stroke(jsonMessage.get("radius").getAsInt(), jsonMessage.get("pen").getAsInt(), points.size() / 2);
+        for (int i = 0; i + 1 < points.size(); i += 2) {
+            stroke.add(points.get(i).getAsInt(), points.get(i + 1).getAsInt());
+        }
+        return stroke;
+    }
+
+    public static WireMessage encodeBinary(Stroke stroke) {
+        BinaryWriter writer = new BinaryWriter(8 + stroke.size() * 2);
+        writer.writeByte((BinaryPointCodec.FORMAT_VERSION << 4) | TYPE_STROKE);
+        writer.writeVarInt(stroke.getRadius());
+        writer.writeByte(stroke.getPen());
+        writer.writeVarInt(stroke.size());
+        int prevX = 0;
+        int prevY = 0;
+        for (int i = 0; i < stroke.size(); i++) {
+            writer.writeZigZag(stroke.getX(i) - prevX);
+            writer.writeZigZag(stroke.getY(i) - prevY);
+            prevX = stroke.getX(i);
+            prevY = stroke.getY(i);
+        }
+        return WireMessage.binary(writer.toByteArray());
+    }
+
+    /**
+     * Checks whether a binary message is a STROKE frame.
+     */
+    public static boolean isBinaryStroke(WireMessage message) {
+        return message.isBinary()
+                && message.getBinary().length > 0
+                && (message.getBinary()[0] & 0xFF) == ((BinaryPointCodec.FORMAT_VERSION << 4) | TYPE_STROKE);
+    }
+
+    public static Stroke decodeBinary(WireMessage message) {
+        BinaryReader reader = new BinaryReader(message.getBinary());
+        reader.readByte(); // Header, checked by isBinaryStroke
+        int radius = reader.readVarInt();
+        int pen = reader.readByte();
+        int count = reader.readVarInt();
+        Stroke stroke = new Stroke(radius, pen, count);
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < count; i++) {
+            x += reader.readZigZag();
+            y += reader.readZigZag();
+            stroke.add(x, y);
+        }
+        return stroke;
+    }
+
+    /**
+     * Encodes a stroke in the format matching the negotiated point codec.
+     *
+     * @param stroke The stroke.
+     * @param codec  The negotiated point codec.
+     * @return The encoded message.
+     */
+    public static WireMessage encode(Stroke stroke, PointCodec codec) {
+        return BinaryPointCodec.NAME.equals(codec.getName()) ? encodeBinary(stroke) : encodeJson(stroke);
+    }
+}
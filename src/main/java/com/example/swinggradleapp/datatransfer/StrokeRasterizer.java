@@ -0,0 +1,99 @@
+package com.example.swinggradleapp.datatransfer;
+
+/**
+ * StrokeRasterizer turns a {@link Stroke} into pixels with a deterministic integer brush.
+ * <p>
+ * The centers are joined with Bresenham lines and a disk of every pixel with dx*dx + dy*dy &lt;= r*r is
+ * stamped at each step, clamped to the board the same way local drawing clamps. Every client therefore
+ * produces exactly the same pixels from the same stroke. Each pixel is emitted once per call.
+ * <p>
+ * Local capture builds the same pixels segment by segment with {@link #addSegment}. Instances keep a
+ * board-sized scratch set and are not thread-safe.
+ */
+public class StrokeRasterizer {
+    private final PixelSet seen;
+
+    public StrokeRasterizer(int width, int height) {
+        this.seen = new PixelSet(width, height);
+    }
+
+    /**
+     * Rasterizes a stroke, appending each covered pixel with the stroke's pen to the output buffer.
+     *
+     * @param stroke The stroke to rasterize.
+     * @param out    The buffer receiving the pixels.
+     */
+    public void rasterize(Stroke stroke, PointBuffer out) {
+        if (stroke.isEmpty()) {
+            return;
+        }
+        int radius = stroke.getRadius();
+        addSegment(stroke.getX(0), stroke.getY(0), stroke.getX(0), stroke.getY(0), radius, seen);
+        for (int i = 1; i < stroke.size(); i++) {
+            addSegment(stroke.getX(i - 1), stroke.getY(i - 1), stroke.getX(i), stroke.getY(i), radius, seen);
+        }
+        seen.copyTo(0, seen.size(), stroke.getPen(), out);
+        seen.clear();
+    }
+
+    /**
+     * Adds the pixels one segment of a stroke covers to a set: the disk dx*dx + dy*dy &lt;= r*r around every
+     * step of the Bresenham line from the previous center to the next, clamped to the set's board. The
+     * disk around the previous center itself is left out; pass the same center twice to add just it.
+     * <p>
+     * Local capture adds a stroke this way one center at a time, and ends up with exactly the pixels
+     * {@link #rasterize} produces for the whole stroke on the server and every peer.
+     *
+     * @param x0     The previous center's column.
+     * @param y0     The previous center's row.
+     * @param x1     The next center's column.
+     * @param y1     The next center's row.
+     * @param radius The pen radius.
+     * @param out    The set receiving the pixels; pixels already present are ignored.
+     */
+    public static void addSegment(int x0, int y0, int x1, int y1, int radius, PixelSet out) {
+        if (x0 == x1 && y0 == y1) {
+            stamp(x0, y0, radius, out);
+            return;
+        }
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1;
+        int sy = y0 < y1 ? 1 : -1;
+        int err = dx + dy;
+        int x = x0;
+        int y = y0;
+        while (x != x1 || y != y1) {
+            int e2 = 2 * err;
+            if (e2 >= dy) {
+                err += dy;
+                x += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                y += sy;
+            }
+            stamp(x, y, radius, out);
+        }
+    }
+
+    private static void stamp(int cx, int cy, int radius, PixelSet out) {
+        int maxX = out.getWidth() - 1;
+        int maxY = out.getHeight() - 1;
+        for (int dy = -radius; dy <= radius; dy++) {
+            // The largest dx with dx*dx + dy*dy <= r*r
+            int rest = radius * radius - dy * dy;
+            int halfWidth = (int) Math.sqrt(rest);
+            while (halfWidth * halfWidth > rest) {
+                halfWidth--;
+            }
+            while ((halfWidth + 1) * (halfWidth + 1) <= rest) {
+                halfWidth++;
+            }
+            int y = Math.max(0, Math.min(cy + dy, maxY));
+            for (int dx = -halfWidth; dx <= halfWidth; dx++) {
+                out.add(Math.max(0, Math.min(cx + dx, maxX)), y);
+            }
+        }
+    }
+}
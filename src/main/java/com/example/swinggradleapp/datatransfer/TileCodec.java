@@ -0,0 +1,165 @@
+package com.example.swinggradleapp.datatransfer;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * TileCodec encodes the messages of the "tiles" protocol feature, which lets a board be synchronized one
+ * {@link Tiles tile} at a time instead of as a single dense matrix.
+ * <p>
+ * TILE carries the full contents of one tile as a {@link BoardSnapshotCodec} snapshot of a
+ * {@link Tiles#SIZE}-square board. JSON: {"type":"TILE","tx":..,"ty":..,"data":"&lt;base64 rle&gt;"}.
+ * Binary, sharing the header byte of {@link BinaryPointCodec}:
+ * <pre>
+ *   byte    (FORMAT_VERSION &lt;&lt; 4) | TYPE_TILE
+ *   varint  tx
+ *   varint  ty
+ *   bytes   rle snapshot of the tile
+ * </pre>
+ * TILE_REQUEST asks for tiles: {"type":"TILE_REQUEST","tiles":[tx0,ty0,tx1,ty1,...]}. CONFIRM lists the
+ * non-empty tiles of the board in the same flat form, with "width", "height" and "tile_size".
+ */
+public final class TileCodec {
+    static final int TYPE_TILE = 4;
+
+    private TileCodec() {
+    }
+
+    /**
+     * A decoded TILE message.
+     */
+    public static final class Tile {
+        private final int tileX;
+        private final int tileY;
+        private final PackedBoard board;
+
+        public Tile(int tileX, int tileY, PackedBoard board) {
+            this.tileX = tileX;
+            this.tileY = tileY;
+            this.board = board;
+        }
+
+        public int getTileX() {
+            return tileX;
+        }
+
+        public int getTileY() {
+            return tileY;
+        }
+
+        public PackedBoard getBoard() {
+            return board;
+        }
+    }
+
+    public static WireMessage encodeJson(int tileX, int tileY, PackedBoard tile) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "TILE");
+        message.addProperty("tx", tileX);
+        message.addProperty("ty", tileY);
+        message.addProperty("data", BoardSnapshotCodec.encodeBase64(tile));
+        return WireMessage.text(message.toString());
+    }
+
+    public static WireMessage encodeBinary(int tileX, int tileY, PackedBoard tile) {
+        byte[] snapshot = BoardSnapshotCodec.encode(tile);
+        BinaryWriter writer = new BinaryWriter(12 + snapshot.length);
+        writer.writeByte((BinaryPointCodec.FORMAT_VERSION << 4) | TYPE_TILE);
+        writer.writeVarInt(tileX);
+        writer.writeVarInt(tileY);
+        writer.writeBytes(snapshot);
+        return WireMessage.binary(writer.toByteArray());
+    }
+
+    /**
+     * Encodes a tile in the format matching the negotiated point codec.
+     *
+     * @param tileX The tile column.
+     * @param tileY The tile row.
+     * @param tile  The tile contents; null for a blank tile.
+     * @param codec The negotiated point codec.
+     * @return The encoded message.
+     */
+    public static WireMessage encode(int tileX, int tileY, PackedBoard tile, PointCodec codec) {
+        PackedBoard contents = tile != null ? tile : new PackedBoard(Tiles.SIZE, Tiles.SIZE);
+        return BinaryPointCodec.NAME.equals(codec.getName())
+                ? encodeBinary(tileX, tileY, contents)
+                : encodeJson(tileX, tileY, contents);
+    }
+
+    /**
+     * Checks whether a binary message is a TILE frame.
+     */
+    public static boolean isBinaryTile(WireMessage message) {
+        return message.isBinary()
+                && message.getBinary().length > 0
+                && (message.getBinary()[0] & 0xFF) == ((BinaryPointCodec.FORMAT_VERSION << 4) | TYPE_TILE);
+    }
+
+    public static Tile decodeBinary(WireMessage message) {
+        byte[] bytes = message.getBinary();
+        BinaryReader reader = new BinaryReader(bytes);
+        reader.readByte(); // Header, checked by isBinaryTile
+        int tileX = reader.readVarInt();
+        int tileY = reader.readVarInt();
+        int offset = reader.getPosition();
+        return new Tile(tileX, tileY, checkSize(BoardSnapshotCodec.decode(bytes, offset, bytes.length - offset)));
+    }
+
+    /**
+     * Reads a TILE message that was already parsed to a JsonObject.
+     */
+    public static Tile decodeJson(JsonObject jsonMessage) {
+        return new Tile(jsonMessage.get("tx").getAsInt(), jsonMessage.get("ty").getAsInt(),
+                checkSize(BoardSnapshotCodec.decode(Base64.getDecoder().decode(jsonMessage.get("data").getAsString()))));
+    }
+
+    /**
+     * Builds a TILE_REQUEST for the given tiles.
+     *
+     * @param keys Tile keys as built by {@link Tiles#key}.
+     */
+    public static WireMessage encodeRequest(Iterable<Long> keys) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", "TILE_REQUEST");
+        message.add("tiles", toJson(keys));
+        return WireMessage.text(message.toString());
+    }
+
+    /**
+     * Writes tile keys as a flat [tx0,ty0,tx1,ty1,...] array.
+     */
+    public static JsonArray toJson(Iterable<Long> keys) {
+        JsonArray tiles = new JsonArray();
+        for (long key : keys) {
+            tiles.add(Tiles.keyX(key));
+            tiles.add(Tiles.keyY(key));
+        }
+        return tiles;
+    }
+
+    /**
+     * Reads a flat [tx0,ty0,tx1,ty1,...] array back into tile keys.
+     */
+    public static List<Long> fromJson(JsonElement tiles) {
+        JsonArray array = tiles.getAsJsonArray();
+        List<Long> keys = new ArrayList<>(array.size() / 2);
+        for (int i = 0; i + 1 < array.size(); i += 2) {
+            keys.add(Tiles.key(array.get(i).getAsInt(), array.get(i + 1).getAsInt()));
+        }
+        return keys;
+    }
+
+    private static PackedBoard checkSize(PackedBoard tile) {
+        if (tile.getWidth() != Tiles.SIZE || tile.getHeight() != Tiles.SIZE) {
+            throw new IllegalArgumentException("Tile is " + tile.getWidth() + "x" + tile.getHeight()
+                    + ", expected " + Tiles.SIZE + "x" + Tiles.SIZE + ".");
+        }
+        return tile;
+    }
+}
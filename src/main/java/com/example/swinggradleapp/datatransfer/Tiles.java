@@ -0,0 +1,53 @@
+package com.example.swinggradleapp.datatransfer;
+
+/**
+ * Tiles defines how boards are cut into fixed-size square tiles.
+ * <p>
+ * A tile covers {@link #SIZE} x {@link #SIZE} pixels. Stored as bits, it is a {@link PackedBoard} of that size:
+ * {@link #WORDS_PER_ROW} 64-bit words per row, {@link #WORDS} words in total. Structures that hold per-pixel
+ * state allocate tiles only once something is written to them, so memory follows ink rather than board area.
+ */
+public final class Tiles {
+    public static final int SHIFT = 8;
+    public static final int SIZE = 1 << SHIFT;
+    public static final int MASK = SIZE - 1;
+    public static final int WORDS_PER_ROW = SIZE >>> 6;
+    public static final int WORDS = WORDS_PER_ROW * SIZE;
+
+    private Tiles() {
+    }
+
+    /**
+     * Returns the number of tiles needed to cover the given number of pixels along one axis.
+     */
+    public static int count(int pixels) {
+        return (pixels + MASK) >>> SHIFT;
+    }
+
+    /**
+     * Packs tile coordinates into a single map key.
+     */
+    public static long key(int tileX, int tileY) {
+        return ((long) tileY << 32) | (tileX & 0xFFFFFFFFL);
+    }
+
+    public static int keyX(long key) {
+        return (int) key;
+    }
+
+    public static int keyY(long key) {
+        return (int) (key >>> 32);
+    }
+
+    /**
+     * Returns true if every bit of the tile is clear.
+     */
+    public static boolean isEmpty(long[] tile) {
+        for (long word : tile) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
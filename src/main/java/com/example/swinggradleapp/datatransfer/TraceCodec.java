@@ -0,0 +1,111 @@
+package com.example.swinggradleapp.datatransfer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Arrays;
+
+/**
+ * TraceCodec stamps sampled DRAW and STROKE messages for the "trace" protocol feature, so a client can
+ * measure how long its drawing takes to reach collaborators.
+ * <p>
+ * A traced JSON message gets a leading "trace" object {"client", "cseq", "ts"}; a binary one a prefix
+ * sharing the header byte of {@link BinaryPointCodec}:
+ * <pre>
+ *   byte    (FORMAT_VERSION &lt;&lt; 4) | TYPE_TRACE
+ *   long    client id
+ *   varlong cseq
+ *   long    ts
+ *   bytes   the wrapped binary message
+ * </pre>
+ * Once the server has applied a traced message and queued the resulting UPDATE for every peer, it echoes
+ * the stamp to the sender as TRACE {"client", "cseq", "ts"}, in order with the updates the sender receives.
+ * The legacy text codec has no room for a stamp and does not support the feature.
+ */
+public final class TraceCodec {
+    static final int TYPE_TRACE = 7;
+
+    private TraceCodec() {
+    }
+
+    /**
+     * Stamps an encoded DRAW or STROKE.
+     *
+     * @param stamp   The stamp.
+     * @param message A binary message or a JSON text message.
+     * @return The stamped message.
+     */
+    public static WireMessage wrap(TraceStamp stamp, WireMessage message) {
+        if (message.isBinary()) {
+            byte[] inner = message.getBinary();
+            BinaryWriter writer = new BinaryWriter(inner.length + 27);
+            writer.writeByte((BinaryPointCodec.FORMAT_VERSION << 4) | TYPE_TRACE);
+            writer.writeLong(stamp.getClientId());
+            writer.writeVarLong(stamp.getCseq());
+            writer.writeLong(stamp.getSentNanos());
+            writer.writeBytes(inner);
+            return WireMessage.binary(writer.toByteArray());
+        }
+        String text = message.getText();
+        if (!text.startsWith("{")) {
+            throw new IllegalArgumentException("Only binary and JSON messages can carry a trace stamp.");
+        }
+        return WireMessage.text("{\"trace\":" + toJson(stamp) + "," + text.substring(1));
+    }
+
+    public static boolean isBinaryTraced(WireMessage message) {
+        return message.isBinary()
+                && message.getBinary().length > 0
+                && (message.getBinary()[0] & 0xFF) == ((BinaryPointCodec.FORMAT_VERSION << 4) | TYPE_TRACE);
+    }
+
+    /**
+     * Reads the stamp of a stamped binary message.
+     */
+    public static TraceStamp stampOf(WireMessage message) {
+        BinaryReader reader = new BinaryReader(message.getBinary());
+        reader.readByte();
+        return new TraceStamp(reader.readLong(), reader.readVarLong(), reader.readLong());
+    }
+
+    /**
+     * Returns the message wrapped by a stamped binary message.
+     */
+    public static WireMessage unwrap(WireMessage message) {
+        byte[] data = message.getBinary();
+        BinaryReader reader = new BinaryReader(data);
+        reader.readByte();
+        reader.readLong();
+        reader.readVarLong();
+        reader.readLong();
+        return WireMessage.binary(Arrays.copyOfRange(data, reader.getPosition(), data.length));
+    }
+
+    /**
+     * Reads a stamp from the "trace" object of a JSON message, or the fields of a TRACE echo.
+     *
+     * @param json The object, may be null.
+     * @return The stamp, or null if there is none.
+     */
+    public static TraceStamp fromJson(JsonElement json) {
+        if (json == null || !json.isJsonObject()) {
+            return null;
+        }
+        JsonObject object = json.getAsJsonObject();
+        if (!object.has("client") || !object.has("cseq") || !object.has("ts")) {
+            return null;
+        }
+        return new TraceStamp(object.get("client").getAsLong(), object.get("cseq").getAsLong(), object.get("ts").getAsLong());
+    }
+
+    /**
+     * Builds the TRACE message echoing a stamp to its sender.
+     */
+    public static WireMessage echo(TraceStamp stamp) {
+        return WireMessage.text("{\"type\":\"TRACE\"," + toJson(stamp).substring(1));
+    }
+
+    private static String toJson(TraceStamp stamp) {
+        return "{\"client\":" + stamp.getClientId() + ",\"cseq\":" + stamp.getCseq() + ",\"ts\":" + stamp.getSentNanos() + "}";
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.swinggradleapp.datatransfer;
+
+/**
+ * TraceStamp identifies one sampled outbound message for latency tracing: the sending client, its own
+ * running number for traced messages, and when it was sent. The send time is the client's
+ * {@link System#nanoTime()}; the server treats it as opaque and only echoes it, so clocks never need to agree.
+ */
+public final class TraceStamp {
+    private final long clientId;
+    private final long cseq;
+    private final long sentNanos;
+
+    public TraceStamp(long clientId, long cseq, long sentNanos) {
+        this.clientId = clientId;
+        this.cseq = cseq;
+        this.sentNanos = sentNanos;
+    }
+
+    public long getClientId() {
+        return clientId;
+    }
+
+    public long getCseq() {
+        return cseq;
+    }
+
+    public long getSentNanos() {
+        return sentNanos;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toHexString(clientId) + "#" + cseq;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.swinggradleapp.datatransfer;
+
+/**
+ * WireMessage is a single WebSocket message, either a text frame or a binary frame.
+ */
+public final class WireMessage {
+    private final String text;
+    private final byte[] binary;
+
+    private WireMessage(String text, byte[] binary) {
+        this.text = text;
+        this.binary = binary;
+    }
+
+    public static WireMessage text(String text) {
+        return new WireMessage(text, null);
+    }
+
+    public static WireMessage binary(byte[] binary) {
+        return new WireMessage(null, binary);
+    }
+
+    public boolean isBinary() {
+        return binary != null;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public byte[] getBinary() {
+        return binary;
+    }
+
+    /**
+     * Returns the size of the message payload in bytes.
+     */
+    public int byteLength() {
+        if (isBinary()) {
+            return binary.length;
+        }
+        // Counted rather than encoded, so metering every message allocates nothing
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // An unpaired surrogate is encoded as '?'
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,374 @@
+package com.example.swinggradleapp.loadtest;
+
+import com.example.swinggradleapp.client.BatchSizer;
+import com.example.swinggradleapp.client.Client;
+import com.example.swinggradleapp.datatransfer.BoardSnapshotCodec;
+import com.example.swinggradleapp.datatransfer.DecodedMessage;
+import com.example.swinggradleapp.datatransfer.JsonStreamDecoder;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.PointCodec;
+import com.example.swinggradleapp.datatransfer.PointCodecs;
+import com.example.swinggradleapp.datatransfer.ProtocolFeatures;
+import com.example.swinggradleapp.datatransfer.ResumePoint;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.datatransfer.StrokeCodec;
+import com.example.swinggradleapp.datatransfer.WireMessage;
+import com.example.swinggradleapp.utils.Config;
+import com.example.swinggradleapp.utils.Logger;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * BotClient is a headless {@link Client} for load tests: it logs in and draws like the Swing client, but
+ * keeps no board and shows nothing.
+ * <p>
+ * It speaks the same protocol over the JDK's {@link HttpClient} and {@link WebSocket}, which need no
+ * thread per connection, so thousands of bots fit in one JVM. Received UPDATE and STROKE messages are only
+ * counted, and every STROKE is reported to the shared {@link LatencyProbe} to measure delivery latency.
+ * Bots ask for strokes and tiles but not for resume or channels, so they never hold board state.
+ * Sends may come from any thread, virtual ones included.
+ */
+public class BotClient implements Client {
+    private static final Logger log = Logger.getLogger(BotClient.class);
+
+    // Offered codecs and features; the server's choice arrives in CONFIRM
+    private static final String CODECS = "binary,json";
+    private static final String FEATURES = ProtocolFeatures.STROKE + "," + ProtocolFeatures.TILES;
+    private static final long TIMEOUT_SECONDS = 30;
+    private static final BatchSizer FIXED_BATCHES = new BatchSizer(false);
+
+    private final HttpClient http;
+    private final String username;
+    private final String requestedBoard;
+    private final LoadStats stats;
+
+    private final JsonStreamDecoder jsonDecoder = new JsonStreamDecoder();
+    private final PointBuffer received = new PointBuffer(512);
+    private final CompletableFuture<Void> confirmed = new CompletableFuture<>();
+    private final AtomicLong pingSentNanos = new AtomicLong();
+    // Senders wait for the socket under a lock rather than a monitor, which would pin a virtual thread
+    private final ReentrantLock sendLock = new ReentrantLock();
+    // Whether this bot is counted in LoadStats.connected
+    private final AtomicBoolean counted = new AtomicBoolean();
+
+    private volatile WebSocket webSocket;
+    private volatile PointCodec codec = PointCodecs.getDefault();
+    private volatile Set<String> features = Set.of();
+    private String boardId;
+    private int boardWidth = Config.BOARD_WIDTH;
+    private int boardHeight = Config.BOARD_HEIGHT;
+
+    /**
+     * @param http     The HTTP client to log in and connect with; may be shared between bots.
+     * @param username The name to log in with.
+     * @param boardId  The board to join.
+     * @param stats    Where the bot records what it measures.
+     */
+    public BotClient(HttpClient http, String username, String boardId, LoadStats stats) {
+        this.http = http;
+        this.username = username;
+        this.requestedBoard = boardId;
+        this.stats = stats;
+    }
+
+    /**
+     * Logs in over HTTP, like {@code MainFrame.performLogin}, and learns the board size.
+     *
+     * @return true if the server accepted the login.
+     */
+    public boolean login() {
+        JsonObject payload = new JsonObject();
+        payload.addProperty("username", username);
+        payload.addProperty("board_id", requestedBoard);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(Config.LOGIN_URL))
+                .timeout(Duration.ofSeconds(TIMEOUT_SECONDS))
+                .header("Content-Type", "application/json")
+                .header(BoardSnapshotCodec.HEADER, Config.SNAPSHOT_FORMATS)
+                .header(ProtocolFeatures.HEADER, FEATURES)
+                .POST(HttpRequest.BodyPublishers.ofString(payload.toString()))
+                .build();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200 && response.statusCode() != 201) {
+                log.warn("Login of " + username + " failed with response code: " + response.statusCode());
+                return false;
+            }
+            JsonObject json = JsonParser.parseString(response.body()).getAsJsonObject();
+            boardId = json.get("board_id").getAsString();
+            if (json.has("board_width")) {
+                boardWidth = json.get("board_width").getAsInt();
+                boardHeight = json.get("board_height").getAsInt();
+            }
+            stats.login.record(System.nanoTime() - start);
+            return true;
+        } catch (Exception e) {
+            log.warn("Login of " + username + " failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Opens the WebSocket; the returned future completes once the server's CONFIRM arrived.
+     */
+    @Override
+    public CompletableFuture<Boolean> connect() {
+        String uri = Config.WEBSOCKET_URL + "?boardId=" + URLEncoder.encode(boardId, StandardCharsets.UTF_8)
+                + "&username=" + URLEncoder.encode(username, StandardCharsets.UTF_8);
+        long start = System.nanoTime();
+        return http.newWebSocketBuilder()
+                .connectTimeout(Duration.ofSeconds(TIMEOUT_SECONDS))
+                .header(PointCodecs.HEADER, CODECS)
+                .header(ProtocolFeatures.HEADER, FEATURES)
+                .buildAsync(URI.create(uri), new Listener())
+                .thenCompose(socket -> {
+                    webSocket = socket;
+                    return confirmed.orTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                })
+                .handle((ignored, e) -> {
+                    if (e != null) {
+                        log.warn("Connection of " + username + " failed: " + e.getMessage());
+                        return false;
+                    }
+                    stats.connect.record(System.nanoTime() - start);
+                    counted.set(true);
+                    stats.connected.incrementAndGet();
+                    return true;
+                });
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        send(WireMessage.text(message));
+    }
+
+    @Override
+    public void sendDraw(PointBuffer points) {
+        if (!points.isEmpty()) {
+            send(codec.encode("DRAW", points, 0, points.size()));
+        }
+    }
+
+    @Override
+    public boolean supportsStrokes() {
+        return features.contains(ProtocolFeatures.STROKE);
+    }
+
+    @Override
+    public void sendStroke(Stroke stroke) {
+        if (stroke.isEmpty()) {
+            return;
+        }
+        stats.probe.sent(stroke);
+        send(StrokeCodec.encode(stroke, codec));
+        stats.segmentsSent.incrementAndGet();
+    }
+
+    /**
+     * Sends a ping; the round trip is recorded when the pong arrives.
+     */
+    public void ping() {
+        WebSocket socket = webSocket;
+        if (socket != null && pingSentNanos.compareAndSet(0, System.nanoTime())) {
+            socket.sendPing(ByteBuffer.allocate(0));
+        }
+    }
+
+    @Override
+    public void syncRegion(Rectangle region) {
+        // Bots do not keep the board, so there is nothing to load
+    }
+
+    @Override
+    public BatchSizer getBatchSizer() {
+        // Bots send fixed-size segments of their own; see LoadGenerator
+        return FIXED_BATCHES;
+    }
+
+    @Override
+    public ResumePoint getResumePoint() {
+        return null;
+    }
+
+    @Override
+    public boolean switchBoard(String boardId) {
+        return false;
+    }
+
+    @Override
+    public CompletableFuture<Void> close() {
+        if (counted.compareAndSet(true, false)) {
+            stats.connected.decrementAndGet();
+        }
+        WebSocket socket = webSocket;
+        if (socket != null && !socket.isOutputClosed()) {
+            sendLock.lock();
+            try {
+                socket.sendClose(WebSocket.NORMAL_CLOSURE, "").orTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS).exceptionally(e -> null).join();
+            } finally {
+                sendLock.unlock();
+            }
+            socket.abort();
+        }
+        // Bots close on their own virtual threads, so the close handshake is simply waited for above
+        return CompletableFuture.completedFuture(null);
+    }
+
+    public int getBoardWidth() {
+        return boardWidth;
+    }
+
+    public int getBoardHeight() {
+        return boardHeight;
+    }
+
+    /**
+     * Sends one message and waits until it is handed to the socket; the JDK WebSocket allows only one
+     * outstanding send, so senders take turns.
+     */
+    private void send(WireMessage message) {
+        WebSocket socket = webSocket;
+        if (socket == null || socket.isOutputClosed()) {
+            return;
+        }
+        sendLock.lock();
+        try {
+            if (message.isBinary()) {
+                socket.sendBinary(ByteBuffer.wrap(message.getBinary()), true).join();
+            } else {
+                socket.sendText(message.getText(), true).join();
+            }
+        } catch (Exception e) {
+            stats.sendErrors.incrementAndGet();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private void handleMessage(WireMessage message) {
+        stats.messagesReceived.incrementAndGet();
+        if (message.isBinary()) {
+            if (StrokeCodec.isBinaryStroke(message)) {
+                stats.probe.received(StrokeCodec.decodeBinary(message));
+            } else if (codec.canDecode(message)) {
+                received.clear();
+                codec.decode(message, received);
+            }
+            return;
+        }
+        DecodedMessage decoded = jsonDecoder.decode(message.getText());
+        String type = decoded.getType();
+        if ("STROKE".equals(type)) {
+            stats.probe.received(decoded.toStroke());
+        } else if ("CONFIRM".equals(type)) {
+            JsonObject fields = decoded.toJsonObject();
+            JsonElement codecs = fields.get("codecs");
+            if (codecs != null) {
+                codec = PointCodecs.negotiate(CODECS, join(codecs.getAsJsonArray()));
+            }
+            JsonElement enabled = fields.get("features");
+            if (enabled != null) {
+                features = ProtocolFeatures.parse(join(enabled.getAsJsonArray()));
+            }
+            confirmed.complete(null);
+        }
+    }
+
+    private static String join(JsonArray names) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(names.get(i).getAsString());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reassembles fragmented frames and hands whole messages over. The JDK delivers one frame at a time
+     * per socket, so no locking is needed here.
+     */
+    private class Listener implements WebSocket.Listener {
+        private final StringBuilder text = new StringBuilder();
+        private final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                String message = text.toString();
+                text.setLength(0);
+                handle(WireMessage.text(message));
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            binary.write(bytes, 0, bytes.length);
+            if (last) {
+                byte[] message = binary.toByteArray();
+                binary.reset();
+                handle(WireMessage.binary(message));
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onPong(WebSocket webSocket, ByteBuffer message) {
+            long sent = pingSentNanos.getAndSet(0);
+            if (sent != 0) {
+                stats.rtt.record(System.nanoTime() - sent);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            confirmed.completeExceptionally(new IllegalStateException("Closed: " + statusCode + " " + reason));
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            confirmed.completeExceptionally(error);
+            stats.receiveErrors.incrementAndGet();
+        }
+
+        private void handle(WireMessage message) {
+            try {
+                handleMessage(message);
+            } catch (RuntimeException e) {
+                stats.receiveErrors.incrementAndGet();
+                log.debug("Could not decode a message for " + username + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.swinggradleapp.loadtest;
+
+import com.example.swinggradleapp.datatransfer.Stroke;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LatencyProbe measures how long strokes take from one bot to another.
+ * <p>
+ * All bots share one JVM, and so one clock: the sender notes when it sent each stroke segment, and every
+ * receiver looks the segment up by its contents when the server forwards it. The server relays STROKE
+ * centers unchanged, so the contents identify a segment well enough without any extra field on the wire.
+ * Thread-safe.
+ */
+public class LatencyProbe {
+    private final Map<Long, Long> sentNanos = new ConcurrentHashMap<>();
+    private final LatencyRecorder delivery;
+
+    public LatencyProbe(LatencyRecorder delivery) {
+        this.delivery = delivery;
+    }
+
+    /**
+     * Notes that a segment is about to be sent.
+     */
+    public void sent(Stroke segment) {
+        sentNanos.put(keyOf(segment), System.nanoTime());
+    }
+
+    /**
+     * Records the delivery latency of a received segment, if this JVM sent it.
+     */
+    public void received(Stroke segment) {
+        Long sent = sentNanos.get(keyOf(segment));
+        if (sent != null) {
+            delivery.record(System.nanoTime() - sent);
+        }
+    }
+
+    /**
+     * Forgets segments sent longer ago than the given age; later receipts of them are not counted.
+     *
+     * @param maxAgeNanos The age.
+     */
+    public void expire(long maxAgeNanos) {
+        long cutoff = System.nanoTime() - maxAgeNanos;
+        sentNanos.values().removeIf(sent -> sent < cutoff);
+    }
+
+    private static long keyOf(Stroke segment) {
+        long key = segment.getRadius() * 31L + segment.getPen();
+        key = key * 31 + segment.size();
+        for (int i = 0; i < segment.size(); i++) {
+            key = key * 0x9E3779B97F4A7C15L + ((long) segment.getX(i) << 32 | segment.getY(i));
+        }
+        return key;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.swinggradleapp.loadtest;
+
+import com.example.swinggradleapp.metrics.Histogram;
+
+/**
+ * LatencyRecorder is a named latency {@link Histogram} in microseconds that many threads can record into
+ * without locking, so it does not disturb what it measures.
+ */
+public class LatencyRecorder {
+    private final String name;
+    private final Histogram histogram = new Histogram();
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds; negative values count as zero.
+     */
+    public void record(long nanos) {
+        histogram.record(nanos / 1000);
+    }
+
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    /**
+     * Returns the latency below which the given fraction of recorded values fall.
+     *
+     * @param fraction The fraction, from 0 to 1.
+     * @return The latency in microseconds, within about 6%; 0 if nothing was recorded.
+     */
+    public long percentile(double fraction) {
+        return histogram.percentile(fraction);
+    }
+
+    /**
+     * Returns the largest latency recorded, in microseconds.
+     */
+    public long getMax() {
+        return histogram.getMax();
+    }
+
+    @Override
+    public String toString() {
+        return name + ": n=" + getCount()
+                + " p50=" + millis(percentile(0.5))
+                + " p90=" + millis(percentile(0.9))
+                + " p99=" + millis(percentile(0.99))
+                + " max=" + millis(getMax());
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.1fms", micros / 1000.0);
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.swinggradleapp.loadtest;
+
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.datatransfer.StrokeRasterizer;
+import com.example.swinggradleapp.utils.Config;
+import com.example.swinggradleapp.utils.Logger;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadGenerator runs many headless {@link BotClient}s against a whiteboard server and reports latency.
+ * <p>
+ * Every bot runs on its own virtual thread: it logs in, connects, and then draws strokes from a
+ * {@link StrokeGenerator} with random pauses in between, streaming each stroke in segments at the same
+ * interval as {@code MainFrame} does while dragging. Bots are spread round-robin over a number of boards,
+ * so each stroke is also delivered to the other bots on its board, which is where delivery latency comes
+ * from. Start it with the Gradle task {@code runLoadGenerator}, or directly:
+ * <pre>
+ *   LoadGenerator [bots] [seconds] [boards] [strokesPerSecondPerBot] [rampUpSeconds]
+ * </pre>
+ * Server endpoints come from the same system properties as the Swing client.
+ */
+public class LoadGenerator {
+    private static final Logger log = Logger.getLogger(LoadGenerator.class);
+
+    private static final int DEFAULT_BOTS = 100;
+    private static final int DEFAULT_SECONDS = 60;
+    private static final int DEFAULT_BOARDS = 10;
+    private static final double DEFAULT_STROKES_PER_SECOND = 0.5;
+    private static final int DEFAULT_RAMP_UP_SECONDS = 10;
+
+    // Each HTTP client keeps its own selector thread; sharing one among too many sockets makes it the bottleneck
+    private static final int BOTS_PER_HTTP_CLIENT = 500;
+    private static final long PING_INTERVAL_MS = 1000;
+    private static final long REPORT_INTERVAL_MS = 5000;
+    // Same cap as MainFrame uses per STROKE message
+    private static final int MAX_CENTERS_PER_MESSAGE = 300;
+
+    private final int bots;
+    private final long durationNanos;
+    private final int boards;
+    private final double strokesPerSecond;
+    private final long rampUpNanos;
+    private final LoadStats stats = new LoadStats();
+
+    private volatile long deadline;
+
+    public LoadGenerator(int bots, int seconds, int boards, double strokesPerSecond, int rampUpSeconds) {
+        this.bots = bots;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(seconds);
+        this.boards = Math.max(1, boards);
+        this.strokesPerSecond = strokesPerSecond;
+        this.rampUpNanos = TimeUnit.SECONDS.toNanos(rampUpSeconds);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator(
+                args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BOTS,
+                args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS,
+                args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BOARDS,
+                args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_STROKES_PER_SECOND,
+                args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_RAMP_UP_SECONDS);
+        generator.run();
+    }
+
+    /**
+     * Runs the test until the configured duration has passed and all bots have disconnected.
+     */
+    public void run() throws InterruptedException {
+        log.info("Starting " + bots + " bots on " + boards + " boards for " + TimeUnit.NANOSECONDS.toSeconds(durationNanos)
+                + "s against " + Config.WEBSOCKET_URL + ".");
+        long start = System.nanoTime();
+        deadline = start + rampUpNanos + durationNanos;
+
+        List<HttpClient> httpClients = new ArrayList<>();
+        try (ExecutorService botThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < bots; i++) {
+                if (i % BOTS_PER_HTTP_CLIENT == 0) {
+                    httpClients.add(HttpClient.newBuilder()
+                            .executor(botThreads)
+                            .connectTimeout(Duration.ofSeconds(30))
+                            .build());
+                }
+                HttpClient http = httpClients.get(httpClients.size() - 1);
+                int bot = i;
+                long startAt = start + rampUpNanos * i / Math.max(1, bots);
+                botThreads.execute(() -> runBot(http, bot, startAt));
+            }
+
+            Thread reporter = Thread.ofPlatform().name("load-report").daemon().start(this::report);
+            botThreads.shutdown();
+            botThreads.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            reporter.interrupt();
+        }
+        log.info("Load test finished: " + stats.summary());
+    }
+
+    private void runBot(HttpClient http, int index, long startAt) {
+        try {
+            sleepUntil(startAt);
+            BotClient client = new BotClient(http, "bot-" + index, "load-" + (index % boards), stats);
+            // Bots run on virtual threads, so waiting for the handshake here is cheap
+            if (!client.login() || !client.connect().join()) {
+                stats.failed.incrementAndGet();
+                client.close();
+                return;
+            }
+            try {
+                draw(client, new Random(index));
+            } finally {
+                client.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Draws strokes until the deadline, pausing a random, exponentially distributed time between them so
+     * strokes across all bots arrive like independent users.
+     */
+    private void draw(BotClient client, Random random) throws InterruptedException {
+        StrokeGenerator generator = new StrokeGenerator(client.getBoardWidth(), client.getBoardHeight(), random);
+        StrokeRasterizer rasterizer = null;
+        long nextPing = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            double pause = strokesPerSecond > 0 ? -Math.log(1 - random.nextDouble()) / strokesPerSecond : 1;
+            long strokeAt = System.nanoTime() + (long) (pause * 1e9);
+            while (System.nanoTime() < strokeAt && System.nanoTime() < deadline) {
+                if (System.nanoTime() >= nextPing) {
+                    client.ping();
+                    nextPing = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PING_INTERVAL_MS);
+                }
+                sleepUntil(Math.min(Math.min(strokeAt, deadline), nextPing));
+            }
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+            Stroke stroke = generator.next();
+            if (client.supportsStrokes()) {
+                stream(client, stroke);
+            } else {
+                if (rasterizer == null) {
+                    rasterizer = new StrokeRasterizer(client.getBoardWidth(), client.getBoardHeight());
+                }
+                PointBuffer points = new PointBuffer(stroke.size() * 4);
+                rasterizer.rasterize(stroke, points);
+                client.sendDraw(points);
+            }
+        }
+    }
+
+    /**
+     * Sends a stroke the way it would leave a dragging mouse: a segment of the centers captured so far every
+     * {@link Config#STROKE_FLUSH_INTERVAL_MS}, each starting at the last center of the one before.
+     */
+    private void stream(BotClient client, Stroke stroke) throws InterruptedException {
+        long penDown = System.nanoTime();
+        int sent = 0;
+        while (sent < stroke.size()) {
+            sleepUntil(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Config.STROKE_FLUSH_INTERVAL_MS));
+            long elapsed = System.nanoTime() - penDown;
+            int captured = (int) Math.min(stroke.size(), 1 + elapsed * StrokeGenerator.SAMPLE_RATE_HZ / 1_000_000_000L);
+            int from = Math.max(0, sent - 1);
+            int to = Math.min(captured, from + MAX_CENTERS_PER_MESSAGE);
+            if (to > sent) {
+                client.sendStroke(stroke.segment(from, to));
+                sent = to;
+            }
+        }
+    }
+
+    private void report() {
+        try {
+            while (true) {
+                Thread.sleep(REPORT_INTERVAL_MS);
+                log.info(stats.report());
+            }
+        } catch (InterruptedException e) {
+            // The test is over
+        }
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining = nanoTime - System.nanoTime();
+        if (remaining > 0) {
+            Thread.sleep(Duration.ofNanos(remaining));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.swinggradleapp.loadtest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadStats collects what all bots of a load test measure. Thread-safe.
+ */
+public class LoadStats {
+    // Probe entries older than this are dropped; a stroke that takes longer counts as lost
+    private static final long PROBE_MAX_AGE_NANOS = 30_000_000_000L;
+
+    final LatencyRecorder login = new LatencyRecorder("login");
+    final LatencyRecorder connect = new LatencyRecorder("connect");
+    final LatencyRecorder delivery = new LatencyRecorder("delivery");
+    final LatencyRecorder rtt = new LatencyRecorder("rtt");
+    final LatencyProbe probe = new LatencyProbe(delivery);
+
+    final AtomicInteger connected = new AtomicInteger();
+    final AtomicInteger failed = new AtomicInteger();
+    final AtomicLong segmentsSent = new AtomicLong();
+    final AtomicLong messagesReceived = new AtomicLong();
+    final AtomicLong sendErrors = new AtomicLong();
+    final AtomicLong receiveErrors = new AtomicLong();
+
+    private long lastNanos = System.nanoTime();
+    private long lastSent;
+    private long lastReceived;
+
+    /**
+     * Returns a one-line progress report with rates since the previous report, and forgets old probe
+     * entries. Called from one reporting thread.
+     */
+    String report() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-9, (now - lastNanos) / 1e9);
+        long sent = segmentsSent.get();
+        long received = messagesReceived.get();
+        String line = String.format("bots=%d failed=%d sent/s=%.0f received/s=%.0f errors=%d | %s | %s",
+                connected.get(), failed.get(),
+                (sent - lastSent) / seconds, (received - lastReceived) / seconds,
+                sendErrors.get() + receiveErrors.get(), delivery, rtt);
+        lastNanos = now;
+        lastSent = sent;
+        lastReceived = received;
+        probe.expire(PROBE_MAX_AGE_NANOS);
+        return line;
+    }
+
+    /**
+     * Returns the totals of the whole run.
+     */
+    String summary() {
+        return String.format("sent=%d received=%d sendErrors=%d receiveErrors=%d failed=%d%n  %s%n  %s%n  %s%n  %s",
+                segmentsSent.get(), messagesReceived.get(), sendErrors.get(), receiveErrors.get(), failed.get(),
+                login, connect, delivery, rtt);
+    }
+}
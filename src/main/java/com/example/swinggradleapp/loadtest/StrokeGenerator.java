@@ -0,0 +1,62 @@
+package com.example.swinggradleapp.loadtest;
+
+import com.example.swinggradleapp.datatransfer.Stroke;
+
+import java.util.Random;
+
+/**
+ * StrokeGenerator produces pen paths that resemble hand drawing.
+ * <p>
+ * Each stroke starts at a random point and is sampled at mouse event rate. The pen keeps a steady speed
+ * for the whole stroke, its heading drifts smoothly and it bounces off the board edges. Radius and length
+ * vary per stroke like the pen slider and real gestures do, and about one stroke in ten uses the eraser.
+ * Not thread-safe; use one per bot.
+ */
+public class StrokeGenerator {
+    // Mouse events per second while dragging
+    static final int SAMPLE_RATE_HZ = 120;
+
+    private final int width;
+    private final int height;
+    private final Random random;
+
+    public StrokeGenerator(int width, int height, Random random) {
+        this.width = width;
+        this.height = height;
+        this.random = random;
+    }
+
+    /**
+     * Returns the centers of the next stroke, one per mouse event, so center i is drawn
+     * i / {@link #SAMPLE_RATE_HZ} seconds after the pen went down.
+     */
+    public Stroke next() {
+        int radius = 1 + random.nextInt(10);
+        int pen = random.nextInt(10) == 0 ? 0 : 1;
+        int samples = 2 + (int) ((0.2 + random.nextDouble() * 1.3) * SAMPLE_RATE_HZ);
+        double step = (200 + random.nextDouble() * 1000) / SAMPLE_RATE_HZ;
+        double x = random.nextInt(width);
+        double y = random.nextInt(height);
+        double heading = random.nextDouble() * 2 * Math.PI;
+        double turn = 0;
+
+        Stroke stroke = new Stroke(radius, pen, samples);
+        for (int i = 0; i < samples; i++) {
+            stroke.add((int) x, (int) y);
+            // The turn rate itself wanders, which gives curves rather than jitter
+            turn = turn * 0.9 + random.nextGaussian() * 0.05;
+            heading += turn;
+            x += Math.cos(heading) * step;
+            y += Math.sin(heading) * step;
+            if (x < 0 || x >= width) {
+                heading = Math.PI - heading;
+                x = Math.max(0, Math.min(width - 1, x));
+            }
+            if (y < 0 || y >= height) {
+                heading = -heading;
+                y = Math.max(0, Math.min(height - 1, y));
+            }
+        }
+        return stroke;
+    }
+}
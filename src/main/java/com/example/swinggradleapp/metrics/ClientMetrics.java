@@ -0,0 +1,78 @@
+package com.example.swinggradleapp.metrics;
+
+import com.example.swinggradleapp.utils.Config;
+
+import javax.swing.*;
+import java.nio.file.Paths;
+
+/**
+ * ClientMetrics names the measurements of the client pipeline, all kept in the
+ * {@link MetricsRegistry#getDefault() default registry}. Durations are recorded in microseconds.
+ */
+public final class ClientMetrics {
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.getDefault();
+
+    public static final Meter MESSAGES_IN = REGISTRY.meter("inbound.messages");
+    public static final Meter BYTES_IN = REGISTRY.meter("inbound.bytes");
+    // Points per decoded update; strokes count the pixels they rasterize to
+    public static final Histogram POINTS_IN = REGISTRY.histogram("inbound.pointsPerMessage");
+    public static final Histogram DECODE_MICROS = REGISTRY.histogram("inbound.decodeMicros");
+
+    public static final Meter MESSAGES_OUT = REGISTRY.meter("outbound.messages");
+    public static final Meter BYTES_OUT = REGISTRY.meter("outbound.bytes");
+    // Points per DRAW, or centers per STROKE
+    public static final Histogram POINTS_OUT = REGISTRY.histogram("outbound.pointsPerMessage");
+    // Messages waiting in the outbound queue, sampled whenever one is queued
+    public static final Histogram OUTBOUND_QUEUE_DEPTH = REGISTRY.histogram("outbound.queueDepth");
+
+    // Traced DRAW and STROKE messages: until the server's echo arrives, and until what came with it is painted
+    public static final Histogram TRACE_ROUND_TRIP_MICROS = REGISTRY.histogram("trace.roundTripMicros");
+    public static final Histogram TRACE_ON_SCREEN_MICROS = REGISTRY.histogram("trace.onScreenMicros");
+
+    // Time from invokeLater to the task starting on the EDT
+    public static final Histogram EDT_LAG_MICROS = REGISTRY.histogram("edt.lagMicros");
+    public static final Histogram PAINT_MICROS = REGISTRY.histogram("render.paintMicros");
+
+    private static boolean installed;
+
+    private ClientMetrics() {
+    }
+
+    /**
+     * Publishes the metrics as configured: over JMX, and to {@link Config#METRICS_DUMP_FILE} if set.
+     * Later calls do nothing.
+     */
+    public static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        installed = true;
+        if (Config.METRICS_JMX_ENABLED) {
+            REGISTRY.registerMBean(Config.METRICS_JMX_NAME);
+        }
+        if (Config.METRICS_DUMP_FILE != null) {
+            REGISTRY.startDumping(Paths.get(Config.METRICS_DUMP_FILE), Config.METRICS_DUMP_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * Records a duration that started at the given time.
+     *
+     * @param histogram  The histogram to record into, in microseconds.
+     * @param startNanos The {@link System#nanoTime()} at the start.
+     */
+    public static void recordSince(Histogram histogram, long startNanos) {
+        histogram.record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    /**
+     * {@link SwingUtilities#invokeLater} that records how long the task waited in the EDT queue.
+     */
+    public static void invokeLater(Runnable task) {
+        long posted = System.nanoTime();
+        SwingUtilities.invokeLater(() -> {
+            recordSince(EDT_LAG_MICROS, posted);
+            task.run();
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.swinggradleapp.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Meter counts events, such as messages or bytes, and reports their rate. Marking is lock-free; the rate
+ * is the one over the last full second, refreshed when read.
+ */
+public class Meter {
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final LongAdder count = new LongAdder();
+    private long windowStartNanos = System.nanoTime();
+    private long windowStartCount;
+    private double ratePerSecond;
+
+    public void mark() {
+        count.increment();
+    }
+
+    public void mark(long events) {
+        count.add(events);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the events per second over the last full second.
+     */
+    public synchronized double getRate() {
+        long now = System.nanoTime();
+        long elapsed = now - windowStartNanos;
+        if (elapsed >= WINDOW_NANOS) {
+            long total = count.sum();
+            // A window read long after it ended averages over the whole gap
+            ratePerSecond = (total - windowStartCount) * 1e9 / elapsed;
+            windowStartNanos = now;
+            windowStartCount = total;
+        }
+        return ratePerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d rate=%.1f/s", getCount(), getRate());
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.swinggradleapp.metrics;
+
+import com.example.swinggradleapp.utils.Logger;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * MetricsRegistry holds named meters, histograms and gauges, and publishes them over JMX or to a file.
+ * <p>
+ * Over JMX the registry is one MBean whose attributes are flattened from the metrics: "name.count" and
+ * "name.rate" for a meter; "name.count", "name.mean", "name.p50", "name.p90", "name.p99" and "name.max"
+ * for a histogram; "name" for a gauge. Attributes are computed when read, so an idle registry costs
+ * nothing beyond the recording itself. The file dump holds the same values as "attribute=value" lines and
+ * is replaced atomically, so it can be tailed or collected from a live desktop.
+ * Thread-safe.
+ */
+public class MetricsRegistry {
+    private static final Logger log = Logger.getLogger(MetricsRegistry.class);
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    // Sorted, so dumps and JMX attribute lists come out in a stable order
+    private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Returns the registry the client pipeline records into.
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the meter of a name, creating it on first use.
+     */
+    public Meter meter(String name) {
+        return (Meter) metrics.computeIfAbsent(name, key -> new Meter());
+    }
+
+    /**
+     * Returns the histogram of a name, creating it on first use.
+     */
+    public Histogram histogram(String name) {
+        return (Histogram) metrics.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * Registers a histogram kept elsewhere, replacing any earlier metric of the same name, for example one
+     * of a previous connection.
+     */
+    public void register(String name, Histogram histogram) {
+        metrics.put(name, histogram);
+    }
+
+    /**
+     * Registers a gauge, replacing any earlier gauge of the same name, for example one of a previous
+     * connection.
+     *
+     * @param name  The name.
+     * @param value Reads the current value; called from whichever thread reads the metrics.
+     */
+    public void gauge(String name, LongSupplier value) {
+        metrics.put(name, value);
+    }
+
+    /**
+     * Returns the current value of every metric, flattened into attributes.
+     */
+    public Map<String, Object> values() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+            String name = entry.getKey();
+            Object metric = entry.getValue();
+            if (metric instanceof Meter) {
+                Meter meter = (Meter) metric;
+                values.put(name + ".count", meter.getCount());
+                values.put(name + ".rate", meter.getRate());
+            } else if (metric instanceof Histogram) {
+                Histogram histogram = (Histogram) metric;
+                values.put(name + ".count", histogram.getCount());
+                values.put(name + ".mean", histogram.getMean());
+                values.put(name + ".p50", histogram.percentile(0.5));
+                values.put(name + ".p90", histogram.percentile(0.9));
+                values.put(name + ".p99", histogram.percentile(0.99));
+                values.put(name + ".max", histogram.getMax());
+            } else {
+                values.put(name, ((LongSupplier) metric).getAsLong());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Registers the registry with the platform MBean server.
+     *
+     * @param objectName The MBean name, e.g. "com.example.swinggradleapp:type=Metrics".
+     */
+    public void registerMBean(String objectName) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+                log.info("Registered metrics MBean " + objectName + ".");
+            }
+        } catch (JMException e) {
+            log.warn("Could not register metrics MBean " + objectName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes all values to a file, replacing it atomically.
+     *
+     * @param file The file.
+     */
+    public void dump(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(Instant.now()).append('\n');
+        for (Map.Entry<String, Object> entry : values().entrySet()) {
+            Object value = entry.getValue();
+            sb.append(entry.getKey()).append('=')
+                    .append(value instanceof Double ? String.format("%.2f", (Double) value) : value).append('\n');
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, sb.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Dumps the metrics to a file periodically from a daemon thread, and once more at JVM exit.
+     *
+     * @param file       The file.
+     * @param intervalMs The dump interval.
+     */
+    public synchronized void startDumping(Path file, long intervalMs) {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runnable dump = () -> {
+            try {
+                dump(file);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not dump metrics to " + file + ": " + e.getMessage());
+            }
+        };
+        dumper.scheduleAtFixedRate(dump, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(dump, "metrics-dump-exit"));
+        log.info("Dumping metrics to " + file + " every " + intervalMs + "ms.");
+    }
+
+    /**
+     * Exposes the flattened values as read-only JMX attributes.
+     */
+    private class MetricsMBean implements DynamicMBean {
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Object value = values().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Object> values = values();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                Object value = values.get(attribute);
+                if (value != null) {
+                    list.add(new Attribute(attribute, value));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) {
+            throw new UnsupportedOperationException("Metrics are read-only.");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException("Metrics have no operations.");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Map.Entry<String, Object> entry : values().entrySet()) {
+                String type = entry.getValue() instanceof Double ? "double" : "long";
+                attributes.add(new MBeanAttributeInfo(entry.getKey(), type, entry.getKey(), true, false, false));
+            }
+            return new MBeanInfo(MetricsRegistry.class.getName(), "Whiteboard client metrics",
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.swinggradleapp.model;
+
+import com.example.swinggradleapp.datatransfer.PackedBoard;
+import com.example.swinggradleapp.datatransfer.ResumePoint;
+import com.example.swinggradleapp.datatransfer.SequenceCodec;
+import com.example.swinggradleapp.utils.Logger;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * BoardCache keeps the last known state of a board in a memory-mapped file, so a later session can show
+ * it at once and ask the server only for what changed since.
+ * <p>
+ * The file holds a small header and the board bit-packed like {@link PackedBoard}. As a
+ * {@link BoardListener} the cache rewrites only the words of each changed region, so it stays current
+ * without ever being saved as a whole. The header's {@link ResumePoint} is cleared while the cache is open
+ * and written on {@link #close}, and only when the caller vouches for it; after a crash the cached board
+ * can still be shown, but it is re-synchronized in full.
+ * <p>
+ * All cache files in a directory share one size budget. Opening a cache evicts the least recently used
+ * files of other boards until the new one fits; boards too large for the budget are not cached.
+ * Not thread-safe; used on the EDT with the model.
+ */
+public class BoardCache implements BoardListener {
+    private static final Logger log = Logger.getLogger(BoardCache.class);
+
+    static final String SUFFIX = ".board";
+    // "WBC2"; version 1 files may hold strokes captured differently from how the server drew them
+    private static final int MAGIC = 0x57424332;
+    private static final int HEADER_BYTES = 64;
+    private static final int WIDTH_OFFSET = 4;
+    private static final int HEIGHT_OFFSET = 8;
+    private static final int EPOCH_OFFSET = 16;
+    private static final int SEQ_OFFSET = 24;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final LongBuffer words;
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final boolean restored;
+    private final ResumePoint resumePoint;
+
+    private BoardCache(Path file, FileChannel channel, MappedByteBuffer buffer, int width, int height, boolean restored) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = PackedBoard.wordsPerRow(width);
+        this.restored = restored;
+        long seq = buffer.getLong(SEQ_OFFSET);
+        this.resumePoint = restored && seq != SequenceCodec.NONE ? new ResumePoint(buffer.getLong(EPOCH_OFFSET), seq) : null;
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_BYTES);
+        this.words = body.slice().asLongBuffer();
+    }
+
+    /**
+     * Opens, or creates, the cache file of a board.
+     *
+     * @param directory The cache directory, created if missing.
+     * @param boardId   The board.
+     * @param width     The board width; a cached board of another size is discarded.
+     * @param height    The board height.
+     * @param maxBytes  The size budget of all cache files in the directory together.
+     * @return The cache, or null if the board is too large for the budget.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public static BoardCache open(Path directory, String boardId, int width, int height, long maxBytes) throws IOException {
+        long size = HEADER_BYTES + (long) PackedBoard.wordsPerRow(width) * height * Long.BYTES;
+        if (size > maxBytes || size > Integer.MAX_VALUE) {
+            log.info("Board " + boardId + " is too large to cache (" + size + " bytes).");
+            return null;
+        }
+        Files.createDirectories(directory);
+        Path file = directory.resolve(fileName(boardId));
+        evict(directory, maxBytes - size, file);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean restored = channel.size() == size && matches(channel, width, height);
+        if (!restored) {
+            // Anything else in the file is of no use; the mapping below zero-fills it to a blank board
+            channel.truncate(0);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (!restored) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(WIDTH_OFFSET, width);
+            buffer.putInt(HEIGHT_OFFSET, height);
+            buffer.putLong(SEQ_OFFSET, SequenceCodec.NONE);
+        }
+        BoardCache cache = new BoardCache(file, channel, buffer, width, height, restored);
+        // Until closed cleanly the contents may run ahead of, or behind, any sequence number
+        buffer.putLong(SEQ_OFFSET, SequenceCodec.NONE);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        log.info((restored ? "Restored" : "Created") + " board cache " + file.getFileName()
+                + (cache.resumePoint != null ? " at " + cache.resumePoint : "") + ".");
+        return cache;
+    }
+
+    /**
+     * Returns true if the file already held a board of this size when it was opened.
+     */
+    public boolean isRestored() {
+        return restored;
+    }
+
+    /**
+     * Returns the server state the cached board matched when it was last closed, or null if unknown.
+     */
+    public ResumePoint getResumePoint() {
+        return resumePoint;
+    }
+
+    /**
+     * Reads the cached board.
+     */
+    public PackedBoard read() {
+        long[] copy = new long[wordsPerRow * height];
+        words.duplicate().get(copy);
+        return new PackedBoard(width, height, copy);
+    }
+
+    /**
+     * Overwrites the whole cached board with the model.
+     */
+    public void store(BoardModel model) {
+        boardChanged(model, new Rectangle(0, 0, width, height));
+    }
+
+    /**
+     * Copies the changed words of the model into the file.
+     */
+    @Override
+    public void boardChanged(BoardModel model, Rectangle region) {
+        if (model.getWidth() != width || model.getHeight() != height) {
+            return;
+        }
+        int x0 = Math.max(0, region.x);
+        int y0 = Math.max(0, region.y);
+        int x1 = Math.min(width, region.x + region.width) - 1;
+        int y1 = Math.min(height, region.y + region.height);
+        for (int y = y0; y < y1; y++) {
+            int row = y * wordsPerRow;
+            for (int wordX = x0 >>> 6; wordX <= x1 >>> 6; wordX++) {
+                words.put(row + wordX, model.getWord(wordX, y));
+            }
+        }
+    }
+
+    /**
+     * Records the resume point, flushes the file and closes it.
+     *
+     * @param point The server state the board now matches, or null if that is not known.
+     */
+    public void close(ResumePoint point) throws IOException {
+        if (point != null) {
+            buffer.putLong(EPOCH_OFFSET, point.getEpoch());
+            buffer.putLong(SEQ_OFFSET, point.getSeq());
+        }
+        buffer.force();
+        channel.close();
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        log.info("Closed board cache " + file.getFileName() + (point != null ? " at " + point : "") + ".");
+    }
+
+    private static boolean matches(FileChannel channel, int width, int height) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        return header.getInt(0) == MAGIC && header.getInt(WIDTH_OFFSET) == width && header.getInt(HEIGHT_OFFSET) == height;
+    }
+
+    /**
+     * Deletes the least recently used cache files until the others fit in the budget.
+     */
+    private static void evict(Path directory, long budget, Path keep) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : stream) {
+                if (!path.equals(keep)) {
+                    files.add(path);
+                }
+            }
+        }
+        long total = 0;
+        for (Path path : files) {
+            total += Files.size(path);
+        }
+        files.sort(Comparator.comparing(BoardCache::lastUsed));
+        for (Path path : files) {
+            if (total <= budget) {
+                break;
+            }
+            long size = Files.size(path);
+            Files.deleteIfExists(path);
+            total -= size;
+            log.info("Evicted board cache " + path.getFileName() + ".");
+        }
+    }
+
+    private static FileTime lastUsed(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Returns the file name for a board: its id hex-encoded, so any id is a valid name.
+     */
+    static String fileName(String boardId) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : boardId.getBytes(StandardCharsets.UTF_8)) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.append(SUFFIX).toString();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.swinggradleapp.model;
+
+import java.awt.*;
+
+/**
+ * BoardListener is notified after pixels of a {@link BoardModel} change.
+ */
+public interface BoardListener {
+    /**
+     * Called on the thread that changed the model.
+     *
+     * @param model  The model that changed.
+     * @param region The bounding rectangle of the pixels that actually flipped.
+     */
+    void boardChanged(BoardModel model, Rectangle region);
+}
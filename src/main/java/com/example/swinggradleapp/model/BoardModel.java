@@ -0,0 +1,439 @@
+package com.example.swinggradleapp.model;
+
+import com.example.swinggradleapp.datatransfer.PackedBoard;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.Tiles;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * BoardModel is the board state at one bit per pixel (1 = pen/black), and the single source of truth
+ * the canvas renders from.
+ * <p>
+ * The board is cut into {@link Tiles}; only tiles with ink are stored, so a 100k x 100k board costs memory
+ * in proportion to what is drawn on it. Tiles that are erased back to blank are dropped again. Every
+ * mutation tracks which pixels actually flipped and reports only their bounding rectangle to the
+ * listeners, so redrawing a batch that changed nothing costs nothing.
+ * <p>
+ * Snapshots are copy-on-write per tile: {@link #snapshot()} copies only the tile map, and a tile is copied
+ * the first time it is written after a snapshot. The model is not thread-safe and should be mutated from
+ * one thread (the EDT in the client); snapshots are immutable and can be passed to any thread.
+ */
+public class BoardModel {
+    private final List<BoardListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Long, Tile> tiles = new HashMap<>();
+
+    private int width;
+    private int height;
+    // Bumped by every snapshot; tiles from an older generation may be shared and are copied before writing
+    private int generation;
+
+    private static final class Tile {
+        final long[] words;
+        final int generation;
+
+        Tile(long[] words, int generation) {
+            this.words = words;
+            this.generation = generation;
+        }
+    }
+
+    public BoardModel(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void addListener(BoardListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(BoardListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns 1 if the pixel is set (black), 0 otherwise.
+     */
+    public int get(int x, int y) {
+        return (int) (getWord(x >>> 6, y) >>> (x & 63)) & 1;
+    }
+
+    /**
+     * Returns 64 horizontally adjacent pixels as one word, for views that render straight from the bits.
+     *
+     * @param wordX The word column, i.e. {@code x >>> 6}.
+     * @param y     The row.
+     * @return The bits of pixels [wordX * 64, wordX * 64 + 64) of the row; 0 for blank tiles.
+     */
+    public long getWord(int wordX, int y) {
+        Tile tile = tiles.get(Tiles.key(wordX / Tiles.WORDS_PER_ROW, y >>> Tiles.SHIFT));
+        if (tile == null) {
+            return 0;
+        }
+        return tile.words[(y & Tiles.MASK) * Tiles.WORDS_PER_ROW + wordX % Tiles.WORDS_PER_ROW];
+    }
+
+    /**
+     * Applies a batch of points in order.
+     *
+     * @param points The points; pen 1 sets a pixel, anything else clears it. Coordinates are clamped to the board.
+     * @return The number of pixels that flipped.
+     */
+    public int apply(PointBuffer points) {
+        int count = points.size();
+        if (count == 0) {
+            return 0;
+        }
+        int changed = 0;
+        boolean cleared = false;
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        long cachedKey = Long.MIN_VALUE;
+        long[] words = null;
+        for (int i = 0; i < count; i++) {
+            int x = Math.max(0, Math.min(points.getX(i), width - 1));
+            int y = Math.max(0, Math.min(points.getY(i), height - 1));
+            boolean set = points.getPen(i) == 1;
+            long key = Tiles.key(x >>> Tiles.SHIFT, y >>> Tiles.SHIFT);
+            if (key != cachedKey) {
+                // Points arrive in runs along strokes, so the tile lookup is usually reused
+                words = set ? writableTile(key) : existingWritableTile(key);
+                cachedKey = words == null ? Long.MIN_VALUE : key;
+            }
+            if (words == null) {
+                continue; // clearing a pixel of a blank tile
+            }
+            int index = (y & Tiles.MASK) * Tiles.WORDS_PER_ROW + ((x & Tiles.MASK) >>> 6);
+            long bit = 1L << x;
+            long before = words[index];
+            long after = set ? before | bit : before & ~bit;
+            if (after != before) {
+                words[index] = after;
+                changed++;
+                cleared |= !set;
+                if (x < minX) minX = x;
+                if (x > maxX) maxX = x;
+                if (y < minY) minY = y;
+                if (y > maxY) maxY = y;
+            }
+        }
+        if (cleared) {
+            dropEmptyTiles(minX, minY, maxX, maxY);
+        }
+        if (changed > 0) {
+            fireChanged(new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1));
+        }
+        return changed;
+    }
+
+    /**
+     * Sets or clears every pixel of a rectangle, a word at a time. Listeners are told the bounds of the
+     * pixels that flipped, which may be smaller than the rectangle, and nothing if none did.
+     *
+     * @param x   The left column.
+     * @param y   The top row.
+     * @param w   The width; the rectangle is clipped to the board.
+     * @param h   The height.
+     * @param pen 1 to set the pixels, anything else to clear them.
+     */
+    public void fillRect(int x, int y, int w, int h, int pen) {
+        int x0 = Math.max(0, x);
+        int y0 = Math.max(0, y);
+        int x1 = Math.min(width, x + w);  // exclusive
+        int y1 = Math.min(height, y + h); // exclusive
+        if (x0 >= x1 || y0 >= y1) {
+            return;
+        }
+        boolean set = pen == 1;
+        Bounds changed = new Bounds();
+        for (int tileY = y0 >>> Tiles.SHIFT; tileY <= (y1 - 1) >>> Tiles.SHIFT; tileY++) {
+            for (int tileX = x0 >>> Tiles.SHIFT; tileX <= (x1 - 1) >>> Tiles.SHIFT; tileX++) {
+                long key = Tiles.key(tileX, tileY);
+                long[] words = set ? writableTile(key) : existingWritableTile(key);
+                if (words == null) {
+                    continue;
+                }
+                int originX = tileX << Tiles.SHIFT;
+                int originY = tileY << Tiles.SHIFT;
+                int fromX = Math.max(x0, originX) - originX;
+                int toX = Math.min(x1, originX + Tiles.SIZE) - originX; // exclusive
+                for (int row = Math.max(y0, originY) - originY; row < Math.min(y1, originY + Tiles.SIZE) - originY; row++) {
+                    for (int word = fromX >>> 6; word <= (toX - 1) >>> 6; word++) {
+                        long mask = -1L;
+                        if (word == fromX >>> 6) {
+                            mask &= -1L << (fromX & 63);
+                        }
+                        if (word == (toX - 1) >>> 6) {
+                            mask &= -1L >>> (63 - ((toX - 1) & 63));
+                        }
+                        int index = row * Tiles.WORDS_PER_ROW + word;
+                        long before = words[index];
+                        long after = set ? before | mask : before & ~mask;
+                        if (after != before) {
+                            words[index] = after;
+                            changed.add(originX + (word << 6), originY + row, before ^ after);
+                        }
+                    }
+                }
+                if (!set && Tiles.isEmpty(words)) {
+                    tiles.remove(key);
+                }
+            }
+        }
+        if (!changed.isEmpty()) {
+            fireChanged(changed.toRectangle());
+        }
+    }
+
+    /**
+     * Clears the whole board.
+     */
+    public void clear() {
+        Bounds changed = new Bounds();
+        for (Map.Entry<Long, Tile> entry : tiles.entrySet()) {
+            changed.addTile(entry.getKey(), entry.getValue().words, null);
+        }
+        tiles.clear();
+        if (!changed.isEmpty()) {
+            fireChanged(changed.toRectangle());
+        }
+    }
+
+    /**
+     * Empties the board and gives it a new size, e.g. once the server has announced the board it serves.
+     *
+     * @param width  The new width in pixels.
+     * @param height The new height in pixels.
+     */
+    public void reset(int width, int height) {
+        Rectangle old = new Rectangle(0, 0, this.width, this.height);
+        tiles.clear();
+        this.width = width;
+        this.height = height;
+        fireChanged(old.union(new Rectangle(0, 0, width, height)));
+    }
+
+    /**
+     * Replaces the whole board with a dense snapshot, e.g. from a server without tile support.
+     *
+     * @param board The new board; must have the same dimensions. Its words are copied.
+     */
+    public void load(PackedBoard board) {
+        load(BoardSnapshot.fromPackedBoard(board));
+    }
+
+    /**
+     * Replaces the whole board. Listeners are told only about the region that differs from the current state.
+     *
+     * @param snapshot The new board; must have the same dimensions.
+     */
+    public void load(BoardSnapshot snapshot) {
+        if (snapshot.getWidth() != width || snapshot.getHeight() != height) {
+            throw new IllegalArgumentException("Expected a " + width + "x" + height + " board, got "
+                    + snapshot.getWidth() + "x" + snapshot.getHeight() + ".");
+        }
+        Rectangle changed = diff(snapshot);
+        tiles.clear();
+        // Snapshot tiles are immutable; adopt them at the current generation minus one so writes copy first
+        for (Map.Entry<Long, long[]> entry : snapshot.tiles().entrySet()) {
+            tiles.put(entry.getKey(), new Tile(entry.getValue(), generation - 1));
+        }
+        if (changed != null) {
+            fireChanged(changed);
+        }
+    }
+
+    /**
+     * Replaces a single tile, e.g. one received from the server.
+     *
+     * @param tileX The tile column.
+     * @param tileY The tile row.
+     * @param tile  The tile as a {@link Tiles#SIZE}-square packed board; its words are copied.
+     */
+    public void loadTile(int tileX, int tileY, PackedBoard tile) {
+        if (tile.getWidth() != Tiles.SIZE || tile.getHeight() != Tiles.SIZE) {
+            throw new IllegalArgumentException("Tiles must be " + Tiles.SIZE + "x" + Tiles.SIZE + ".");
+        }
+        long key = Tiles.key(tileX, tileY);
+        Tile current = tiles.get(key);
+        long[] incoming = tile.getWords();
+        Bounds changed = new Bounds();
+        changed.addTile(key, current == null ? null : current.words, incoming);
+        if (Tiles.isEmpty(incoming)) {
+            tiles.remove(key);
+        } else {
+            tiles.put(key, new Tile(incoming.clone(), generation));
+        }
+        if (!changed.isEmpty()) {
+            fireChanged(changed.toRectangle());
+        }
+    }
+
+    /**
+     * Compares the model with a dense board of the same size, a word at a time.
+     *
+     * @param other The board to compare with.
+     * @return The bounding rectangle of the differing pixels, or null if the boards are equal.
+     */
+    public Rectangle diff(PackedBoard other) {
+        return diff(BoardSnapshot.fromPackedBoard(other));
+    }
+
+    /**
+     * Compares the model with a snapshot, a word at a time. Tiles shared with the snapshot are skipped.
+     *
+     * @param other The snapshot to compare with.
+     * @return The bounding rectangle of the differing pixels, or null if the boards are equal.
+     */
+    public Rectangle diff(BoardSnapshot other) {
+        Bounds changed = new Bounds();
+        Set<Long> keys = new HashSet<>(tiles.keySet());
+        keys.addAll(other.tiles().keySet());
+        for (long key : keys) {
+            Tile mine = tiles.get(key);
+            long[] theirs = other.tiles().get(key);
+            if (mine != null && mine.words == theirs) {
+                continue;
+            }
+            changed.addTile(key, mine == null ? null : mine.words, theirs);
+        }
+        return changed.isEmpty() ? null : changed.toRectangle();
+    }
+
+    /**
+     * Returns an immutable snapshot of the board. Only the tile map is copied; tiles are copied on their next write.
+     */
+    public BoardSnapshot snapshot() {
+        Map<Long, long[]> copy = new HashMap<>(tiles.size() * 2);
+        for (Map.Entry<Long, Tile> entry : tiles.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().words);
+        }
+        generation++;
+        return new BoardSnapshot(width, height, copy);
+    }
+
+    /**
+     * Returns the keys of all tiles currently holding ink; the set is a copy.
+     */
+    public Set<Long> getTileKeys() {
+        return new HashSet<>(tiles.keySet());
+    }
+
+    /**
+     * Checks whether any tile overlapping a rectangle holds ink. Cheap, and conservative: a true result
+     * only means the rectangle may contain ink.
+     *
+     * @param minX The left column, inclusive.
+     * @param minY The top row, inclusive.
+     * @param maxX The right column, inclusive.
+     * @param maxY The bottom row, inclusive.
+     */
+    public boolean hasInk(int minX, int minY, int maxX, int maxY) {
+        for (int tileY = minY >>> Tiles.SHIFT; tileY <= maxY >>> Tiles.SHIFT; tileY++) {
+            for (int tileX = minX >>> Tiles.SHIFT; tileX <= maxX >>> Tiles.SHIFT; tileX++) {
+                if (tiles.containsKey(Tiles.key(tileX, tileY))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of tiles currently holding ink.
+     */
+    public int getTileCount() {
+        return tiles.size();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private long[] writableTile(long key) {
+        Tile tile = tiles.get(key);
+        if (tile == null) {
+            tile = new Tile(new long[Tiles.WORDS], generation);
+            tiles.put(key, tile);
+        } else if (tile.generation != generation) {
+            tile = new Tile(tile.words.clone(), generation);
+            tiles.put(key, tile);
+        }
+        return tile.words;
+    }
+
+    private long[] existingWritableTile(long key) {
+        return tiles.containsKey(key) ? writableTile(key) : null;
+    }
+
+    private void dropEmptyTiles(int minX, int minY, int maxX, int maxY) {
+        for (int tileY = minY >>> Tiles.SHIFT; tileY <= maxY >>> Tiles.SHIFT; tileY++) {
+            for (int tileX = minX >>> Tiles.SHIFT; tileX <= maxX >>> Tiles.SHIFT; tileX++) {
+                long key = Tiles.key(tileX, tileY);
+                Tile tile = tiles.get(key);
+                if (tile != null && Tiles.isEmpty(tile.words)) {
+                    tiles.remove(key);
+                }
+            }
+        }
+    }
+
+    private void fireChanged(Rectangle region) {
+        for (BoardListener listener : listeners) {
+            listener.boardChanged(this, region);
+        }
+    }
+
+    /**
+     * Accumulates the bounding box of flipped bits.
+     */
+    private static final class Bounds {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+
+        void add(int wordOriginX, int y, long delta) {
+            int lowX = wordOriginX + Long.numberOfTrailingZeros(delta);
+            int highX = wordOriginX + 63 - Long.numberOfLeadingZeros(delta);
+            if (lowX < minX) minX = lowX;
+            if (highX > maxX) maxX = highX;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+        }
+
+        /**
+         * Adds the bits that differ between two versions of a tile; null stands for a blank tile.
+         */
+        void addTile(long key, long[] a, long[] b) {
+            int originX = Tiles.keyX(key) << Tiles.SHIFT;
+            int originY = Tiles.keyY(key) << Tiles.SHIFT;
+            for (int i = 0; i < Tiles.WORDS; i++) {
+                long delta = (a == null ? 0 : a[i]) ^ (b == null ? 0 : b[i]);
+                if (delta != 0) {
+                    add(originX + ((i % Tiles.WORDS_PER_ROW) << 6), originY + i / Tiles.WORDS_PER_ROW, delta);
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return maxY < minY;
+        }
+
+        Rectangle toRectangle() {
+            return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.swinggradleapp.model;
+
+import com.example.swinggradleapp.datatransfer.PackedBoard;
+import com.example.swinggradleapp.datatransfer.Tiles;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * BoardSnapshot is an immutable view of a {@link BoardModel} at one point in time: the board size plus
+ * the words of every non-empty tile, keyed by {@link Tiles#key}. Safe to use from any thread.
+ */
+public final class BoardSnapshot {
+    private final int width;
+    private final int height;
+    private final Map<Long, long[]> tiles;
+
+    BoardSnapshot(int width, int height, Map<Long, long[]> tiles) {
+        this.width = width;
+        this.height = height;
+        this.tiles = Collections.unmodifiableMap(tiles);
+    }
+
+    /**
+     * Returns a blank board of the given size.
+     */
+    public static BoardSnapshot empty(int width, int height) {
+        return new BoardSnapshot(width, height, new HashMap<>());
+    }
+
+    /**
+     * Cuts a dense board into tiles, dropping the empty ones.
+     *
+     * @param board The board.
+     * @return The snapshot; it shares nothing with the board.
+     */
+    public static BoardSnapshot fromPackedBoard(PackedBoard board) {
+        Map<Long, long[]> tiles = new HashMap<>();
+        int wordsPerRow = board.getWordsPerRow();
+        long[] words = board.getWords();
+        for (int tileY = 0; tileY < Tiles.count(board.getHeight()); tileY++) {
+            for (int tileX = 0; tileX < Tiles.count(board.getWidth()); tileX++) {
+                long[] tile = new long[Tiles.WORDS];
+                int rows = Math.min(Tiles.SIZE, board.getHeight() - (tileY << Tiles.SHIFT));
+                int firstWord = tileX * Tiles.WORDS_PER_ROW;
+                int wordCount = Math.min(Tiles.WORDS_PER_ROW, wordsPerRow - firstWord);
+                for (int row = 0; row < rows; row++) {
+                    System.arraycopy(words, ((tileY << Tiles.SHIFT) + row) * wordsPerRow + firstWord,
+                            tile, row * Tiles.WORDS_PER_ROW, wordCount);
+                }
+                if (!Tiles.isEmpty(tile)) {
+                    tiles.put(Tiles.key(tileX, tileY), tile);
+                }
+            }
+        }
+        return new BoardSnapshot(board.getWidth(), board.getHeight(), tiles);
+    }
+
+    /**
+     * Returns 1 if the pixel is set (black), 0 otherwise.
+     */
+    public int get(int x, int y) {
+        long[] tile = tiles.get(Tiles.key(x >>> Tiles.SHIFT, y >>> Tiles.SHIFT));
+        if (tile == null) {
+            return 0;
+        }
+        return (int) (tile[(y & Tiles.MASK) * Tiles.WORDS_PER_ROW + ((x & Tiles.MASK) >>> 6)] >>> (x & 63)) & 1;
+    }
+
+    /**
+     * Returns a tile as a {@link Tiles#SIZE}-square packed board, or null if the tile is empty.
+     */
+    public PackedBoard getTile(int tileX, int tileY) {
+        long[] tile = tiles.get(Tiles.key(tileX, tileY));
+        return tile == null ? null : new PackedBoard(Tiles.SIZE, Tiles.SIZE, tile);
+    }
+
+    /**
+     * Returns the keys of the non-empty tiles.
+     */
+    public Iterable<Long> getTileKeys() {
+        return tiles.keySet();
+    }
+
+    public int getTileCount() {
+        return tiles.size();
+    }
+
+    /**
+     * Expands the snapshot into one dense packed board. Only sensible for boards of moderate size.
+     */
+    public PackedBoard toPackedBoard() {
+        PackedBoard board = new PackedBoard(width, height);
+        int wordsPerRow = board.getWordsPerRow();
+        long[] words = board.getWords();
+        for (Map.Entry<Long, long[]> entry : tiles.entrySet()) {
+            int tileX = Tiles.keyX(entry.getKey());
+            int tileY = Tiles.keyY(entry.getKey());
+            int rows = Math.min(Tiles.SIZE, height - (tileY << Tiles.SHIFT));
+            int firstWord = tileX * Tiles.WORDS_PER_ROW;
+            int wordCount = Math.min(Tiles.WORDS_PER_ROW, wordsPerRow - firstWord);
+            for (int row = 0; row < rows; row++) {
+                System.arraycopy(entry.getValue(), row * Tiles.WORDS_PER_ROW,
+                        words, ((tileY << Tiles.SHIFT) + row) * wordsPerRow + firstWord, wordCount);
+            }
+        }
+        return board;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    Map<Long, long[]> tiles() {
+        return tiles;
+    }
+}
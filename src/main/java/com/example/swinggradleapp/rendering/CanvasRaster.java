@@ -0,0 +1,250 @@
+package com.example.swinggradleapp.rendering;
+
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.Tiles;
+import com.example.swinggradleapp.model.BoardModel;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * CanvasRaster is the pixel store behind the drawing panel.
+ * <p>
+ * Bulk updates write straight into the image's int[] pixel array instead of going through Graphics2D,
+ * and report the rectangle they touched so the caller can issue a single repaint for the whole batch.
+ * It has no Swing dependency and can be used headless.
+ */
+public final class CanvasRaster {
+    public static final int BLACK = 0xFF000000;
+    public static final int WHITE = 0xFFFFFFFF;
+    // Fills the parts of a view that lie beyond the edge of the board
+    public static final int OFF_BOARD = 0xFFD0D0D0;
+    // Rows per task when the whole canvas is rendered in parallel
+    static final int ROWS_PER_BAND = 64;
+
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+
+    public CanvasRaster(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        // Grabbing the DataBuffer stops Java2D from caching the image in VRAM; the bulk writes are worth more
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        clear();
+    }
+
+    /**
+     * Writes a batch of points into the pixel array.
+     *
+     * @param points The points; pen 1 is black, anything else white. Coordinates are clamped to the canvas.
+     * @return The union of all touched pixels, or null if the batch was empty.
+     */
+    public Rectangle applyPoints(PointBuffer points) {
+        int count = points.size();
+        if (count == 0) {
+            return null;
+        }
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            int x = Math.max(0, Math.min(points.getX(i), width - 1));
+            int y = Math.max(0, Math.min(points.getY(i), height - 1));
+            pixels[y * width + x] = points.getPen(i) == 1 ? BLACK : WHITE;
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
+        }
+        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    /**
+     * Redraws a region of the canvas from the board model, one bit per pixel.
+     *
+     * @param model  The model to render; the canvas shows its top-left corner.
+     * @param region The region to redraw; it is clipped to the canvas.
+     */
+    public void render(BoardModel model, Rectangle region) {
+        int x0 = Math.max(0, region.x);
+        int y0 = Math.max(0, region.y);
+        int x1 = Math.min(width, region.x + region.width);
+        int y1 = Math.min(height, region.y + region.height);
+        for (int y = y0; y < y1; y++) {
+            int pixelRow = y * width;
+            int x = x0;
+            while (x < x1) {
+                long word = model.getWord(x >>> 6, y);
+                int wordEnd = Math.min(x1, (x | 63) + 1);
+                if (word == 0) {
+                    // Blank words are the common case; fill them in one go
+                    Arrays.fill(pixels, pixelRow + x, pixelRow + wordEnd, WHITE);
+                    x = wordEnd;
+                    continue;
+                }
+                for (; x < wordEnd; x++) {
+                    pixels[pixelRow + x] = ((word >>> (x & 63)) & 1) != 0 ? BLACK : WHITE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Redraws a region of the canvas as a view of the board through a viewport.
+     * <p>
+     * Zoomed in or at 1:1 the bits are sampled directly; zoomed out the matching mipmap level is sampled
+     * instead, so the cost is one lookup per canvas pixel whatever the board size.
+     *
+     * @param model    The model, for level 0.
+     * @param mipmap   The pyramid kept current for the model.
+     * @param viewport Maps canvas pixels to board pixels; its view size should match the canvas.
+     * @param region   The region of the canvas to redraw; it is clipped to the canvas.
+     */
+    public void render(BoardModel model, MipmapPyramid mipmap, Viewport viewport, Rectangle region) {
+        int x0 = Math.max(0, region.x);
+        int y0 = Math.max(0, region.y);
+        int x1 = Math.min(width, region.x + region.width);
+        int y1 = Math.min(height, region.y + region.height);
+        int level = viewport.getLevel(mipmap.getLevelCount());
+        int boardWidth = model.getWidth();
+        int boardHeight = model.getHeight();
+        if (x0 >= x1) {
+            return;
+        }
+        // Every row samples the same board columns; map them once
+        int[] columns = new int[x1 - x0];
+        for (int x = x0; x < x1; x++) {
+            columns[x - x0] = viewport.toBoardX(x);
+        }
+        for (int y = y0; y < y1; y++) {
+            int pixelRow = y * width;
+            int boardY = viewport.toBoardY(y);
+            if (boardY < 0 || boardY >= boardHeight) {
+                Arrays.fill(pixels, pixelRow + x0, pixelRow + x1, OFF_BOARD);
+                continue;
+            }
+            int levelY = boardY >> level;
+            // One tile or word lookup per run of view pixels that falls inside it
+            int cachedKey = -1;
+            long word = 0;
+            byte[] tile = null;
+            for (int x = x0; x < x1; x++) {
+                int boardX = columns[x - x0];
+                if (boardX < 0 || boardX >= boardWidth) {
+                    pixels[pixelRow + x] = OFF_BOARD;
+                    continue;
+                }
+                if (level == 0) {
+                    if ((boardX >>> 6) != cachedKey) {
+                        cachedKey = boardX >>> 6;
+                        word = model.getWord(cachedKey, boardY);
+                    }
+                    pixels[pixelRow + x] = ((word >>> (boardX & 63)) & 1) != 0 ? BLACK : WHITE;
+                } else {
+                    int levelX = boardX >> level;
+                    if ((levelX >>> Tiles.SHIFT) != cachedKey) {
+                        cachedKey = levelX >>> Tiles.SHIFT;
+                        tile = mipmap.tileAt(level, levelX, levelY);
+                    }
+                    int coverage = tile == null ? 0 : tile[((levelY & Tiles.MASK) << Tiles.SHIFT) | (levelX & Tiles.MASK)] & 0xFF;
+                    pixels[pixelRow + x] = grey(coverage);
+                }
+            }
+        }
+    }
+
+    /**
+     * Redraws the whole canvas as a view of the board, in bands of rows rendered in parallel. Bands write
+     * disjoint rows, so they need no coordination.
+     *
+     * @param model    The model, for level 0; it must not change until this returns.
+     * @param mipmap   The pyramid built for the model; it must not change either.
+     * @param viewport Maps canvas pixels to board pixels; its view size should match the canvas.
+     * @param pool     The pool rendering the bands; the calling thread waits for it.
+     */
+    public void renderParallel(BoardModel model, MipmapPyramid mipmap, Viewport viewport, ForkJoinPool pool) {
+        pool.invoke(new RenderBand(model, mipmap, viewport, 0, height));
+    }
+
+    /**
+     * Renders a band of rows, splitting it until it is at most {@link #ROWS_PER_BAND} rows.
+     */
+    private class RenderBand extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks only live within one renderParallel call and are never serialized
+        private final transient BoardModel model;
+        private final transient MipmapPyramid mipmap;
+        private final transient Viewport viewport;
+        private final int fromY;
+        private final int toY;
+
+        RenderBand(BoardModel model, MipmapPyramid mipmap, Viewport viewport, int fromY, int toY) {
+            this.model = model;
+            this.mipmap = mipmap;
+            this.viewport = viewport;
+            this.fromY = fromY;
+            this.toY = toY;
+        }
+
+        @Override
+        protected void compute() {
+            if (toY - fromY > ROWS_PER_BAND) {
+                int middle = (fromY + toY) >>> 1;
+                invokeAll(new RenderBand(model, mipmap, viewport, fromY, middle),
+                        new RenderBand(model, mipmap, viewport, middle, toY));
+                return;
+            }
+            render(model, mipmap, viewport, new Rectangle(0, fromY, width, toY - fromY));
+        }
+    }
+
+    /**
+     * Sets a single pixel.
+     */
+    public void setPixel(int x, int y, int argb) {
+        pixels[y * width + x] = argb;
+    }
+
+    /**
+     * Returns the grey for an ink coverage: 0 is white, 255 black.
+     */
+    public static int grey(int coverage) {
+        int level = 255 - coverage;
+        return 0xFF000000 | (level << 16) | (level << 8) | level;
+    }
+
+    /**
+     * Fills the whole canvas with white.
+     */
+    public void clear() {
+        Arrays.fill(pixels, WHITE);
+    }
+
+    /**
+     * Returns a Graphics2D drawing into this canvas; the caller must dispose it.
+     */
+    public Graphics2D createGraphics() {
+        return image.createGraphics();
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
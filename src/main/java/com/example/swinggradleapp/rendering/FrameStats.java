@@ -0,0 +1,76 @@
+package com.example.swinggradleapp.rendering;
+
+/**
+ * FrameStats accumulates paint timings reported by {@link RenderScheduler}.
+ * Only touched on the EDT.
+ */
+public class FrameStats {
+    private long frames;
+    private long ticks;
+    private long totalPaintNanos;
+    private long maxPaintNanos;
+    private long lastPaintNanos;
+    private long windowStartNanos = System.nanoTime();
+    private long windowFrames;
+    private double framesPerSecond;
+
+    void recordTick() {
+        ticks++;
+        long now = System.nanoTime();
+        long elapsed = now - windowStartNanos;
+        if (elapsed >= 1_000_000_000L) {
+            framesPerSecond = windowFrames * 1_000_000_000.0 / elapsed;
+            windowFrames = 0;
+            windowStartNanos = now;
+        }
+    }
+
+    void recordPaint(long paintNanos) {
+        frames++;
+        windowFrames++;
+        totalPaintNanos += paintNanos;
+        lastPaintNanos = paintNanos;
+        if (paintNanos > maxPaintNanos) {
+            maxPaintNanos = paintNanos;
+        }
+    }
+
+    /**
+     * Returns the number of frames painted so far.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns the number of scheduler ticks so far, painted or not.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    public double getAveragePaintMillis() {
+        return frames == 0 ? 0 : totalPaintNanos / (double) frames / 1_000_000.0;
+    }
+
+    public double getMaxPaintMillis() {
+        return maxPaintNanos / 1_000_000.0;
+    }
+
+    public double getLastPaintMillis() {
+        return lastPaintNanos / 1_000_000.0;
+    }
+
+    /**
+     * Returns the painted frames per second over the last full second.
+     */
+    public double getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("frames=%d fps=%.1f paint avg=%.2fms max=%.2fms last=%.2fms",
+                frames, framesPerSecond, getAveragePaintMillis(), getMaxPaintMillis(), getLastPaintMillis());
+    }
+}
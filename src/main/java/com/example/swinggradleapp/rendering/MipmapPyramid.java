@@ -0,0 +1,270 @@
+package com.example.swinggradleapp.rendering;
+
+import com.example.swinggradleapp.datatransfer.Tiles;
+import com.example.swinggradleapp.model.BoardModel;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * MipmapPyramid keeps downsampled copies of a {@link BoardModel} for zoomed-out rendering.
+ * <p>
+ * Level 0 is the model itself. Each level above halves both dimensions and stores, per pixel, the ink
+ * coverage of the 2x2 pixels below it as 0 (blank) to 255 (solid), so thin lines fade instead of
+ * vanishing. Levels are added until the board fits in {@link #OVERVIEW_SIZE} pixels; that top level
+ * backs the minimap. Like the model, every level is stored as sparse {@link Tiles}.
+ * <p>
+ * {@link #update} recomputes only the pixels above a changed region, level by level, so keeping the pyramid
+ * current costs about a third of the changed area extra. A whole new board is better served by
+ * {@link #build}, which computes each level in parallel row bands. Not thread-safe; used on the EDT with
+ * the model.
+ */
+public final class MipmapPyramid {
+    // The top level is the first one no larger than this in either dimension
+    public static final int OVERVIEW_SIZE = 256;
+
+    private final int boardWidth;
+    private final int boardHeight;
+    private final int levelCount;
+    // levels[l] holds level l + 1, tiles keyed by Tiles.key
+    private final Map<Long, byte[]>[] levels;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public MipmapPyramid(int boardWidth, int boardHeight) {
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        int count = 0;
+        while (Math.max(levelWidth(count), levelHeight(count)) > OVERVIEW_SIZE) {
+            count++;
+        }
+        this.levelCount = count;
+        this.levels = new Map[count];
+        for (int i = 0; i < count; i++) {
+            levels[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Returns the number of downsampled levels; level numbers run from 1 to this value.
+     */
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    public int levelWidth(int level) {
+        return (int) (((long) boardWidth + (1L << level) - 1) >> level);
+    }
+
+    public int levelHeight(int level) {
+        return (int) (((long) boardHeight + (1L << level) - 1) >> level);
+    }
+
+    /**
+     * Returns the ink coverage of a pixel of a downsampled level.
+     *
+     * @param level The level, 1 to {@link #getLevelCount()}.
+     * @param x     The column within the level.
+     * @param y     The row within the level.
+     * @return 0 for blank to 255 for solid ink.
+     */
+    public int get(int level, int x, int y) {
+        byte[] tile = levels[level - 1].get(Tiles.key(x >>> Tiles.SHIFT, y >>> Tiles.SHIFT));
+        return tile == null ? 0 : tile[((y & Tiles.MASK) << Tiles.SHIFT) | (x & Tiles.MASK)] & 0xFF;
+    }
+
+    /**
+     * Returns the tile of a level holding a pixel, or null where the level is blank. For renderers that
+     * walk a row and want to avoid a lookup per pixel.
+     */
+    byte[] tileAt(int level, int x, int y) {
+        return levels[level - 1].get(Tiles.key(x >>> Tiles.SHIFT, y >>> Tiles.SHIFT));
+    }
+
+    /**
+     * Recomputes every level above a changed region of the model.
+     *
+     * @param model  The model the pyramid mirrors.
+     * @param region The changed region in board coordinates.
+     */
+    public void update(BoardModel model, Rectangle region) {
+        int x0 = Math.max(0, region.x);
+        int y0 = Math.max(0, region.y);
+        int x1 = Math.min(boardWidth, region.x + region.width) - 1;  // inclusive
+        int y1 = Math.min(boardHeight, region.y + region.height) - 1; // inclusive
+        for (int level = 1; level <= levelCount && x0 <= x1 && y0 <= y1; level++) {
+            x0 >>= 1;
+            y0 >>= 1;
+            x1 >>= 1;
+            y1 >>= 1;
+            // Recompute only source tiles that hold ink or used to; blank areas of huge regions are skipped
+            for (int tileY = y0 >>> Tiles.SHIFT; tileY <= y1 >>> Tiles.SHIFT; tileY++) {
+                for (int tileX = x0 >>> Tiles.SHIFT; tileX <= x1 >>> Tiles.SHIFT; tileX++) {
+                    int fromX = Math.max(x0, tileX << Tiles.SHIFT);
+                    int fromY = Math.max(y0, tileY << Tiles.SHIFT);
+                    int toX = Math.min(x1, (tileX << Tiles.SHIFT) + Tiles.MASK);
+                    int toY = Math.min(y1, (tileY << Tiles.SHIFT) + Tiles.MASK);
+                    if (level == 1) {
+                        updateFromModel(model, levels[0], tileX, tileY, fromX, fromY, toX, toY);
+                    } else {
+                        updateFromLevel(level, levels[level - 1], tileX, tileY, fromX, fromY, toX, toY);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Recomputes the whole pyramid, visiting only the model's inked tiles.
+     */
+    public void rebuild(BoardModel model) {
+        for (Map<Long, byte[]> level : levels) {
+            level.clear();
+        }
+        for (long key : model.getTileKeys()) {
+            update(model, new Rectangle(Tiles.keyX(key) << Tiles.SHIFT, Tiles.keyY(key) << Tiles.SHIFT, Tiles.SIZE, Tiles.SIZE));
+        }
+    }
+
+    /**
+     * Builds the pyramid of a whole board, each level split into bands of tile rows computed in parallel.
+     * <p>
+     * Each band fills its own map and the maps are merged once the level is done, so the workers share
+     * nothing but read access to the model and the level below.
+     *
+     * @param model The board; it must not change until this returns.
+     * @param pool  The pool computing the bands; the calling thread waits for it.
+     * @return The pyramid.
+     */
+    public static MipmapPyramid build(BoardModel model, ForkJoinPool pool) {
+        MipmapPyramid pyramid = new MipmapPyramid(model.getWidth(), model.getHeight());
+        for (int level = 1; level <= pyramid.levelCount; level++) {
+            int tileRows = Tiles.count(pyramid.levelHeight(level));
+            pyramid.levels[level - 1].putAll(pool.invoke(pyramid.new LevelBand(model, level, 0, tileRows)));
+        }
+        return pyramid;
+    }
+
+    /**
+     * Computes the tiles of one level in a band of tile rows, splitting the band until it is one row.
+     */
+    @SuppressWarnings("serial") // Fork/join tasks are never serialized
+    private class LevelBand extends RecursiveTask<Map<Long, byte[]>> {
+        private final BoardModel model;
+        private final int level;
+        private final int fromTileY;
+        private final int toTileY;
+
+        LevelBand(BoardModel model, int level, int fromTileY, int toTileY) {
+            this.model = model;
+            this.level = level;
+            this.fromTileY = fromTileY;
+            this.toTileY = toTileY;
+        }
+
+        @Override
+        protected Map<Long, byte[]> compute() {
+            if (toTileY - fromTileY > 1) {
+                int middle = (fromTileY + toTileY) >>> 1;
+                LevelBand top = new LevelBand(model, level, fromTileY, middle);
+                top.fork();
+                Map<Long, byte[]> tiles = new LevelBand(model, level, middle, toTileY).compute();
+                tiles.putAll(top.join());
+                return tiles;
+            }
+            Map<Long, byte[]> tiles = new HashMap<>();
+            int width = levelWidth(level);
+            int height = levelHeight(level);
+            int tileY = fromTileY;
+            for (int tileX = 0; tileX < Tiles.count(width); tileX++) {
+                int fromX = tileX << Tiles.SHIFT;
+                int fromY = tileY << Tiles.SHIFT;
+                int toX = Math.min(width - 1, fromX + Tiles.MASK);
+                int toY = Math.min(height - 1, fromY + Tiles.MASK);
+                if (level == 1) {
+                    updateFromModel(model, tiles, tileX, tileY, fromX, fromY, toX, toY);
+                } else {
+                    updateFromLevel(level, tiles, tileX, tileY, fromX, fromY, toX, toY);
+                }
+            }
+            return tiles;
+        }
+    }
+
+    /**
+     * Draws the top level as grey levels, for the minimap.
+     *
+     * @param out Receives the overview; must be at least {@code levelWidth(top) x levelHeight(top)}.
+     */
+    public void renderOverview(CanvasRaster out) {
+        int top = levelCount;
+        int width = Math.min(out.getWidth(), levelWidth(top));
+        int height = Math.min(out.getHeight(), levelHeight(top));
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int coverage = top == 0 ? 0 : get(top, x, y);
+                out.setPixel(x, y, CanvasRaster.grey(coverage));
+            }
+        }
+    }
+
+    private void updateFromModel(BoardModel model, Map<Long, byte[]> out, int tileX, int tileY,
+                                 int fromX, int fromY, int toX, int toY) {
+        // A level-1 tile covers four model tiles; skip it when all are blank and it holds nothing either
+        long key = Tiles.key(tileX, tileY);
+        byte[] tile = out.get(key);
+        if (tile == null && !model.hasInk(fromX << 1, fromY << 1, (toX << 1) + 1, (toY << 1) + 1)) {
+            return;
+        }
+        if (tile == null) {
+            tile = new byte[Tiles.SIZE * Tiles.SIZE];
+            out.put(key, tile);
+        }
+        for (int y = fromY; y <= toY; y++) {
+            int row = y << 1;
+            long top = 0;
+            long bottom = 0;
+            int cachedWord = -1;
+            for (int x = fromX; x <= toX; x++) {
+                int bx = x << 1;
+                if ((bx >>> 6) != cachedWord) {
+                    cachedWord = bx >>> 6;
+                    top = model.getWord(cachedWord, row);
+                    bottom = row + 1 < boardHeight ? model.getWord(cachedWord, row + 1) : 0;
+                }
+                int shift = bx & 63;
+                int ink = Long.bitCount(((top >>> shift) & 3) | (((bottom >>> shift) & 3) << 2));
+                tile[((y & Tiles.MASK) << Tiles.SHIFT) | (x & Tiles.MASK)] = (byte) (ink * 255 / 4);
+            }
+        }
+    }
+
+    private void updateFromLevel(int level, Map<Long, byte[]> out, int tileX, int tileY,
+                                 int fromX, int fromY, int toX, int toY) {
+        Map<Long, byte[]> below = levels[level - 2];
+        long key = Tiles.key(tileX, tileY);
+        byte[] tile = out.get(key);
+        if (tile == null) {
+            boolean any = false;
+            for (int sy = (fromY << 1) >>> Tiles.SHIFT; sy <= ((toY << 1) + 1) >>> Tiles.SHIFT && !any; sy++) {
+                for (int sx = (fromX << 1) >>> Tiles.SHIFT; sx <= ((toX << 1) + 1) >>> Tiles.SHIFT && !any; sx++) {
+                    any = below.containsKey(Tiles.key(sx, sy));
+                }
+            }
+            if (!any) {
+                return;
+            }
+            tile = new byte[Tiles.SIZE * Tiles.SIZE];
+            out.put(key, tile);
+        }
+        for (int y = fromY; y <= toY; y++) {
+            for (int x = fromX; x <= toX; x++) {
+                int sum = get(level - 1, x << 1, y << 1) + get(level - 1, (x << 1) + 1, y << 1)
+                        + get(level - 1, x << 1, (y << 1) + 1) + get(level - 1, (x << 1) + 1, (y << 1) + 1);
+                tile[((y & Tiles.MASK) << Tiles.SHIFT) | (x & Tiles.MASK)] = (byte) (sum >> 2);
+            }
+        }
+    }
+}
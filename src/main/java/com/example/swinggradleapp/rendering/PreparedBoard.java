@@ -0,0 +1,69 @@
+package com.example.swinggradleapp.rendering;
+
+import com.example.swinggradleapp.model.BoardModel;
+import com.example.swinggradleapp.model.BoardSnapshot;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * PreparedBoard is a whole new board already turned into everything the drawing panel shows: the mipmap
+ * pyramid and the canvas pixels for a given view.
+ * <p>
+ * Loading a full board used to cost the EDT a pass over every pixel, once for the pyramid and once for the
+ * canvas. {@link #prepare} does both passes on any thread, split into parallel row bands on the common
+ * fork/join pool, so the EDT only swaps the results in and repaints once. Immutable once prepared; the
+ * canvas must not be written to until it has been swapped in.
+ */
+public final class PreparedBoard {
+    private final BoardSnapshot board;
+    private final MipmapPyramid mipmap;
+    private final Viewport view;
+    private final CanvasRaster canvas;
+
+    private PreparedBoard(BoardSnapshot board, MipmapPyramid mipmap, Viewport view, CanvasRaster canvas) {
+        this.board = board;
+        this.mipmap = mipmap;
+        this.view = view;
+        this.canvas = canvas;
+    }
+
+    /**
+     * Builds the pyramid of a board and renders it through a view.
+     *
+     * @param board The board.
+     * @param view  The view to render, typically the panel's current one; not modified. If it is for a board
+     *              of another size, or null, only the pyramid is built.
+     * @return The prepared board.
+     */
+    public static PreparedBoard prepare(BoardSnapshot board, Viewport view) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        // A private model over the snapshot's tiles, only ever read by the workers
+        BoardModel model = new BoardModel(board.getWidth(), board.getHeight());
+        model.load(board);
+        MipmapPyramid mipmap = MipmapPyramid.build(model, pool);
+        if (view == null || view.getBoardWidth() != board.getWidth() || view.getBoardHeight() != board.getHeight()) {
+            return new PreparedBoard(board, mipmap, null, null);
+        }
+        Viewport copy = view.copy();
+        CanvasRaster canvas = new CanvasRaster(copy.getViewWidth(), copy.getViewHeight());
+        canvas.renderParallel(model, mipmap, copy, pool);
+        return new PreparedBoard(board, mipmap, copy, canvas);
+    }
+
+    public BoardSnapshot getBoard() {
+        return board;
+    }
+
+    public MipmapPyramid getMipmap() {
+        return mipmap;
+    }
+
+    /**
+     * Returns the canvas rendered for a view, or null if it was rendered for another one (or not at all).
+     *
+     * @param current The view the canvas is wanted for.
+     */
+    public CanvasRaster getCanvas(Viewport current) {
+        return view != null && view.sameView(current) ? canvas : null;
+    }
+}
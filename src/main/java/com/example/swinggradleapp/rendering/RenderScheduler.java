@@ -0,0 +1,135 @@
+package com.example.swinggradleapp.rendering;
+
+import com.example.swinggradleapp.metrics.ClientMetrics;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * RenderScheduler paces repaints of a component to a fixed frame rate.
+ * <p>
+ * Drawing code marks dirty regions instead of calling repaint(); once per frame the scheduler runs its
+ * frame tasks (for example applying pending remote updates), then repaints the union of everything marked
+ * dirty in a single call. Painting therefore follows the display rate rather than event volume. All methods
+ * except {@link #addFrameTask} and {@link #removeFrameTask} must be called on the EDT.
+ */
+public class RenderScheduler {
+    private final JComponent component;
+    private final Timer timer;
+    private final List<Runnable> frameTasks = new CopyOnWriteArrayList<>();
+    private final FrameStats stats = new FrameStats();
+    private Rectangle dirty;
+    // Tasks waiting for the next frame, and those waiting for the repaint that frame requested
+    private final List<Runnable> afterFrame = new ArrayList<>();
+    private final List<Runnable> afterPaint = new ArrayList<>();
+
+    /**
+     * @param component      The component to repaint.
+     * @param framesPerSecond The maximum repaint rate.
+     */
+    public RenderScheduler(JComponent component, int framesPerSecond) {
+        this.component = component;
+        this.timer = new Timer(Math.max(1, 1000 / framesPerSecond), e -> tick());
+        this.timer.setCoalesce(true);
+    }
+
+    public void start() {
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Registers a task to run on the EDT at the start of every frame, before the repaint.
+     *
+     * @param task The task; it may mark regions dirty.
+     */
+    public void addFrameTask(Runnable task) {
+        frameTasks.add(task);
+    }
+
+    public void removeFrameTask(Runnable task) {
+        frameTasks.remove(task);
+    }
+
+    /**
+     * Runs a task once the next frame has been painted, or right after it if nothing needed repainting.
+     *
+     * @param task The task.
+     */
+    public void runAfterNextFrame(Runnable task) {
+        afterFrame.add(task);
+    }
+
+    /**
+     * Adds a region to be repainted on the next frame.
+     *
+     * @param region The region in component coordinates.
+     */
+    public void markDirty(Rectangle region) {
+        if (dirty == null) {
+            dirty = new Rectangle(region);
+        } else {
+            dirty.add(region);
+        }
+    }
+
+    public void markDirty(int x, int y, int width, int height) {
+        markDirty(new Rectangle(x, y, width, height));
+    }
+
+    /**
+     * Schedules the whole component for repaint on the next frame.
+     */
+    public void markAllDirty() {
+        markDirty(new Rectangle(0, 0, component.getWidth(), component.getHeight()));
+    }
+
+    /**
+     * Records how long a paintComponent call took; called by the component itself.
+     *
+     * @param paintNanos The paint duration in nanoseconds.
+     */
+    public void recordPaint(long paintNanos) {
+        stats.recordPaint(paintNanos);
+        ClientMetrics.PAINT_MICROS.record(paintNanos / 1000);
+        runAll(afterPaint);
+    }
+
+    public FrameStats getStats() {
+        return stats;
+    }
+
+    private void tick() {
+        stats.recordTick();
+        // A repaint that has not happened by now was dropped, for example because the component is hidden
+        runAll(afterPaint);
+        for (Runnable task : frameTasks) {
+            task.run();
+        }
+        if (dirty != null) {
+            component.repaint(dirty);
+            dirty = null;
+            afterPaint.addAll(afterFrame);
+            afterFrame.clear();
+        } else {
+            runAll(afterFrame);
+        }
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        List<Runnable> due = new ArrayList<>(tasks);
+        tasks.clear();
+        for (Runnable task : due) {
+            task.run();
+        }
+    }
+}
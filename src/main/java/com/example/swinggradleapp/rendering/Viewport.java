@@ -0,0 +1,185 @@
+package com.example.swinggradleapp.rendering;
+
+import java.awt.*;
+
+/**
+ * Viewport maps between board coordinates and the pixels of the view showing part of the board.
+ * <p>
+ * The view shows the board from an origin (the board point at the view's top-left corner) at a scale in
+ * view pixels per board pixel: above 1 is zoomed in, below 1 zoomed out. The origin is clamped so the
+ * board cannot be panned out of sight. Not thread-safe; used on the EDT.
+ */
+public class Viewport {
+    public static final double MAX_SCALE = 16;
+    // Each wheel notch zooms by this factor
+    public static final double ZOOM_STEP = 1.25;
+
+    private int boardWidth;
+    private int boardHeight;
+    private int viewWidth;
+    private int viewHeight;
+    private double originX;
+    private double originY;
+    private double scale = 1;
+
+    public Viewport(int boardWidth, int boardHeight, int viewWidth, int viewHeight) {
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.viewWidth = Math.max(1, viewWidth);
+        this.viewHeight = Math.max(1, viewHeight);
+    }
+
+    /**
+     * Returns an independent copy, for example to hand the current view to another thread.
+     */
+    public Viewport copy() {
+        Viewport copy = new Viewport(boardWidth, boardHeight, viewWidth, viewHeight);
+        copy.originX = originX;
+        copy.originY = originY;
+        copy.scale = scale;
+        return copy;
+    }
+
+    /**
+     * Returns true if another viewport shows exactly the same part of a board of the same size.
+     */
+    public boolean sameView(Viewport other) {
+        return other != null
+                && boardWidth == other.boardWidth && boardHeight == other.boardHeight
+                && viewWidth == other.viewWidth && viewHeight == other.viewHeight
+                && originX == other.originX && originY == other.originY && scale == other.scale;
+    }
+
+    /**
+     * Changes the board size, for example after joining a board, and resets to the top-left corner at 1:1.
+     */
+    public void setBoardSize(int boardWidth, int boardHeight) {
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.originX = 0;
+        this.originY = 0;
+        this.scale = 1;
+        clamp();
+    }
+
+    public void setViewSize(int viewWidth, int viewHeight) {
+        this.viewWidth = Math.max(1, viewWidth);
+        this.viewHeight = Math.max(1, viewHeight);
+        clamp();
+    }
+
+    /**
+     * Moves the view by a number of view pixels; positive values reveal content further right and down.
+     */
+    public void pan(int dx, int dy) {
+        originX += dx / scale;
+        originY += dy / scale;
+        clamp();
+    }
+
+    /**
+     * Zooms by a factor while keeping the board point under a view pixel in place.
+     *
+     * @param factor The zoom factor; above 1 zooms in.
+     * @param viewX  The anchor column in the view, usually the mouse position.
+     * @param viewY  The anchor row in the view.
+     */
+    public void zoomAt(double factor, int viewX, int viewY) {
+        double anchorX = originX + viewX / scale;
+        double anchorY = originY + viewY / scale;
+        scale = Math.max(getMinScale(), Math.min(MAX_SCALE, scale * factor));
+        originX = anchorX - viewX / scale;
+        originY = anchorY - viewY / scale;
+        clamp();
+    }
+
+    /**
+     * Returns the smallest scale, at which the whole board fits in the view (never above 1:1).
+     */
+    public double getMinScale() {
+        return Math.min(1, Math.min((double) viewWidth / boardWidth, (double) viewHeight / boardHeight));
+    }
+
+    /**
+     * Picks the mipmap level to render from: the largest level that still has at least one level pixel per
+     * view pixel, so zoomed-out views never sample more than they show.
+     *
+     * @param levelCount The number of downsampled levels available.
+     */
+    public int getLevel(int levelCount) {
+        int level = 0;
+        while (level < levelCount && scale * (1L << (level + 1)) <= 1) {
+            level++;
+        }
+        return level;
+    }
+
+    public int toBoardX(int viewX) {
+        return (int) Math.floor(originX + viewX / scale);
+    }
+
+    public int toBoardY(int viewY) {
+        return (int) Math.floor(originY + viewY / scale);
+    }
+
+    /**
+     * Converts a board region to the view pixels it covers, clipped to the view.
+     *
+     * @return The view region; empty if the board region is out of sight.
+     */
+    public Rectangle toView(Rectangle board) {
+        int x0 = (int) Math.max(0, Math.floor((board.x - originX) * scale));
+        int y0 = (int) Math.max(0, Math.floor((board.y - originY) * scale));
+        int x1 = (int) Math.min(viewWidth, Math.ceil((board.x + (double) board.width - originX) * scale));
+        int y1 = (int) Math.min(viewHeight, Math.ceil((board.y + (double) board.height - originY) * scale));
+        return new Rectangle(x0, y0, Math.max(0, x1 - x0), Math.max(0, y1 - y0));
+    }
+
+    /**
+     * Returns the part of the board currently in view.
+     */
+    public Rectangle getVisibleBoardRegion() {
+        int x0 = Math.max(0, toBoardX(0));
+        int y0 = Math.max(0, toBoardY(0));
+        int x1 = (int) Math.min(boardWidth, Math.ceil(originX + viewWidth / scale));
+        int y1 = (int) Math.min(boardHeight, Math.ceil(originY + viewHeight / scale));
+        return new Rectangle(x0, y0, Math.max(0, x1 - x0), Math.max(0, y1 - y0));
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    public double getOriginX() {
+        return originX;
+    }
+
+    public double getOriginY() {
+        return originY;
+    }
+
+    public int getViewWidth() {
+        return viewWidth;
+    }
+
+    public int getViewHeight() {
+        return viewHeight;
+    }
+
+    public int getBoardWidth() {
+        return boardWidth;
+    }
+
+    public int getBoardHeight() {
+        return boardHeight;
+    }
+
+    private void clamp() {
+        scale = Math.max(getMinScale(), Math.min(MAX_SCALE, scale));
+        double visibleWidth = viewWidth / scale;
+        double visibleHeight = viewHeight / scale;
+        // A board smaller than the view stays pinned to the top-left corner
+        originX = Math.max(0, Math.min(originX, boardWidth - visibleWidth));
+        originY = Math.max(0, Math.min(originY, boardHeight - visibleHeight));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.swinggradleapp.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BoardRegistry holds the stand-in server's boards, creating them on first use.
+ */
+public class BoardRegistry {
+    public static final String DEFAULT_BOARD_ID = "board-1";
+
+    private final Map<String, ServerBoard> boards = new ConcurrentHashMap<>();
+    private final int width;
+    private final int height;
+
+    public BoardRegistry(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Returns the board with the given id, creating an empty one if needed.
+     *
+     * @param boardId The board id.
+     * @return The board.
+     */
+    public ServerBoard get(String boardId) {
+        return boards.computeIfAbsent(boardId, id -> new ServerBoard(id, width, height));
+    }
+}
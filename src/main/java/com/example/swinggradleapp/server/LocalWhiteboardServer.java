@@ -0,0 +1,171 @@
+package com.example.swinggradleapp.server;
+
+import com.example.swinggradleapp.datatransfer.BoardAnnouncement;
+import com.example.swinggradleapp.datatransfer.ProtocolFeatures;
+import com.example.swinggradleapp.utils.Config;
+import com.example.swinggradleapp.utils.Logger;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * LocalWhiteboardServer is a stand-in for the real whiteboard backend, for integration and load testing.
+ * <p>
+ * It serves POST /login over plain HTTP and /ws/draw over a WebSocket on the next port, since the two
+ * cannot share a listener here. Point the client at it with:
+ * <pre>
+ * -Dwhiteboard.loginUrl=http://localhost:8080/login -Dwhiteboard.websocketUrl=ws://localhost:8081/ws/draw
+ * </pre>
+ * Usage: {@code LocalWhiteboardServer [httpPort] [wsPort] [boardWidth] [boardHeight]}, or {@code gradle runLocalServer}.
+ */
+public class LocalWhiteboardServer {
+    private static final Logger log = Logger.getLogger(LocalWhiteboardServer.class);
+
+    private final BoardRegistry boards;
+    private final Gson gson = new Gson();
+    private final AtomicInteger nextUserId = new AtomicInteger(1);
+    private final HttpServer httpServer;
+    private final WhiteboardSocketServer socketServer;
+
+    public LocalWhiteboardServer(int httpPort, int wsPort) throws IOException {
+        this(httpPort, wsPort, Config.BOARD_WIDTH, Config.BOARD_HEIGHT);
+    }
+
+    /**
+     * @param httpPort    Port of the login endpoint.
+     * @param wsPort      Port of the WebSocket endpoint.
+     * @param boardWidth  Width of every board; boards are tiled, so only inked regions cost memory.
+     * @param boardHeight Height of every board.
+     */
+    public LocalWhiteboardServer(int httpPort, int wsPort, int boardWidth, int boardHeight) throws IOException {
+        boards = new BoardRegistry(boardWidth, boardHeight);
+        httpServer = HttpServer.create(new InetSocketAddress(httpPort), 0);
+        httpServer.createContext("/login", this::handleLogin);
+        httpServer.setExecutor(Executors.newFixedThreadPool(4));
+        socketServer = new WhiteboardSocketServer(new InetSocketAddress(wsPort), boards);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int httpPort = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int wsPort = args.length > 1 ? Integer.parseInt(args[1]) : httpPort + 1;
+        int boardWidth = args.length > 2 ? Integer.parseInt(args[2]) : Config.BOARD_WIDTH;
+        int boardHeight = args.length > 3 ? Integer.parseInt(args[3]) : Config.BOARD_HEIGHT;
+        LocalWhiteboardServer server = new LocalWhiteboardServer(httpPort, wsPort, boardWidth, boardHeight);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "local-server-shutdown"));
+    }
+
+    /**
+     * Starts both listeners.
+     */
+    public void start() {
+        httpServer.start();
+        socketServer.start();
+        log.info("Login endpoint on http://localhost:" + httpServer.getAddress().getPort() + "/login");
+    }
+
+    /**
+     * Stops both listeners, closing open connections.
+     */
+    public void stop() {
+        httpServer.stop(0);
+        try {
+            socketServer.stop(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public BoardRegistry getBoards() {
+        return boards;
+    }
+
+    /**
+     * Handles POST /login: {"username": ..., "board_id": optional} -> user id, board id and board size.
+     * <p>
+     * The response headers go out first, announcing the board, so the client can open its WebSocket before
+     * the body arrives. The board itself then comes with the WebSocket's CONFIRM, so the body does not repeat it.
+     */
+    private void handleLogin(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, error("Use POST."));
+            return;
+        }
+
+        JsonObject request;
+        try (InputStream in = exchange.getRequestBody()) {
+            request = JsonParser.parseString(new String(in.readAllBytes(), StandardCharsets.UTF_8)).getAsJsonObject();
+        } catch (RuntimeException e) {
+            respond(exchange, 400, error("Malformed login request."));
+            return;
+        }
+        if (!request.has("username") || request.get("username").getAsString().isBlank()) {
+            respond(exchange, 400, error("Username is required."));
+            return;
+        }
+
+        String username = request.get("username").getAsString();
+        String boardId = request.has("board_id") ? request.get("board_id").getAsString() : BoardRegistry.DEFAULT_BOARD_ID;
+        boolean tiles = ProtocolFeatures.parse(exchange.getRequestHeaders().getFirst(ProtocolFeatures.HEADER))
+                .contains(ProtocolFeatures.TILES);
+        ServerBoard board = boards.get(boardId);
+        if (!tiles && (long) board.getWidth() * board.getHeight() > WhiteboardSocketServer.MAX_DENSE_PIXELS) {
+            respond(exchange, 400, error("Board " + boardId + " is too large to send without the tiles feature."));
+            return;
+        }
+
+        exchange.getResponseHeaders().set(BoardAnnouncement.HEADER,
+                new BoardAnnouncement(boardId, board.getWidth(), board.getHeight()).toHeaderValue());
+        try (OutputStream out = startResponse(exchange, 200)) {
+            out.flush();
+            JsonObject response = new JsonObject();
+            response.addProperty("user_id", "user-" + nextUserId.getAndIncrement());
+            response.addProperty("board_id", boardId);
+            response.addProperty("message", "Welcome, " + username + "!");
+            // Clients read the board from CONFIRM once announced; only its size is needed here
+            response.addProperty("board_width", board.getWidth());
+            response.addProperty("board_height", board.getHeight());
+            out.write(gson.toJson(response).getBytes(StandardCharsets.UTF_8));
+        }
+        log.info("Logged in " + username + " to board " + boardId + ".");
+    }
+
+    private JsonObject error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("message", message);
+        return error;
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonObject body) throws IOException {
+        try (OutputStream out = startResponse(exchange, status)) {
+            out.write(gson.toJson(body).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Sends the status line and headers of a JSON response and returns the stream for its body, gzip
+     * compressed when the client accepts it. The body is sent chunked, so it can be written while it is built.
+     */
+    private static OutputStream startResponse(HttpExchange exchange, int status) throws IOException {
+        String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        boolean gzip = accepted != null && accepted.contains("gzip");
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, 0);
+        OutputStream body = exchange.getResponseBody();
+        return gzip ? new GZIPOutputStream(body, true) : body;
+    }
+}
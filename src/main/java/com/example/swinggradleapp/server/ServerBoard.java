@@ -0,0 +1,120 @@
+package com.example.swinggradleapp.server;
+
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.model.BoardModel;
+import com.example.swinggradleapp.model.BoardSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ServerBoard is the stand-in server's state of one board: a tiled {@link BoardModel} shared by all
+ * connections on the board. Thread-safe.
+ * <p>
+ * Every applied update gets the next sequence number and is kept in a history bounded by
+ * {@link #HISTORY_MAX_POINTS}, so reconnecting clients can be sent what they missed instead of the board.
+ * Callers that must keep a snapshot or a broadcast consistent with the sequence synchronize on the board.
+ */
+public class ServerBoard {
+    // Rasterized points kept for resuming clients; older updates are forgotten first
+    static final int HISTORY_MAX_POINTS = 1_000_000;
+
+    /**
+     * An applied update, kept for replay.
+     */
+    static final class Update {
+        final long seq;
+        final PointBuffer points;
+        final Stroke stroke;
+
+        Update(long seq, PointBuffer points, Stroke stroke) {
+            this.seq = seq;
+            this.points = points;
+            this.stroke = stroke;
+        }
+    }
+
+    private final String boardId;
+    // Identifies this incarnation of the board, so sequence numbers from an earlier one are not resumed from
+    private final long epoch = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+    private final BoardModel model;
+    private final Deque<Update> history = new ArrayDeque<>();
+    private int historyPoints;
+    private long seq;
+
+    public ServerBoard(String boardId, int width, int height) {
+        this.boardId = boardId;
+        this.model = new BoardModel(width, height);
+    }
+
+    /**
+     * Applies a batch of points in order and records it in the history.
+     *
+     * @param points The points; pen 1 sets a pixel, anything else clears it. Kept, so not reused by the caller.
+     * @param stroke The stroke the points were rasterized from, or null.
+     * @return The sequence number of the update.
+     */
+    public synchronized long apply(PointBuffer points, Stroke stroke) {
+        model.apply(points);
+        seq++;
+        history.addLast(new Update(seq, points, stroke));
+        historyPoints += points.size();
+        while (historyPoints > HISTORY_MAX_POINTS && history.size() > 1) {
+            historyPoints -= history.removeFirst().points.size();
+        }
+        return seq;
+    }
+
+    /**
+     * Returns the updates after a sequence number, oldest first.
+     *
+     * @param since The last sequence number the client has.
+     * @return The updates, or null if some of them were already dropped from the history.
+     */
+    synchronized List<Update> since(long since) {
+        if (since > seq || (since < seq && (history.isEmpty() || history.peekFirst().seq > since + 1))) {
+            return null;
+        }
+        List<Update> missed = new ArrayList<>();
+        for (Update update : history) {
+            if (update.seq > since) {
+                missed.add(update);
+            }
+        }
+        return missed;
+    }
+
+    /**
+     * Returns the sequence number of the latest update.
+     */
+    public synchronized long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Returns an immutable snapshot of the current board.
+     */
+    public synchronized BoardSnapshot snapshot() {
+        return model.snapshot();
+    }
+
+    public int getWidth() {
+        return model.getWidth();
+    }
+
+    public int getHeight() {
+        return model.getHeight();
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public String getBoardId() {
+        return boardId;
+    }
+}
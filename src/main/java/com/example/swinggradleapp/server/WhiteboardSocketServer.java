@@ -0,0 +1,694 @@
+package com.example.swinggradleapp.server;
+
+import com.example.swinggradleapp.client.UpdateCoalescer;
+import com.example.swinggradleapp.datatransfer.BoardSnapshotCodec;
+import com.example.swinggradleapp.datatransfer.ChannelCodec;
+import com.example.swinggradleapp.datatransfer.DecodedMessage;
+import com.example.swinggradleapp.datatransfer.JsonStreamDecoder;
+import com.example.swinggradleapp.datatransfer.LegacyTextPointCodec;
+import com.example.swinggradleapp.datatransfer.PackedBoard;
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.PointCodec;
+import com.example.swinggradleapp.datatransfer.PointCodecs;
+import com.example.swinggradleapp.datatransfer.ProtocolFeatures;
+import com.example.swinggradleapp.datatransfer.ResumePoint;
+import com.example.swinggradleapp.datatransfer.SequenceCodec;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.datatransfer.StrokeCodec;
+import com.example.swinggradleapp.datatransfer.StrokeRasterizer;
+import com.example.swinggradleapp.datatransfer.TileCodec;
+import com.example.swinggradleapp.datatransfer.Tiles;
+import com.example.swinggradleapp.datatransfer.TraceCodec;
+import com.example.swinggradleapp.datatransfer.TraceStamp;
+import com.example.swinggradleapp.datatransfer.WireMessage;
+import com.example.swinggradleapp.model.BoardSnapshot;
+import com.example.swinggradleapp.utils.Logger;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WhiteboardSocketServer implements the /ws/draw side of the whiteboard protocol for local testing.
+ * <p>
+ * On connect it sends CONFIRM with the negotiated codecs, the enabled features and the board: as an index
+ * of inked tiles for clients with the tiles feature, which then send TILE_REQUEST, or as one dense matrix.
+ * DRAW, STROKE and legacy text messages are applied to the shared {@link ServerBoard} and fanned out to
+ * every other connection on the same board as UPDATE (or STROKE, to peers that support it). Each outgoing
+ * message is encoded once per codec in use rather than once per connection.
+ * <p>
+ * Updates are numbered per board. Peers with the resume feature get the numbers, and when they reconnect
+ * with {@link SequenceCodec#RESUME_HEADER} they are sent only the updates they missed, see
+ * {@link SequenceCodec}. Applying, numbering and fanning out an update happen under the board's lock so
+ * every peer sees the numbers in order.
+ * <p>
+ * Peers with the channels feature can switch their foreground board with FOCUS and keep following the
+ * boards they left, see {@link ChannelCodec}. Updates to those background boards are collected per
+ * connection and sent as one coalesced UPDATE every {@link #BACKGROUND_FLUSH_MS}, and only while the
+ * connection is not backed up; a background board that falls too far behind is marked STALE instead of
+ * buffering without bound. Moving a board between foreground and background happens under its lock,
+ * so every update reaches a peer exactly one way.
+ * <p>
+ * Peers with the trace feature get a TRACE echo for each DRAW or STROKE they stamped, see {@link TraceCodec}.
+ */
+public final class WhiteboardSocketServer extends WebSocketServer {
+    private static final Logger log = Logger.getLogger(WhiteboardSocketServer.class);
+
+    // Everything this server can speak, cheapest first
+    private static final String SUPPORTED_CODECS = "binary,json,text";
+    private static final String SUPPORTED_FEATURES = ProtocolFeatures.STROKE + "," + ProtocolFeatures.TILES + ","
+            + ProtocolFeatures.RESUME + "," + ProtocolFeatures.CHANNELS + "," + ProtocolFeatures.TRACE;
+
+    // Largest board sent as one dense matrix to clients without the tiles feature
+    static final long MAX_DENSE_PIXELS = 16L * 1024 * 1024;
+
+    // Background boards get at most one coalesced update per interval
+    static final long BACKGROUND_FLUSH_MS = 250;
+    // Distinct pixels a background board may collect before it is marked stale instead
+    static final int BACKGROUND_MAX_POINTS = 200_000;
+    // Background updates wait while more than this is queued on the connection
+    static final long BACKGROUND_MAX_BUFFERED_BYTES = 1024 * 1024;
+
+    private final BoardRegistry boards;
+    private final Gson gson = new Gson();
+    private final AtomicLong messagesIn = new AtomicLong();
+    private final AtomicLong messagesOut = new AtomicLong();
+    private final ScheduledExecutorService backgroundFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ws-background-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Per-connection state, kept as the WebSocket attachment.
+     */
+    static final class ConnectionState {
+        // The foreground board, which drawing goes to; null while FOCUS moves between boards
+        volatile String boardId;
+        final String username;
+        final PointCodec codec;
+        final Set<String> features;
+        final boolean rle;
+        final JsonStreamDecoder jsonDecoder = new JsonStreamDecoder();
+        volatile StrokeRasterizer rasterizer;
+        // Channel of every board opened on this connection, and the background boards it follows
+        final Map<String, Integer> channels = new ConcurrentHashMap<>();
+        final Map<String, Subscription> background = new ConcurrentHashMap<>();
+
+        ConnectionState(String boardId, String username, PointCodec codec, Set<String> features, boolean rle,
+                        StrokeRasterizer rasterizer) {
+            this.boardId = boardId;
+            this.username = username;
+            this.codec = codec;
+            this.features = features;
+            this.rle = rle;
+            this.rasterizer = rasterizer;
+        }
+
+        /**
+         * Returns the channel of a board, assigning the next free one on first use.
+         * Called on the connection's own thread only.
+         */
+        int channelOf(String board) {
+            Integer channel = channels.get(board);
+            if (channel == null) {
+                channel = channels.size();
+                channels.put(board, channel);
+            }
+            return channel;
+        }
+    }
+
+    /**
+     * A background board followed by a connection. Guarded by the board's lock.
+     */
+    static final class Subscription {
+        final int channel;
+        // The pixels changed since the last flush, last writer wins, and the sequence number of the latest update
+        final UpdateCoalescer pending;
+        long seq = SequenceCodec.NONE;
+        boolean live;
+
+        Subscription(int channel, boolean live, ServerBoard board) {
+            this.channel = channel;
+            this.live = live;
+            this.pending = new UpdateCoalescer(board.getWidth(), board.getHeight());
+        }
+    }
+
+    public WhiteboardSocketServer(InetSocketAddress address, BoardRegistry boards) {
+        super(address, List.<Draft>of(new Draft_6455(new PerMessageDeflateExtension()), new Draft_6455()));
+        this.boards = boards;
+        setReuseAddr(true);
+    }
+
+    @Override
+    public void onStart() {
+        backgroundFlusher.scheduleWithFixedDelay(this::flushBackground, BACKGROUND_FLUSH_MS, BACKGROUND_FLUSH_MS,
+                TimeUnit.MILLISECONDS);
+        log.info("WebSocket server listening on port " + getPort());
+    }
+
+    @Override
+    public void stop(int timeout) throws InterruptedException {
+        backgroundFlusher.shutdownNow();
+        super.stop(timeout);
+    }
+
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        Map<String, String> query = parseQuery(handshake.getResourceDescriptor());
+        String boardId = query.getOrDefault("boardId", BoardRegistry.DEFAULT_BOARD_ID);
+        String username = query.getOrDefault("username", "guest");
+
+        PointCodec codec = PointCodecs.negotiate(SUPPORTED_CODECS, handshake.getFieldValue(PointCodecs.HEADER));
+        Set<String> features = new LinkedHashSet<>(ProtocolFeatures.parse(handshake.getFieldValue(ProtocolFeatures.HEADER)));
+        features.retainAll(ProtocolFeatures.parse(SUPPORTED_FEATURES));
+        if (LegacyTextPointCodec.NAME.equals(codec.getName())) {
+            // The text format has no room for sequence numbers, channels or trace stamps
+            features.remove(ProtocolFeatures.RESUME);
+            features.remove(ProtocolFeatures.CHANNELS);
+            features.remove(ProtocolFeatures.TRACE);
+        }
+        String focused = handshake.getFieldValue(ChannelCodec.BOARD_HEADER);
+        if (features.contains(ProtocolFeatures.CHANNELS) && focused != null && !focused.isEmpty()) {
+            // A reconnect after switching boards returns to the board it was on, not the one in the URI
+            boardId = focused.trim();
+        }
+        boolean rle = BoardSnapshotCodec.NAME.equals(firstOf(handshake.getFieldValue(BoardSnapshotCodec.HEADER)));
+        ServerBoard board = boards.get(boardId);
+        StrokeRasterizer rasterizer = new StrokeRasterizer(board.getWidth(), board.getHeight());
+        ConnectionState state = new ConnectionState(boardId, username, codec, features, rle, rasterizer);
+
+        // Held until CONFIRM and any replay are sent, so no update slips in between or arrives ahead of them
+        synchronized (board) {
+            conn.setAttachment(state);
+            String resumeFrom = handshake.getFieldValue(SequenceCodec.RESUME_HEADER);
+            if (features.contains(ProtocolFeatures.RESUME) && resumeFrom != null && !resumeFrom.isEmpty()
+                    && resume(conn, state, board, resumeFrom.trim())) {
+                return;
+            }
+            confirm(conn, state, board);
+        }
+    }
+
+    /**
+     * Sends a CONFIRM marked "resumed" and then every update after the client's sequence number.
+     *
+     * @return false if the history no longer reaches back that far, or the resume point is invalid or from
+     *         an earlier incarnation of the board.
+     */
+    private boolean resume(WebSocket conn, ConnectionState state, ServerBoard board, String resumeFrom) {
+        List<ServerBoard.Update> missed = missedSince(board, resumeFrom);
+        if (missed == null) {
+            log.info("Cannot resume " + state.username + " from " + resumeFrom + "; sending the full board.");
+            return false;
+        }
+        JsonObject confirm = new JsonObject();
+        confirm.addProperty("type", "CONFIRM");
+        confirm.addProperty("username", state.username);
+        confirm.addProperty("resumed", true);
+        addChannel(confirm, state, state.boardId);
+        confirm.add("codecs", names(PointCodecs.advertise(SUPPORTED_CODECS)));
+        confirm.add("features", names(String.join(",", state.features)));
+        conn.send(gson.toJson(confirm));
+        for (ServerBoard.Update update : missed) {
+            send(conn, encodeUpdate(state, update.points, update.stroke, update.seq));
+        }
+        messagesOut.addAndGet(missed.size());
+        log.info("Resumed " + state.username + " on board " + state.boardId + " with " + missed.size() + " missed updates.");
+        return true;
+    }
+
+    /**
+     * Returns the updates after a resume point, or null if the history no longer reaches back that far, or
+     * the resume point is invalid or from an earlier incarnation of the board. Call under the board's lock.
+     */
+    private static List<ServerBoard.Update> missedSince(ServerBoard board, String resumeFrom) {
+        ResumePoint point = ResumePoint.parse(resumeFrom);
+        if (point == null || (point.getEpoch() != SequenceCodec.NONE && point.getEpoch() != board.getEpoch())) {
+            return null;
+        }
+        return board.since(point.getSeq());
+    }
+
+    /**
+     * Sends CONFIRM with the whole board, or its tile index, and the sequence number it corresponds to.
+     */
+    private void confirm(WebSocket conn, ConnectionState state, ServerBoard board) {
+        String boardId = state.boardId;
+        String username = state.username;
+        PointCodec codec = state.codec;
+        Set<String> features = state.features;
+        boolean rle = state.rle;
+
+        JsonObject confirm = new JsonObject();
+        confirm.addProperty("type", "CONFIRM");
+        confirm.addProperty("username", username);
+        addChannel(confirm, state, boardId);
+        BoardSnapshot snapshot = board.snapshot();
+        if (features.contains(ProtocolFeatures.RESUME)) {
+            confirm.addProperty("seq", board.getSeq());
+            confirm.addProperty("epoch", board.getEpoch());
+        }
+        if (features.contains(ProtocolFeatures.TILES)) {
+            // Only the index of inked tiles; the client requests the ones it needs
+            confirm.addProperty("width", snapshot.getWidth());
+            confirm.addProperty("height", snapshot.getHeight());
+            confirm.addProperty("tile_size", Tiles.SIZE);
+            confirm.add("tiles", TileCodec.toJson(snapshot.getTileKeys()));
+        } else if ((long) snapshot.getWidth() * snapshot.getHeight() <= MAX_DENSE_PIXELS) {
+            addMatrix(confirm, "matrix", "matrix_encoding", snapshot.toPackedBoard(), rle);
+        } else {
+            sendError(conn, "Board " + boardId + " is too large to send without the tiles feature.");
+            conn.close(1008, "Tiles required");
+            return;
+        }
+        confirm.add("codecs", names(PointCodecs.advertise(SUPPORTED_CODECS)));
+        confirm.add("features", names(String.join(",", features)));
+        conn.send(gson.toJson(confirm));
+        log.info("Connection opened for " + username + " on board " + boardId + " (codec " + codec.getName() + ").");
+    }
+
+    /**
+     * Names the board and its channel in a message, for peers with the channels feature.
+     */
+    private static void addChannel(JsonObject message, ConnectionState state, String boardId) {
+        if (state.features.contains(ProtocolFeatures.CHANNELS)) {
+            message.addProperty("board", boardId);
+            message.addProperty("channel", state.channelOf(boardId));
+        }
+    }
+
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        ConnectionState state = conn.getAttachment();
+        log.info("Connection closed" + (state != null ? " for " + state.username : "") + ": " + code + " " + reason);
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+        handle(conn, WireMessage.text(message));
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, ByteBuffer bytes) {
+        byte[] data = new byte[bytes.remaining()];
+        bytes.get(data);
+        handle(conn, WireMessage.binary(data));
+    }
+
+    @Override
+    public void onError(WebSocket conn, Exception ex) {
+        log.error("WebSocket server error: " + ex.getMessage(), ex);
+    }
+
+    /**
+     * Returns the number of messages received and sent so far.
+     */
+    public long[] getMessageCounts() {
+        return new long[]{messagesIn.get(), messagesOut.get()};
+    }
+
+    private void handle(WebSocket conn, WireMessage message) {
+        messagesIn.incrementAndGet();
+        ConnectionState state = conn.getAttachment();
+        try {
+            PointBuffer points = new PointBuffer();
+            Stroke stroke = null;
+            TraceStamp trace = null;
+
+            if (TraceCodec.isBinaryTraced(message)) {
+                trace = TraceCodec.stampOf(message);
+                message = TraceCodec.unwrap(message);
+            }
+            if (StrokeCodec.isBinaryStroke(message)) {
+                stroke = StrokeCodec.decodeBinary(message);
+            } else if (message.isBinary() || !message.getText().startsWith("{")) {
+                PointCodec decoder = PointCodecs.forMessage(message);
+                if (decoder == null) {
+                    sendError(conn, "Unsupported message format.");
+                    return;
+                }
+                decoder.decode(message, points);
+            } else {
+                DecodedMessage decoded = state.jsonDecoder.decode(message.getText());
+                String type = decoded.getType();
+                if ("DRAW".equals(type)) {
+                    points.addAll(decoded.getPoints(), 0, decoded.getPoints().size());
+                    trace = TraceCodec.fromJson(decoded.toJsonObject().get("trace"));
+                } else if ("STROKE".equals(type)) {
+                    stroke = decoded.toStroke();
+                    trace = TraceCodec.fromJson(decoded.toJsonObject().get("trace"));
+                } else if ("TILE_REQUEST".equals(type)) {
+                    sendTiles(conn, state, TileCodec.fromJson(decoded.toJsonObject().get("tiles")));
+                    return;
+                } else if ("FOCUS".equals(type) || "SUBSCRIBE".equals(type) || "UNSUBSCRIBE".equals(type)) {
+                    handleChannel(conn, state, type, decoded.toJsonObject());
+                    return;
+                } else if ("LEAVE".equals(type)) {
+                    conn.close(1000, "Left");
+                    return;
+                } else {
+                    sendError(conn, "Unknown message type: " + type);
+                    return;
+                }
+            }
+
+            ServerBoard board = boards.get(state.boardId);
+            if (stroke != null) {
+                state.rasterizer.rasterize(stroke, points);
+            }
+            synchronized (board) {
+                long seq = board.apply(points, stroke);
+                fanOut(conn, state.boardId, points, stroke, seq);
+                if (trace != null && state.features.contains(ProtocolFeatures.TRACE)) {
+                    // Queued behind the update on every peer, so the sender sees what its collaborators see
+                    send(conn, TraceCodec.echo(trace));
+                    messagesOut.incrementAndGet();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Rejected message from " + state.username + ": " + e.getMessage());
+            sendError(conn, "Malformed message: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles FOCUS, SUBSCRIBE and UNSUBSCRIBE. Runs on the connection's own thread, like every message
+     * of the connection, so the foreground board cannot change under a DRAW.
+     */
+    private void handleChannel(WebSocket conn, ConnectionState state, String type, JsonObject message) {
+        if (!state.features.contains(ProtocolFeatures.CHANNELS)) {
+            sendError(conn, "Channels are not enabled for this connection.");
+            return;
+        }
+        String boardId = message.get("board").getAsString();
+        String resumeFrom = message.has("resume") ? message.get("resume").getAsString() : null;
+        if (boardId.equals(state.boardId)) {
+            return;
+        }
+        if ("FOCUS".equals(type)) {
+            focus(conn, state, boardId, resumeFrom);
+        } else if ("SUBSCRIBE".equals(type)) {
+            subscribe(conn, state, boardId, resumeFrom);
+        } else {
+            synchronized (boards.get(boardId)) {
+                state.background.remove(boardId);
+            }
+        }
+    }
+
+    /**
+     * Moves the foreground to another board. The board left behind is followed in the background from the
+     * last update already sent; the new one is confirmed, resumed from the client's copy if possible.
+     */
+    private void focus(WebSocket conn, ConnectionState state, String boardId, String resumeFrom) {
+        String previous = state.boardId;
+        ServerBoard left = boards.get(previous);
+        synchronized (left) {
+            state.background.put(previous, new Subscription(state.channelOf(previous), true, left));
+            // In between neither board is in the foreground, so no plain update of either can slip out
+            state.boardId = null;
+        }
+        ServerBoard board = boards.get(boardId);
+        synchronized (board) {
+            // Whatever was pending for the background copy is part of the CONFIRM or the replay below
+            state.background.remove(boardId);
+            state.boardId = boardId;
+            state.rasterizer = new StrokeRasterizer(board.getWidth(), board.getHeight());
+            if (state.features.contains(ProtocolFeatures.RESUME) && resumeFrom != null
+                    && resume(conn, state, board, resumeFrom)) {
+                return;
+            }
+            confirm(conn, state, board);
+        }
+    }
+
+    /**
+     * Follows a board in the background from a resume point, starting with the updates missed since.
+     */
+    private void subscribe(WebSocket conn, ConnectionState state, String boardId, String resumeFrom) {
+        ServerBoard board = boards.get(boardId);
+        synchronized (board) {
+            List<ServerBoard.Update> missed = state.features.contains(ProtocolFeatures.RESUME) && resumeFrom != null
+                    ? missedSince(board, resumeFrom) : null;
+            Subscription subscription = new Subscription(state.channelOf(boardId), missed != null, board);
+            if (missed != null) {
+                for (ServerBoard.Update update : missed) {
+                    collect(subscription, update.points, update.seq);
+                }
+            }
+            state.background.put(boardId, subscription);
+
+            JsonObject subscribed = new JsonObject();
+            subscribed.addProperty("type", "SUBSCRIBED");
+            subscribed.addProperty("board", boardId);
+            subscribed.addProperty("channel", subscription.channel);
+            subscribed.addProperty("live", subscription.live);
+            conn.send(gson.toJson(subscribed));
+        }
+    }
+
+    /**
+     * Merges an update into a background board's pending pixels, or marks the board stale once they are
+     * too many distinct pixels. Call under the board's lock.
+     *
+     * @return false if the board is, or just became, stale.
+     */
+    private static boolean collect(Subscription subscription, PointBuffer points, long seq) {
+        if (!subscription.live) {
+            return false;
+        }
+        subscription.pending.merge(points);
+        if (subscription.pending.pendingCount() > BACKGROUND_MAX_POINTS) {
+            subscription.live = false;
+            subscription.pending.clear();
+            return false;
+        }
+        subscription.seq = seq;
+        return true;
+    }
+
+    /**
+     * Sends every background board its pending points as one UPDATE. Runs every {@link #BACKGROUND_FLUSH_MS}
+     * on the flusher thread; connections backed up with foreground traffic are skipped until they drain.
+     */
+    private void flushBackground() {
+        PointBuffer pending = new PointBuffer();
+        try {
+            for (WebSocket conn : getConnections()) {
+                ConnectionState state = conn.getAttachment();
+                if (state == null || state.background.isEmpty() || !conn.isOpen()
+                        || bufferedAmount(conn) > BACKGROUND_MAX_BUFFERED_BYTES) {
+                    continue;
+                }
+                for (Map.Entry<String, Subscription> entry : state.background.entrySet()) {
+                    Subscription subscription = entry.getValue();
+                    synchronized (boards.get(entry.getKey())) {
+                        // Skip boards focused or dropped since the iteration started
+                        if (state.background.get(entry.getKey()) != subscription || !subscription.live
+                                || subscription.pending.pendingCount() == 0) {
+                            continue;
+                        }
+                        pending.clear();
+                        subscription.pending.drainTo(pending);
+                        WireMessage update = state.codec.encode("UPDATE", pending, 0, pending.size());
+                        if (state.features.contains(ProtocolFeatures.RESUME)) {
+                            update = SequenceCodec.wrap(subscription.seq, update);
+                        }
+                        send(conn, ChannelCodec.wrap(subscription.channel, update));
+                        messagesOut.incrementAndGet();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to flush background updates: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the bytes queued on a connection and not yet written to the network.
+     */
+    private static long bufferedAmount(WebSocket conn) {
+        if (!(conn instanceof WebSocketImpl)) {
+            return 0;
+        }
+        long total = 0;
+        for (ByteBuffer buffer : ((WebSocketImpl) conn).outQueue) {
+            total += buffer.remaining();
+        }
+        return total;
+    }
+
+    /**
+     * Sends an update to every other connection on the board, encoding it once per distinct format.
+     * Connections following the board in the background collect it for their next coalesced update.
+     */
+    private void fanOut(WebSocket sender, String boardId, PointBuffer points, Stroke stroke, long seq) {
+        Map<String, List<WebSocket>> byFormat = new HashMap<>();
+        for (WebSocket peer : getConnections()) {
+            ConnectionState peerState = peer.getAttachment();
+            if (peer == sender || peerState == null || !peer.isOpen()) {
+                continue;
+            }
+            if (!boardId.equals(peerState.boardId)) {
+                Subscription subscription = peerState.background.get(boardId);
+                if (subscription != null && subscription.live && !collect(subscription, points, seq)) {
+                    sendStale(peer, boardId);
+                }
+                continue;
+            }
+            String format = (asStroke(peerState, stroke) ? "stroke:" : "points:") + peerState.codec.getName()
+                    + (peerState.features.contains(ProtocolFeatures.RESUME) ? ":seq" : "");
+            byFormat.computeIfAbsent(format, k -> new ArrayList<>()).add(peer);
+        }
+
+        for (Map.Entry<String, List<WebSocket>> entry : byFormat.entrySet()) {
+            List<WebSocket> peers = entry.getValue();
+            ConnectionState first = peers.get(0).getAttachment();
+            WireMessage update = encodeUpdate(first, points, stroke, seq);
+            if (update.isBinary()) {
+                broadcast(update.getBinary(), peers);
+            } else {
+                broadcast(update.getText(), peers);
+            }
+            messagesOut.addAndGet(peers.size());
+        }
+    }
+
+    /**
+     * Encodes an update the way a connection expects it: as a STROKE when it can take one, in its codec,
+     * and stamped with the sequence number when it has the resume feature.
+     */
+    private static WireMessage encodeUpdate(ConnectionState state, PointBuffer points, Stroke stroke, long seq) {
+        WireMessage update = asStroke(state, stroke)
+                ? StrokeCodec.encode(stroke, state.codec)
+                : state.codec.encode("UPDATE", points, 0, points.size());
+        return state.features.contains(ProtocolFeatures.RESUME) ? SequenceCodec.wrap(seq, update) : update;
+    }
+
+    private static boolean asStroke(ConnectionState state, Stroke stroke) {
+        return stroke != null && state.features.contains(ProtocolFeatures.STROKE)
+                && !LegacyTextPointCodec.NAME.equals(state.codec.getName());
+    }
+
+    private static void send(WebSocket conn, WireMessage message) {
+        if (message.isBinary()) {
+            conn.send(message.getBinary());
+        } else {
+            conn.send(message.getText());
+        }
+    }
+
+    /**
+     * Answers a TILE_REQUEST from one consistent snapshot, one TILE per requested tile, blank ones included.
+     */
+    private void sendTiles(WebSocket conn, ConnectionState state, List<Long> keys) {
+        BoardSnapshot snapshot = boards.get(state.boardId).snapshot();
+        int tilesX = Tiles.count(snapshot.getWidth());
+        int tilesY = Tiles.count(snapshot.getHeight());
+        for (long key : keys) {
+            int tileX = Tiles.keyX(key);
+            int tileY = Tiles.keyY(key);
+            if (tileX < 0 || tileY < 0 || tileX >= tilesX || tileY >= tilesY) {
+                continue;
+            }
+            send(conn, TileCodec.encode(tileX, tileY, snapshot.getTile(tileX, tileY), state.codec));
+            messagesOut.incrementAndGet();
+        }
+    }
+
+    private void sendStale(WebSocket conn, String boardId) {
+        JsonObject stale = new JsonObject();
+        stale.addProperty("type", "STALE");
+        stale.addProperty("board", boardId);
+        conn.send(gson.toJson(stale));
+    }
+
+    private void sendError(WebSocket conn, String errorMessage) {
+        JsonObject error = new JsonObject();
+        error.addProperty("type", "ERROR");
+        error.addProperty("message", errorMessage);
+        conn.send(gson.toJson(error));
+    }
+
+    /**
+     * Adds a board snapshot to a JSON message, as an rle string or as the plain int matrix.
+     */
+    static void addMatrix(JsonObject message, String field, String encodingField, PackedBoard board, boolean rle) {
+        if (rle) {
+            message.addProperty(field, BoardSnapshotCodec.encodeBase64(board));
+            message.addProperty(encodingField, BoardSnapshotCodec.NAME);
+            return;
+        }
+        JsonArray rows = new JsonArray();
+        for (int y = 0; y < board.getHeight(); y++) {
+            JsonArray row = new JsonArray();
+            for (int x = 0; x < board.getWidth(); x++) {
+                row.add(board.get(x, y));
+            }
+            rows.add(row);
+        }
+        message.add(field, rows);
+    }
+
+    /**
+     * Returns the first entry of a comma separated header value, or null.
+     */
+    static String firstOf(String list) {
+        if (list == null || list.isEmpty()) {
+            return null;
+        }
+        return list.split(",")[0].trim().toLowerCase();
+    }
+
+    private static JsonArray names(String list) {
+        JsonArray array = new JsonArray();
+        for (String name : list.split(",")) {
+            if (!name.trim().isEmpty()) {
+                array.add(name.trim());
+            }
+        }
+        return array;
+    }
+
+    private static Map<String, String> parseQuery(String resourceDescriptor) {
+        Map<String, String> query = new HashMap<>();
+        String raw = URI.create(resourceDescriptor).getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+}
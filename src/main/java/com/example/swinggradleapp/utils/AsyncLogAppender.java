@@ -0,0 +1,144 @@
+package com.example.swinggradleapp.utils;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AsyncLogAppender moves console output off the calling thread.
+ * <p>
+ * Log calls copy their already-built message into a fixed-size ring buffer and return; a daemon thread
+ * formats and prints the entries. When the ring is full new entries are dropped and counted rather than
+ * blocking the caller, so a burst of debug output can never stall the EDT or a network thread.
+ */
+public final class AsyncLogAppender {
+    private static final AsyncLogAppender INSTANCE = new AsyncLogAppender(Config.LOG_BUFFER_SIZE);
+
+    private final Entry[] ring;
+    private final int mask;
+    private long head; // Next slot to write
+    private long tail; // Next slot to print
+    private final AtomicLong dropped = new AtomicLong();
+
+    private static final class Entry {
+        long timeMillis;
+        LogLevel level;
+        String loggerName;
+        String threadName;
+        String message;
+        Throwable error;
+    }
+
+    private AsyncLogAppender(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new Entry[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Entry();
+        }
+        this.mask = size - 1;
+
+        Thread writer = new Thread(this::drainLoop, "log-appender");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "log-appender-flush"));
+    }
+
+    public static AsyncLogAppender getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues a log entry for printing.
+     *
+     * @param level      The entry level.
+     * @param loggerName The name of the logger.
+     * @param message    The fully built message.
+     * @param error      An optional throwable to print with the message.
+     */
+    public synchronized void append(LogLevel level, String loggerName, String message, Throwable error) {
+        if (head - tail == ring.length) {
+            dropped.incrementAndGet();
+            return;
+        }
+        Entry entry = ring[(int) (head & mask)];
+        entry.timeMillis = System.currentTimeMillis();
+        entry.level = level;
+        entry.loggerName = loggerName;
+        entry.threadName = Thread.currentThread().getName();
+        entry.message = message;
+        entry.error = error;
+        head++;
+        notifyAll();
+    }
+
+    /**
+     * Returns how many entries were dropped because the ring was full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Prints everything queued so far on the calling thread.
+     */
+    public void flush() {
+        try {
+            while (printNext(false)) {
+                // Keep printing until the ring is empty
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            try {
+                printNext(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean printNext(boolean wait) throws InterruptedException {
+        long time;
+        LogLevel level;
+        String loggerName;
+        String threadName;
+        String message;
+        Throwable error;
+        synchronized (this) {
+            while (tail == head) {
+                if (!wait) {
+                    return false;
+                }
+                wait();
+            }
+            Entry entry = ring[(int) (tail & mask)];
+            time = entry.timeMillis;
+            level = entry.level;
+            loggerName = entry.loggerName;
+            threadName = entry.threadName;
+            message = entry.message;
+            error = entry.error;
+            entry.message = null;
+            entry.error = null;
+            tail++;
+        }
+
+        PrintStream out = level.compareTo(LogLevel.WARN) >= 0 ? System.err : System.out;
+        long droppedSoFar = dropped.getAndSet(0);
+        if (droppedSoFar > 0) {
+            System.err.println("[log] " + droppedSoFar + " log entries dropped, buffer full");
+        }
+        out.println(Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()).toLocalTime() + " " + level
+                + " [" + threadName + "] " + loggerName + " - " + message);
+        if (error != null) {
+            error.printStackTrace(out);
+        }
+        return true;
+    }
+}
@@ -6,9 +6,92 @@ package com.example.swinggradleapp.utils;
 public class Config {
     public static final boolean USE_REAL_CLIENT = true;
 
-    public static final String WEBSOCKET_URL = "ws://localhost:8080/ws/draw"; // Update when server is live
+    // Server endpoints; override with -Dwhiteboard.websocketUrl / -Dwhiteboard.loginUrl, e.g. for LocalWhiteboardServer
+    public static final String WEBSOCKET_URL = System.getProperty("whiteboard.websocketUrl", "ws://localhost:8080/ws/draw");
 
-    public static final String LOGIN_URL = "http://localhost:8080/login"; // Update when server is live
+    public static final String LOGIN_URL = System.getProperty("whiteboard.loginUrl", "http://localhost:8080/login");
+
+    // Longest wait for the login to connect, and for its response
+    public static final long LOGIN_TIMEOUT_MS = 10_000;
+
+    // Offer permessage-deflate on the WebSocket; frames below the threshold are sent uncompressed
+    public static final boolean WS_DEFLATE_ENABLED = true;
+    public static final int WS_DEFLATE_THRESHOLD_BYTES = 256;
+
+    // Point codecs this client may use on the wire, negotiated down to the cheapest one the server also supports
+    public static final String WIRE_CODECS = "binary,json,text";
+
+    // Optional protocol features offered to the server, see ProtocolFeatures
+    public static final String PROTOCOL_FEATURES = "stroke,tiles,resume,channels,trace";
+
+    // Board snapshot formats requested from the server, preferred first; "json" is the plain int matrix
+    public static final String SNAPSHOT_FORMATS = "rle,json";
+
+    // A stroke in progress is flushed to the server at least this often while dragging; on slower links
+    // the interval follows the round-trip time up to the maximum...
+    public static final int STROKE_FLUSH_INTERVAL_MS = 16;
+    public static final int STROKE_FLUSH_MAX_INTERVAL_MS = 64;
+
+    // ...or as soon as it has captured this many new pixels
+    public static final int STROKE_FLUSH_MAX_POINTS = 1200;
+
+    // Outbound DRAW points and STROKE centers per message: adjusted at runtime between the bounds, see BatchSizer
+    public static final int OUTBOUND_MIN_BATCH_POINTS = 100;
+    public static final int OUTBOUND_INITIAL_BATCH_POINTS = 300;
+    public static final int OUTBOUND_MAX_BATCH_POINTS = 1500;
+    public static final int OUTBOUND_MIN_BATCH_CENTERS = 40;
+    public static final int OUTBOUND_INITIAL_BATCH_CENTERS = 300;
+    public static final int OUTBOUND_MAX_BATCH_CENTERS = 600;
+
+    // Below this round-trip time an idle link gets smaller batches
+    public static final long BATCH_FAST_RTT_MS = 20;
+
+    // Queued points before the outbound queue compacts
+    public static final int OUTBOUND_QUEUE_MAX_POINTS = 200_000;
+
+    // The sender pauses while the socket holds more unsent bytes than this
+    public static final long OUTBOUND_HIGH_WATERMARK_BYTES = 256 * 1024;
+
+    // How long close() waits for queued messages to go out
+    public static final long OUTBOUND_CLOSE_TIMEOUT_MS = 1000;
+
+    // After an unexpected disconnect the client reconnects, doubling the delay per failed attempt up to the maximum
+    public static final long RECONNECT_INITIAL_DELAY_MS = 250;
+    public static final long RECONNECT_MAX_DELAY_MS = 10_000;
+
+    // Boards left for another over the same connection whose contents are kept, the least recently used dropped first
+    public static final int MAX_BACKGROUND_BOARDS = 8;
+
+    // Raw inbound messages waiting for the decoder thread; when full the WebSocket reader blocks
+    public static final int INBOUND_QUEUE_CAPACITY = 1024;
+
+    // Local board cache: its directory (override with -Dwhiteboard.cacheDir) and the disk space all cached boards share
+    public static final String BOARD_CACHE_DIR = System.getProperty("whiteboard.cacheDir", System.getProperty("user.home") + "/.whiteboard/boards");
+    public static final long BOARD_CACHE_MAX_BYTES = 256L * 1024 * 1024;
+
+    // Canvas repaint rate cap
+    public static final int RENDER_FPS = 60;
+
+    // Longest side of the minimap overview shown while part of the board is out of view
+    public static final int MINIMAP_SIZE = 160;
+
+    // Most merged remote points applied per frame; the rest wait for the next frame so local input stays responsive
+    public static final int MAX_REMOTE_POINTS_PER_FRAME = 200_000;
+
+    // At most one outbound DRAW/STROKE per interval is stamped for end-to-end latency tracing
+    public static final long TRACE_SAMPLE_INTERVAL_MS = 250;
+
+    // Client metrics: the JMX MBean they are published under, and an optional file (-Dwhiteboard.metricsFile) dumped periodically
+    public static final boolean METRICS_JMX_ENABLED = true;
+    public static final String METRICS_JMX_NAME = "com.example.swinggradleapp:type=Metrics";
+    public static final String METRICS_DUMP_FILE = System.getProperty("whiteboard.metricsFile");
+    public static final long METRICS_DUMP_INTERVAL_MS = 10_000;
+
+    // Console log level; override with -Dwhiteboard.logLevel=DEBUG
+    public static final LogLevel LOG_LEVEL = LogLevel.parse(System.getProperty("whiteboard.logLevel"), LogLevel.INFO);
+
+    // Entries the async log appender holds before it starts dropping
+    public static final int LOG_BUFFER_SIZE = 8192;
 
     // Centralizing board dimensions
     public static final int BOARD_WIDTH = 800;  // Width in pixels (columns)
@@ -0,0 +1,30 @@
+package com.example.swinggradleapp.utils;
+
+/**
+ * LogLevel orders log messages by severity; a logger emits messages at or above its configured level.
+ */
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    OFF;
+
+    /**
+     * Parses a level name, falling back to the given default for null or unknown names.
+     *
+     * @param name         The level name, case insensitive.
+     * @param defaultLevel The level to use when the name is not recognized.
+     * @return The parsed level.
+     */
+    public static LogLevel parse(String name, LogLevel defaultLevel) {
+        if (name != null) {
+            for (LogLevel level : values()) {
+                if (level.name().equalsIgnoreCase(name.trim())) {
+                    return level;
+                }
+            }
+        }
+        return defaultLevel;
+    }
+}
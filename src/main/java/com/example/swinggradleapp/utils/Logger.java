@@ -0,0 +1,86 @@
+package com.example.swinggradleapp.utils;
+
+import java.util.function.Supplier;
+
+/**
+ * Logger is the application's logging facade.
+ * <p>
+ * Messages below the configured level return after a single comparison. The Supplier overloads build
+ * their message only when the level is enabled, so debug logging on hot paths costs nothing when off.
+ * Enabled messages are handed to {@link AsyncLogAppender} and printed on its thread.
+ */
+public final class Logger {
+    private static volatile LogLevel level = Config.LOG_LEVEL;
+
+    private final String name;
+
+    private Logger(String name) {
+        this.name = name;
+    }
+
+    public static Logger getLogger(Class<?> type) {
+        return new Logger(type.getSimpleName());
+    }
+
+    public static void setLevel(LogLevel newLevel) {
+        level = newLevel;
+    }
+
+    public static LogLevel getLevel() {
+        return level;
+    }
+
+    public boolean isEnabled(LogLevel messageLevel) {
+        return messageLevel.compareTo(level) >= 0 && messageLevel != LogLevel.OFF;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(LogLevel.DEBUG);
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            append(LogLevel.DEBUG, message.get(), null);
+        }
+    }
+
+    public void debug(String message) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            append(LogLevel.DEBUG, message, null);
+        }
+    }
+
+    public void info(Supplier<String> message) {
+        if (isEnabled(LogLevel.INFO)) {
+            append(LogLevel.INFO, message.get(), null);
+        }
+    }
+
+    public void info(String message) {
+        if (isEnabled(LogLevel.INFO)) {
+            append(LogLevel.INFO, message, null);
+        }
+    }
+
+    public void warn(String message) {
+        if (isEnabled(LogLevel.WARN)) {
+            append(LogLevel.WARN, message, null);
+        }
+    }
+
+    public void error(String message) {
+        if (isEnabled(LogLevel.ERROR)) {
+            append(LogLevel.ERROR, message, null);
+        }
+    }
+
+    public void error(String message, Throwable error) {
+        if (isEnabled(LogLevel.ERROR)) {
+            append(LogLevel.ERROR, message, error);
+        }
+    }
+
+    private void append(LogLevel messageLevel, String message, Throwable error) {
+        AsyncLogAppender.getInstance().append(messageLevel, name, message, error);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.swinggradleapp.client;
+
+import com.example.swinggradleapp.utils.Config;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchSizerTest {
+
+    @Test
+    void growsWhileBackedUpUpToTheMaximum() {
+        BatchSizer sizer = new BatchSizer();
+        int before = sizer.getBatchPoints();
+        sizer.onSent(0, 3);
+        assertTrue(sizer.getBatchPoints() > before);
+        assertTrue(sizer.getBatchCenters() > Config.OUTBOUND_INITIAL_BATCH_CENTERS);
+
+        for (int i = 0; i < 100; i++) {
+            sizer.onSent(Config.OUTBOUND_HIGH_WATERMARK_BYTES, 0);
+        }
+        assertEquals(Config.OUTBOUND_MAX_BATCH_POINTS, sizer.getBatchPoints());
+        assertEquals(Config.OUTBOUND_MAX_BATCH_CENTERS, sizer.getBatchCenters());
+    }
+
+    @Test
+    void halvesOnErrorsDownToTheMinimum() {
+        BatchSizer sizer = new BatchSizer();
+        sizer.onError();
+        assertEquals(Config.OUTBOUND_INITIAL_BATCH_POINTS / 2, sizer.getBatchPoints());
+        assertEquals(Config.OUTBOUND_INITIAL_BATCH_CENTERS / 2, sizer.getBatchCenters());
+
+        for (int i = 0; i < 20; i++) {
+            sizer.onError();
+        }
+        assertEquals(Config.OUTBOUND_MIN_BATCH_POINTS, sizer.getBatchPoints());
+        assertEquals(Config.OUTBOUND_MIN_BATCH_CENTERS, sizer.getBatchCenters());
+    }
+
+    @Test
+    void shrinksOnAFastIdleLink() {
+        BatchSizer sizer = new BatchSizer();
+        // Unknown round-trip time: no reason to shrink
+        sizer.onSent(0, 0);
+        assertEquals(Config.OUTBOUND_INITIAL_BATCH_POINTS, sizer.getBatchPoints());
+
+        sizer.onRoundTrip(Config.BATCH_FAST_RTT_MS * 1000 / 2);
+        sizer.onSent(0, 0);
+        assertTrue(sizer.getBatchPoints() < Config.OUTBOUND_INITIAL_BATCH_POINTS);
+    }
+
+    @Test
+    void flushIntervalFollowsRoundTripWithinBounds() {
+        BatchSizer sizer = new BatchSizer();
+        sizer.onRoundTrip(1_000);
+        assertEquals(Config.STROKE_FLUSH_INTERVAL_MS, sizer.getFlushIntervalMillis());
+
+        for (int i = 0; i < 100; i++) {
+            sizer.onRoundTrip(1_000_000);
+        }
+        assertEquals(Config.STROKE_FLUSH_MAX_INTERVAL_MS, sizer.getFlushIntervalMillis());
+    }
+
+    @Test
+    void fixedSizerIgnoresFeedback() {
+        BatchSizer sizer = new BatchSizer(false);
+        sizer.onSent(Config.OUTBOUND_HIGH_WATERMARK_BYTES, 10);
+        sizer.onError();
+        sizer.onRoundTrip(1_000_000);
+        assertEquals(Config.OUTBOUND_INITIAL_BATCH_POINTS, sizer.getBatchPoints());
+        assertEquals(Config.OUTBOUND_INITIAL_BATCH_CENTERS, sizer.getBatchCenters());
+        assertEquals(Config.STROKE_FLUSH_INTERVAL_MS, sizer.getFlushIntervalMillis());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.swinggradleapp.client;
+
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.ResumePoint;
+import com.example.swinggradleapp.datatransfer.SequenceCodec;
+import com.example.swinggradleapp.model.BoardModel;
+import com.example.swinggradleapp.model.BoardSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardChannelTest {
+
+    private static PointBuffer point(int x, int y, int pen) {
+        PointBuffer points = new PointBuffer();
+        points.add(x, y, pen);
+        return points;
+    }
+
+    private static BoardChannel backgrounded() {
+        BoardModel foreground = new BoardModel(800, 600);
+        foreground.fillRect(10, 10, 5, 5, 1);
+        BoardChannel channel = new BoardChannel("other");
+        channel.keep(foreground, new ResumePoint(3, 100));
+        // Later foreground drawing belongs to the next board, not to the kept copy
+        foreground.fillRect(0, 0, 800, 600, 1);
+        return channel;
+    }
+
+    @Test
+    void followsBackgroundUpdatesAndResumesFromTheLast() {
+        BoardChannel channel = backgrounded();
+        channel.apply(101, point(50, 50, 1));
+        // Already applied; a replay must not move the resume point back
+        channel.apply(101, point(60, 60, 1));
+
+        ResumePoint point = channel.getResumePoint();
+        assertNotNull(point);
+        assertEquals(3, point.getEpoch());
+        assertEquals(101, point.getSeq());
+
+        BoardSnapshot board = channel.take();
+        assertEquals(1, board.get(12, 12));
+        assertEquals(1, board.get(50, 50));
+        assertEquals(0, board.get(60, 60));
+        assertEquals(0, board.get(0, 0));
+        assertFalse(channel.isKept());
+        assertNull(channel.getResumePoint());
+    }
+
+    @Test
+    void ignoresUpdatesOnceFrozenForFocus() {
+        BoardChannel channel = backgrounded();
+        channel.freeze();
+        channel.apply(101, point(50, 50, 1));
+
+        assertEquals(100, channel.getResumePoint().getSeq());
+        assertEquals(0, channel.take().get(50, 50));
+    }
+
+    @Test
+    void unsequencedUpdateLeavesNoResumePoint() {
+        BoardChannel channel = backgrounded();
+        channel.apply(SequenceCodec.NONE, point(50, 50, 1));
+
+        assertTrue(channel.isKept());
+        assertNull(channel.getResumePoint());
+        assertEquals(1, channel.take().get(50, 50));
+    }
+
+    @Test
+    void keepsNothingForAnIncompleteBoard() {
+        BoardChannel channel = new BoardChannel("other");
+        channel.keep(new BoardModel(800, 600), null);
+        channel.apply(101, point(50, 50, 1));
+
+        assertFalse(channel.isKept());
+        assertNull(channel.getResumePoint());
+        assertNull(channel.take());
+    }
+}
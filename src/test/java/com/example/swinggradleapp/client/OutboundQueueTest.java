@@ -0,0 +1,172 @@
+package com.example.swinggradleapp.client;
+
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.Stroke;
+import com.example.swinggradleapp.utils.Config;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboundQueueTest {
+
+    /**
+     * Records everything sent, in order.
+     */
+    private static class RecordingSink implements OutboundQueue.Sink {
+        final List<Object> sent = new ArrayList<>();
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public long getBufferedAmount() {
+            return 0;
+        }
+
+        @Override
+        public synchronized void sendDraw(PointBuffer points) {
+            sent.add(points);
+        }
+
+        @Override
+        public synchronized void sendStroke(Stroke stroke) {
+            sent.add(stroke);
+        }
+
+        @Override
+        public synchronized void sendText(String message) {
+            sent.add(message);
+        }
+    }
+
+    private static PointBuffer points(int count, int x0) {
+        PointBuffer points = new PointBuffer();
+        for (int i = 0; i < count; i++) {
+            points.add(x0 + i, 0, 1);
+        }
+        return points;
+    }
+
+    @Test
+    void mergesAdjacentDrawBatches() {
+        RecordingSink sink = new RecordingSink();
+        OutboundQueue queue = new OutboundQueue(sink, new BatchSizer(false), 800, 600);
+        queue.enqueueDraw(points(10, 0));
+        queue.enqueueDraw(points(10, 10));
+        queue.enqueueDraw(points(10, 20));
+        queue.enqueueText("{\"type\":\"PING\"}");
+        queue.enqueueDraw(points(5, 30));
+        queue.start();
+        queue.shutdown(5000);
+
+        assertEquals(3, sink.sent.size());
+        PointBuffer merged = (PointBuffer) sink.sent.get(0);
+        assertEquals(30, merged.size());
+        for (int i = 0; i < merged.size(); i++) {
+            assertEquals(i, merged.getX(i));
+        }
+        assertEquals("{\"type\":\"PING\"}", sink.sent.get(1));
+        assertEquals(5, ((PointBuffer) sink.sent.get(2)).size());
+    }
+
+    @Test
+    void mergesContiguousStrokeSegments() {
+        RecordingSink sink = new RecordingSink();
+        OutboundQueue queue = new OutboundQueue(sink, new BatchSizer(false), 800, 600);
+        Stroke first = new Stroke(3, 1);
+        first.add(10, 10);
+        first.add(20, 10);
+        Stroke second = new Stroke(3, 1);
+        second.add(20, 10);
+        second.add(30, 15);
+        // Starts elsewhere, so it is a new stroke
+        Stroke third = new Stroke(3, 1);
+        third.add(100, 100);
+        queue.enqueueStroke(first);
+        queue.enqueueStroke(second);
+        queue.enqueueStroke(third);
+        queue.start();
+        queue.shutdown(5000);
+
+        assertEquals(2, sink.sent.size());
+        Stroke merged = (Stroke) sink.sent.get(0);
+        assertEquals(3, merged.size());
+        assertEquals(30, merged.getX(2));
+        assertEquals(15, merged.getY(2));
+        assertEquals(1, ((Stroke) sink.sent.get(1)).size());
+    }
+
+    /**
+     * Enqueues the same 100 pixels over and over, erasing in the last pass.
+     */
+    private static void redraw(OutboundQueue queue, int passes) {
+        for (int pass = 0; pass < passes; pass++) {
+            PointBuffer batch = new PointBuffer();
+            for (int i = 0; i < 100; i++) {
+                batch.add(i % 10, i / 10, pass == passes - 1 ? 0 : 1);
+            }
+            queue.enqueueDraw(batch);
+        }
+    }
+
+    private static void assertErased(Object message) {
+        PointBuffer points = assertInstanceOf(PointBuffer.class, message);
+        Map<Integer, Integer> pens = new HashMap<>();
+        for (int i = 0; i < points.size(); i++) {
+            pens.put(points.getY(i) * 10 + points.getX(i), points.getPen(i));
+        }
+        assertEquals(100, points.size());
+        assertEquals(100, pens.size());
+        assertTrue(pens.values().stream().allMatch(pen -> pen == 0));
+    }
+
+    @Test
+    void compactsToLastWriterPerPixel() {
+        RecordingSink sink = new RecordingSink();
+        OutboundQueue queue = new OutboundQueue(sink, new BatchSizer(false), 800, 600);
+        queue.enqueueText("{\"type\":\"HELLO\"}");
+        // The last pass takes the queue past its bound
+        redraw(queue, Config.OUTBOUND_QUEUE_MAX_POINTS / 100);
+        assertEquals(2, queue.size(), "queue holds " + queue.size() + " entries after compaction");
+
+        queue.start();
+        queue.shutdown(5000);
+
+        assertEquals(2, sink.sent.size());
+        assertEquals("{\"type\":\"HELLO\"}", sink.sent.get(0));
+        assertErased(sink.sent.get(1));
+    }
+
+    @Test
+    void compactionKeepsTextsBetweenTheirDrawing() {
+        RecordingSink sink = new RecordingSink();
+        OutboundQueue queue = new OutboundQueue(sink, new BatchSizer(false), 800, 600);
+        int run = Config.OUTBOUND_QUEUE_MAX_POINTS / 300;
+        redraw(queue, run);
+        queue.enqueueText("{\"type\":\"FOCUS\"}");
+        redraw(queue, run);
+        queue.enqueueText("{\"type\":\"LEAVE\"}");
+        // The last pass takes the queue past its bound
+        redraw(queue, Config.OUTBOUND_QUEUE_MAX_POINTS / 100 - 2 * run);
+        assertEquals(5, queue.size(), "queue holds " + queue.size() + " entries after compaction");
+
+        queue.start();
+        queue.shutdown(5000);
+
+        assertEquals(5, sink.sent.size());
+        assertErased(sink.sent.get(0));
+        assertEquals("{\"type\":\"FOCUS\"}", sink.sent.get(1));
+        assertErased(sink.sent.get(2));
+        assertEquals("{\"type\":\"LEAVE\"}", sink.sent.get(3));
+        assertErased(sink.sent.get(4));
+    }
+}
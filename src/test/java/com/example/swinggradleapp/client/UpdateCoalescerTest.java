@@ -0,0 +1,91 @@
+package com.example.swinggradleapp.client;
+
+import com.example.swinggradleapp.datatransfer.PointBuffer;
+import com.example.swinggradleapp.datatransfer.Tiles;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpdateCoalescerTest {
+
+    private static PointBuffer point(int x, int y, int pen) {
+        PointBuffer points = new PointBuffer();
+        points.add(x, y, pen);
+        return points;
+    }
+
+    @Test
+    void keepsLastWriterInFirstArrivalOrder() {
+        UpdateCoalescer coalescer = new UpdateCoalescer(800, 600);
+        assertTrue(coalescer.merge(point(5, 5, 1)));
+        assertFalse(coalescer.merge(point(6, 5, 1)));
+        assertFalse(coalescer.merge(point(5, 5, 0)));
+        // Clamped onto the last column
+        assertFalse(coalescer.merge(point(900, 5, 1)));
+
+        PointBuffer out = new PointBuffer();
+        assertEquals(3, coalescer.drainTo(out));
+        assertEquals(5, out.getX(0));
+        assertEquals(0, out.getPen(0));
+        assertEquals(6, out.getX(1));
+        assertEquals(799, out.getX(2));
+        assertEquals(0, coalescer.pendingCount());
+        assertTrue(coalescer.merge(point(5, 5, 1)));
+    }
+
+    @Test
+    void cappedDrainsMatchArrivalOrderAcrossGrowth() {
+        UpdateCoalescer coalescer = new UpdateCoalescer(1000, 1000);
+        Map<Integer, Integer> expected = new LinkedHashMap<>();
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            PointBuffer batch = new PointBuffer();
+            for (int i = random.nextInt(2000); i > 0; i--) {
+                int x = random.nextInt(1000);
+                int y = random.nextInt(1000);
+                int pen = random.nextInt(2);
+                batch.add(x, y, pen);
+                // A pixel still pending keeps its place; a drained one is queued again at the end
+                expected.put(y * 1000 + x, pen);
+            }
+            coalescer.merge(batch);
+            assertEquals(expected.size(), coalescer.pendingCount());
+
+            PointBuffer out = new PointBuffer();
+            coalescer.drainTo(out, random.nextInt(2000));
+            Iterator<Map.Entry<Integer, Integer>> it = expected.entrySet().iterator();
+            for (int i = 0; i < out.size(); i++) {
+                Map.Entry<Integer, Integer> next = it.next();
+                assertEquals((int) next.getKey(), out.getY(i) * 1000 + out.getX(i));
+                assertEquals((int) next.getValue(), out.getPen(i));
+                it.remove();
+            }
+        }
+    }
+
+    @Test
+    void releasesTilesOnceDrained() {
+        UpdateCoalescer coalescer = new UpdateCoalescer(4 * Tiles.SIZE, Tiles.SIZE);
+        PointBuffer batch = new PointBuffer();
+        batch.add(0, 0, 1);
+        batch.add(1, 0, 1);
+        batch.add(Tiles.SIZE, 0, 1);
+        coalescer.merge(batch);
+        assertEquals(2, coalescer.allocatedTiles());
+
+        // The first tile still has a pixel pending
+        coalescer.drainTo(new PointBuffer(), 1);
+        assertEquals(2, coalescer.allocatedTiles());
+        coalescer.drainTo(new PointBuffer(), 1);
+        assertEquals(1, coalescer.allocatedTiles());
+        coalescer.drainTo(new PointBuffer(), 1);
+        assertEquals(0, coalescer.allocatedTiles());
+    }
+}
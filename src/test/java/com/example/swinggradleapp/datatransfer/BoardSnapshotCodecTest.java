@@ -0,0 +1,62 @@
+package com.example.swinggradleapp.datatransfer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardSnapshotCodecTest {
+
+    private static void assertRoundTrip(PackedBoard board) {
+        PackedBoard decoded = BoardSnapshotCodec.decode(BoardSnapshotCodec.encode(board));
+        assertEquals(board.getWidth(), decoded.getWidth());
+        assertEquals(board.getHeight(), decoded.getHeight());
+        assertArrayEquals(board.getWords(), decoded.getWords());
+
+        PackedBoard fromBase64 = BoardSnapshotCodec.decodeBase64(BoardSnapshotCodec.encodeBase64(board));
+        assertArrayEquals(board.getWords(), fromBase64.getWords());
+    }
+
+    @Test
+    void emptyBoardEncodesToAFewBytes() {
+        PackedBoard board = new PackedBoard(800, 600);
+        assertTrue(BoardSnapshotCodec.encode(board).length < 16);
+        assertRoundTrip(board);
+    }
+
+    @Test
+    void mixedRunsRoundTrip() {
+        // Width not a multiple of 64, so rows end in padded words
+        int[][] matrix = new int[37][150];
+        for (int x = 0; x < 150; x++) {
+            matrix[5][x] = 1;
+        }
+        for (int y = 10; y < 20; y++) {
+            matrix[y][y * 3] = 1;
+        }
+        matrix[36][149] = 1;
+        assertRoundTrip(PackedBoard.fromMatrix(matrix));
+    }
+
+    @Test
+    void noisyBoardRoundTrips() {
+        Random random = new Random(42);
+        long[] words = new long[PackedBoard.wordsPerRow(128) * 64];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = random.nextLong();
+        }
+        assertRoundTrip(new PackedBoard(128, 64, words));
+    }
+
+    @Test
+    void decodesFromOffset() {
+        PackedBoard board = PackedBoard.fromMatrix(new int[][]{{1, 0, 1}, {0, 1, 0}});
+        byte[] encoded = BoardSnapshotCodec.encode(board);
+        byte[] framed = new byte[encoded.length + 3];
+        System.arraycopy(encoded, 0, framed, 3, encoded.length);
+        assertArrayEquals(board.getWords(), BoardSnapshotCodec.decode(framed, 3, encoded.length).getWords());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.swinggradleapp.datatransfer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChannelCodecTest {
+
+    @Test
+    void binaryRoundTrip() {
+        PointBuffer points = new PointBuffer();
+        points.add(5, 6, 1);
+        points.add(700, 500, 0);
+        WireMessage update = new BinaryPointCodec().encode("UPDATE", points, 0, points.size());
+        assertFalse(ChannelCodec.isBinaryChannel(update));
+
+        // Large enough to take several varint bytes
+        WireMessage tagged = ChannelCodec.wrap(300, update);
+        assertTrue(ChannelCodec.isBinaryChannel(tagged));
+        assertEquals(300, ChannelCodec.channelOf(tagged));
+        assertArrayEquals(update.getBinary(), ChannelCodec.unwrap(tagged).getBinary());
+    }
+
+    @Test
+    void tagsJsonWithLeadingField() {
+        WireMessage tagged = ChannelCodec.wrap(2, WireMessage.text("{\"type\":\"CLEAR\"}"));
+        assertEquals("{\"ch\":2,\"type\":\"CLEAR\"}", tagged.getText());
+        assertThrows(IllegalArgumentException.class, () -> ChannelCodec.wrap(2, WireMessage.text("CLEAR")));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.swinggradleapp.datatransfer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PointCodecTest {
+
+    private static PointBuffer samplePoints() {
+        PointBuffer points = new PointBuffer();
+        points.add(0, 0, 1);
+        points.add(799, 599, 0);
+        points.add(400, 2, 1);
+        // Negative deltas and a repeated pixel
+        points.add(3, 1, 0);
+        points.add(3, 1, 1);
+        return points;
+    }
+
+    private static void assertSamePoints(PointBuffer expected, int from, int to, PointBuffer actual) {
+        assertEquals(to - from, actual.size());
+        for (int i = from; i < to; i++) {
+            assertEquals(expected.getX(i), actual.getX(i - from), "x of point " + i);
+            assertEquals(expected.getY(i), actual.getY(i - from), "y of point " + i);
+            assertEquals(expected.getPen(i), actual.getPen(i - from), "pen of point " + i);
+        }
+    }
+
+    @Test
+    void binaryRoundTrip() {
+        PointCodec codec = new BinaryPointCodec();
+        PointBuffer points = samplePoints();
+        for (String type : new String[]{"DRAW", "UPDATE"}) {
+            WireMessage message = codec.encode(type, points, 0, points.size());
+            assertTrue(message.isBinary());
+            assertTrue(codec.canDecode(message));
+
+            PointBuffer decoded = new PointBuffer();
+            assertEquals(type, codec.decode(message, decoded));
+            assertSamePoints(points, 0, points.size(), decoded);
+        }
+    }
+
+    @Test
+    void binaryEncodesSubrange() {
+        PointCodec codec = new BinaryPointCodec();
+        PointBuffer points = samplePoints();
+        PointBuffer decoded = new PointBuffer();
+        codec.decode(codec.encode("DRAW", points, 1, 4), decoded);
+        assertSamePoints(points, 1, 4, decoded);
+    }
+
+    @Test
+    void jsonRoundTrip() {
+        PointCodec codec = new JsonPointCodec();
+        PointBuffer points = samplePoints();
+        WireMessage message = codec.encode("UPDATE", points, 0, points.size());
+        assertFalse(message.isBinary());
+        assertTrue(codec.canDecode(message));
+
+        PointBuffer decoded = new PointBuffer();
+        assertEquals("UPDATE", codec.decode(message, decoded));
+        assertSamePoints(points, 0, points.size(), decoded);
+    }
+
+    @Test
+    void codecsDoNotDecodeEachOther() {
+        PointBuffer points = samplePoints();
+        PointCodec binary = new BinaryPointCodec();
+        PointCodec json = new JsonPointCodec();
+        assertFalse(binary.canDecode(json.encode("DRAW", points, 0, points.size())));
+        assertFalse(json.canDecode(binary.encode("DRAW", points, 0, points.size())));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.swinggradleapp.datatransfer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResumePointTest {
+
+    @Test
+    void parsesEpochAndSeq() {
+        ResumePoint point = ResumePoint.parse("1700000000123:42");
+        assertEquals(1700000000123L, point.getEpoch());
+        assertEquals(42, point.getSeq());
+        assertEquals("1700000000123:42", point.toHeaderValue());
+    }
+
+    @Test
+    void parsesSeqWithoutEpoch() {
+        ResumePoint point = ResumePoint.parse(" 17 ");
+        assertEquals(SequenceCodec.NONE, point.getEpoch());
+        assertEquals(17, point.getSeq());
+        assertEquals("17", point.toHeaderValue());
+    }
+
+    @Test
+    void headerValueRoundTrips() {
+        ResumePoint point = new ResumePoint(5, 9);
+        ResumePoint parsed = ResumePoint.parse(point.toHeaderValue());
+        assertEquals(point.getEpoch(), parsed.getEpoch());
+        assertEquals(point.getSeq(), parsed.getSeq());
+    }
+
+    @Test
+    void rejectsMalformedValues() {
+        assertNull(ResumePoint.parse(null));
+        assertNull(ResumePoint.parse(""));
+        assertNull(ResumePoint.parse("abc"));
+        assertNull(ResumePoint.parse("1:"));
+        assertNull(ResumePoint.parse(":2"));
+        assertNull(ResumePoint.parse("1:2:3"));
+    }
+}
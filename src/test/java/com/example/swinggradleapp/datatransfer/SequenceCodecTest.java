@@ -0,0 +1,49 @@
+package com.example.swinggradleapp.datatransfer;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SequenceCodecTest {
+
+    private static PointBuffer samplePoints() {
+        PointBuffer points = new PointBuffer();
+        points.add(10, 20, 1);
+        points.add(11, 20, 0);
+        return points;
+    }
+
+    @Test
+    void binaryRoundTrip() {
+        PointCodec codec = new BinaryPointCodec();
+        WireMessage update = codec.encode("UPDATE", samplePoints(), 0, 2);
+        for (long seq : new long[]{0, 1, 127, 128, 1L << 40}) {
+            WireMessage stamped = SequenceCodec.wrap(seq, update);
+            assertTrue(SequenceCodec.isBinarySequenced(stamped));
+            assertFalse(codec.canDecode(stamped));
+            assertEquals(seq, SequenceCodec.seqOf(stamped));
+            assertArrayEquals(update.getBinary(), SequenceCodec.unwrap(stamped).getBinary());
+        }
+        assertFalse(SequenceCodec.isBinarySequenced(update));
+    }
+
+    @Test
+    void jsonGetsLeadingSeqField() {
+        WireMessage update = new JsonPointCodec().encode("UPDATE", samplePoints(), 0, 2);
+        JsonObject stamped = JsonParser.parseString(SequenceCodec.wrap(42, update).getText()).getAsJsonObject();
+        assertEquals(42, stamped.get("seq").getAsLong());
+        assertEquals("UPDATE", stamped.get("type").getAsString());
+        assertEquals(2, stamped.get("points").getAsJsonArray().size());
+    }
+
+    @Test
+    void rejectsLegacyText() {
+        assertThrows(IllegalArgumentException.class, () -> SequenceCodec.wrap(1, WireMessage.text("UPDATE 1 2 1")));
+    }
+}
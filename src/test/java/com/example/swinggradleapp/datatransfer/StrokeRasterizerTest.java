@@ -0,0 +1,95 @@
+package com.example.swinggradleapp.datatransfer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StrokeRasterizerTest {
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 600;
+
+    private static Set<Long> rasterized(Stroke stroke) {
+        PointBuffer out = new PointBuffer();
+        new StrokeRasterizer(WIDTH, HEIGHT).rasterize(stroke, out);
+        Set<Long> pixels = new HashSet<>();
+        for (int i = 0; i < out.size(); i++) {
+            assertEquals(stroke.getPen(), out.getPen(i));
+            assertTrue(pixels.add(Tiles.key(out.getX(i), out.getY(i))), "pixel emitted twice");
+        }
+        return pixels;
+    }
+
+    /**
+     * Captures a stroke the way MainFrame.addPoint does, one center at a time, flushing every few centers.
+     */
+    private static Set<Long> captured(Stroke stroke, int flushEvery) {
+        PixelSet capture = new PixelSet(WIDTH, HEIGHT);
+        Set<Long> pixels = new HashSet<>();
+        for (int i = 0; i < stroke.size(); i++) {
+            int from = Math.max(0, i - 1);
+            StrokeRasterizer.addSegment(stroke.getX(from), stroke.getY(from), stroke.getX(i), stroke.getY(i),
+                    stroke.getRadius(), capture);
+            if ((i + 1) % flushEvery == 0 || i == stroke.size() - 1) {
+                for (int p = 0; p < capture.size(); p++) {
+                    pixels.add(Tiles.key(capture.getX(p), capture.getY(p)));
+                }
+                capture.clear();
+            }
+        }
+        return pixels;
+    }
+
+    @Test
+    void localCaptureMatchesRasterizedStroke() {
+        Stroke stroke = new Stroke(3, 1);
+        stroke.add(100, 100);
+        stroke.add(120, 104);
+        stroke.add(145, 110);
+        Set<Long> remote = rasterized(stroke);
+        assertEquals(remote, captured(stroke, Integer.MAX_VALUE));
+        // The gaps between the samples are filled
+        assertTrue(remote.contains(Tiles.key(110, 102)));
+        assertTrue(remote.contains(Tiles.key(133, 107)));
+    }
+
+    @Test
+    void localCaptureMatchesAcrossFlushes() {
+        Random random = new Random(7);
+        for (int radius : new int[]{0, 1, 4, 9}) {
+            Stroke stroke = new Stroke(radius, 0);
+            int x = 400;
+            int y = 300;
+            for (int i = 0; i < 60; i++) {
+                x += random.nextInt(41) - 20;
+                y += random.nextInt(41) - 20;
+                stroke.add(x, y);
+            }
+            assertEquals(rasterized(stroke), captured(stroke, 5), "radius " + radius);
+        }
+    }
+
+    @Test
+    void clampsToTheBoard() {
+        Stroke stroke = new Stroke(5, 1);
+        stroke.add(-10, 2);
+        stroke.add(WIDTH + 10, HEIGHT - 1);
+        Set<Long> remote = rasterized(stroke);
+        assertEquals(remote, captured(stroke, 1));
+        for (long key : remote) {
+            assertTrue(Tiles.keyX(key) >= 0 && Tiles.keyX(key) < WIDTH && Tiles.keyY(key) >= 0 && Tiles.keyY(key) < HEIGHT);
+        }
+    }
+
+    @Test
+    void singleCenterIsADisk() {
+        Stroke stroke = new Stroke(2, 1);
+        stroke.add(50, 50);
+        // 13 pixels with dx*dx + dy*dy <= 4
+        assertEquals(13, rasterized(stroke).size());
+    }
+}
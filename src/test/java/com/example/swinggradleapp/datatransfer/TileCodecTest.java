@@ -0,0 +1,54 @@
+package com.example.swinggradleapp.datatransfer;
+
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TileCodecTest {
+
+    private static PackedBoard sampleTile() {
+        PackedBoard tile = new PackedBoard(Tiles.SIZE, Tiles.SIZE);
+        long[] words = tile.getWords();
+        words[0] = 1L;
+        words[Tiles.WORDS / 2] = -1L;
+        words[Tiles.WORDS - 1] = 0x8000_0000_0000_0001L;
+        return tile;
+    }
+
+    @Test
+    void binaryRoundTrip() {
+        PackedBoard tile = sampleTile();
+        WireMessage message = TileCodec.encode(3, 7, tile, new BinaryPointCodec());
+        assertTrue(TileCodec.isBinaryTile(message));
+        assertFalse(new BinaryPointCodec().canDecode(message));
+
+        TileCodec.Tile decoded = TileCodec.decodeBinary(message);
+        assertEquals(3, decoded.getTileX());
+        assertEquals(7, decoded.getTileY());
+        assertArrayEquals(tile.getWords(), decoded.getBoard().getWords());
+    }
+
+    @Test
+    void jsonRoundTrip() {
+        PackedBoard tile = sampleTile();
+        WireMessage message = TileCodec.encode(0, 2, tile, new JsonPointCodec());
+        assertFalse(message.isBinary());
+
+        TileCodec.Tile decoded = TileCodec.decodeJson(JsonParser.parseString(message.getText()).getAsJsonObject());
+        assertEquals(0, decoded.getTileX());
+        assertEquals(2, decoded.getTileY());
+        assertArrayEquals(tile.getWords(), decoded.getBoard().getWords());
+    }
+
+    @Test
+    void tileKeysRoundTrip() {
+        List<Long> keys = List.of(Tiles.key(0, 0), Tiles.key(3, 1), Tiles.key(12, 9));
+        assertEquals(keys, TileCodec.fromJson(TileCodec.toJson(keys)));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.swinggradleapp.model;
+
+import com.example.swinggradleapp.datatransfer.ResumePoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardCacheTest {
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 200;
+    private static final long BUDGET = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    private BoardCache open() throws IOException {
+        return BoardCache.open(directory, "board", WIDTH, HEIGHT, BUDGET);
+    }
+
+    private void drawAndClose(ResumePoint point) throws IOException {
+        BoardCache cache = open();
+        BoardModel model = new BoardModel(WIDTH, HEIGHT);
+        model.addListener(cache);
+        model.fillRect(70, 10, 20, 5, 1);
+        cache.close(point);
+    }
+
+    @Test
+    void restoresBoardAndResumePoint() throws IOException {
+        drawAndClose(new ResumePoint(7, 42));
+
+        BoardCache cache = open();
+        assertTrue(cache.isRestored());
+        ResumePoint point = cache.getResumePoint();
+        assertNotNull(point);
+        assertEquals(7, point.getEpoch());
+        assertEquals(42, point.getSeq());
+        assertEquals(1, cache.read().get(70, 10));
+        assertEquals(1, cache.read().get(89, 14));
+        assertEquals(0, cache.read().get(90, 14));
+        cache.close(null);
+    }
+
+    @Test
+    void keepsBoardWithoutResumePointWhenNotVouchedFor() throws IOException {
+        drawAndClose(null);
+
+        BoardCache cache = open();
+        assertTrue(cache.isRestored());
+        assertNull(cache.getResumePoint());
+        assertEquals(1, cache.read().get(70, 10));
+        cache.close(null);
+    }
+
+    @Test
+    void dropsResumePointOfCacheLeftOpen() throws IOException {
+        drawAndClose(new ResumePoint(7, 42));
+        // As after a crash: opened, then never closed
+        open();
+
+        BoardCache cache = open();
+        assertTrue(cache.isRestored());
+        assertNull(cache.getResumePoint());
+        cache.close(null);
+    }
+
+    @Test
+    void discardsBoardOfAnotherSize() throws IOException {
+        drawAndClose(new ResumePoint(7, 42));
+
+        BoardCache cache = BoardCache.open(directory, "board", WIDTH, HEIGHT + 1, BUDGET);
+        assertFalse(cache.isRestored());
+        assertNull(cache.getResumePoint());
+        assertEquals(0, cache.read().get(70, 10));
+        cache.close(null);
+    }
+
+    @Test
+    void discardsVersionOneFiles() throws IOException {
+        drawAndClose(new ResumePoint(7, 42));
+        // Version 1 captured strokes differently from the server, so neither its board nor its resume point holds
+        try (FileChannel channel = FileChannel.open(directory.resolve(BoardCache.fileName("board")), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 0x57424331), 0);
+        }
+
+        BoardCache cache = open();
+        assertFalse(cache.isRestored());
+        assertNull(cache.getResumePoint());
+        assertEquals(0, cache.read().get(70, 10));
+        cache.close(null);
+    }
+}
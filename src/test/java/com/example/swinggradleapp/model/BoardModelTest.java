@@ -0,0 +1,55 @@
+package com.example.swinggradleapp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BoardModelTest {
+
+    private static List<Rectangle> recordChanges(BoardModel model) {
+        List<Rectangle> changes = new ArrayList<>();
+        model.addListener((changed, region) -> changes.add(region));
+        return changes;
+    }
+
+    @Test
+    void fillRectReportsOnlyFlippedPixels() {
+        BoardModel model = new BoardModel(800, 600);
+        model.fillRect(10, 20, 50, 30, 1);
+        List<Rectangle> changes = recordChanges(model);
+
+        // Clearing a larger area only flips the inked part
+        model.fillRect(0, 0, 300, 300, 0);
+        assertEquals(List.of(new Rectangle(10, 20, 50, 30)), changes);
+
+        // Clearing it again flips nothing
+        model.fillRect(0, 0, 300, 300, 0);
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    void fillRectReportsOnlyFlippedPixelsOfSharedTiles() {
+        BoardModel model = new BoardModel(800, 600);
+        model.fillRect(100, 100, 200, 200, 1);
+        BoardSnapshot before = model.snapshot();
+        List<Rectangle> changes = recordChanges(model);
+
+        // The tiles are shared with the snapshot now, so they are copied before being written
+        model.fillRect(150, 90, 20, 20, 1);
+        assertEquals(List.of(new Rectangle(150, 90, 20, 10)), changes);
+        assertEquals(0, before.get(155, 95));
+        assertEquals(1, model.snapshot().get(155, 95));
+    }
+
+    @Test
+    void fillRectIsClippedToTheBoard() {
+        BoardModel model = new BoardModel(300, 200);
+        List<Rectangle> changes = recordChanges(model);
+        model.fillRect(250, 150, 100, 100, 1);
+        assertEquals(List.of(new Rectangle(250, 150, 50, 50)), changes);
+    }
+}